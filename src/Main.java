@@ -1,21 +1,132 @@
+import java.util.Arrays;
 import java.util.Scanner;
+import service.AppendLog;
 import service.HRSystem;
+import service.ReportServer;
+import ui.BatchRunner;
 import ui.Menu;
 
 public class Main {
-    public static void main(String[] args) {
+    // Headless (--no-menu) run whose report server could not be started.
+    private static final int EXIT_SERVER_FAILED = 4;
+
+    public static void main(String[] args) throws InterruptedException {
 
         Scanner sharedScanner = new Scanner(System.in);
 
         HRSystem hris = new HRSystem(sharedScanner);
+        int servePort = -1;
+        boolean batch = Arrays.asList(args).contains("--batch");
+        boolean headless = Arrays.asList(args).contains("--no-menu");
+
+        for (String arg : args) {
+            if (arg.equals("--batch") || arg.equals("--no-watch") || arg.equals("--no-menu")) {
+                continue;
+            } else if (arg.equals("--columnar")) {
+                hris.setColumnarStore(true);
+            } else if (arg.equals("--no-snapshot")) {
+                hris.setSnapshotEnabled(false);
+            } else if (arg.equals("--log-durability=batch")) {
+                hris.setLogDurability(AppendLog.Durability.FSYNC_PER_BATCH, 0);
+            } else if (arg.equals("--log-durability=interval")) {
+                hris.setLogDurability(AppendLog.Durability.FSYNC_INTERVAL, 1000);
+            } else if (arg.equals("--log-durability=none")) {
+                hris.setLogDurability(AppendLog.Durability.NONE, 0);
+            } else if (arg.startsWith("--log-durability=")) {
+                usageError("Unknown log durability '" + arg.substring("--log-durability=".length()) + "'.");
+            } else if (arg.equals("--serve")) {
+                servePort = ReportServer.DEFAULT_PORT;
+            } else if (arg.startsWith("--serve=")) {
+                String port = arg.substring("--serve=".length());
+                servePort = parsePort(port);
+                if (servePort < 0) {
+                    usageError("--serve needs a port number from 0 to 65535, not '" + port + "'.");
+                }
+            } else if (!batch) {
+                // Batch mode has options of its own; BatchRunner checks the rest.
+                usageError("Unknown argument '" + arg + "'.");
+            }
+        }
+        if (headless && !batch && servePort < 0) {
+            usageError("--no-menu needs --serve.");
+        }
+
+        if (batch) {
+            BatchRunner runner = new BatchRunner(hris);
+            int exitCode = BatchRunner.EXIT_USAGE;
+            if (runner.parseArguments(args)) {
+                exitCode = runner.run();
+            } else {
+                BatchRunner.printUsage(System.err);
+            }
+            hris.shutdown();
+            System.exit(exitCode);
+        }
 
         System.out.println("Booting up TalentCompass Core System...");
         hris.loadData("startup.csv");
+        hris.loadCandidates();
+        if (!Arrays.asList(args).contains("--no-watch")) {
+            hris.startWatching("startup.csv");
+        }
+
+        ReportServer server = null;
+        if (servePort >= 0) {
+            try {
+                server = ReportServer.start(hris, servePort);
+                System.out.println("Report server listening on http://localhost:" + server.getPort() + "/ ("
+                        + (server.usesVirtualThreads() ? "virtual threads" : "thread pool") + ").");
+            } catch (java.io.IOException e) {
+                System.err.println("[ERROR] Could not start the report server on port " + servePort + ": " + e.getMessage());
+            }
+        }
+
+        if (headless && server == null) {
+            hris.shutdown();
+            System.exit(EXIT_SERVER_FAILED);
+        }
+        if (headless) {
+            // Headless: serve until the process is interrupted.
+            ReportServer running = server;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                running.stop();
+                hris.shutdown();
+            }, "shutdown"));
+            running.awaitStop();
+            return;
+        }
 
         Menu dashboard = new Menu(hris, sharedScanner);
 
         dashboard.start();
 
+        if (server != null) {
+            server.stop();
+        }
+        hris.shutdown();
+
         sharedScanner.close();
     }
-}
\ No newline at end of file
+
+    private static void usageError(String message) {
+        System.err.println("[ERROR] " + message);
+        printUsage();
+        System.exit(BatchRunner.EXIT_USAGE);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: java Main [--columnar] [--no-snapshot] [--no-watch] [--log-durability=none|batch|interval]");
+        System.err.println("                 [--serve | --serve=<port>] [--no-menu]   (port 0 to 65535; 0 picks a free one)");
+        BatchRunner.printUsage(System.err);
+    }
+
+    // -1 unless the text is a valid TCP port.
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            return (port >= 0 && port <= 65535) ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
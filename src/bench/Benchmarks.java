@@ -0,0 +1,307 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import model.Employee;
+import service.AggregationKernels;
+import service.AnalyticsEngine;
+import service.CompensationScenario;
+import service.CompensationSimulator;
+import service.Dataset;
+import service.HRSystem;
+import service.IdIndex;
+import service.Kernels;
+import service.LoadMode;
+import service.ParetoTracker;
+
+// Benchmarks for CSV parsing, loading, the analytics pass (row store, and columnar once per
+// kernel implementation), every report, name search, compensation scenarios, the candidate ID
+// index and the Pareto aggregation, each over generated data of the requested sizes. Data sets
+// are generated once per size (with a fixed seed) under the data directory and reused by later
+// runs.
+//
+// Add --add-modules jdk.incubator.vector to include the vector kernels.
+//
+//   java -Xmx8g bench.Benchmarks [--sizes=10000,1000000,10000000] [--warmup=2] [--iterations=5]
+//                                [--data=bench-data] [--only=report] [--csv=results.csv]
+public class Benchmarks {
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = new ArrayList<>();
+        int warmup = 2;
+        int iterations = 5;
+        String dataDir = "bench-data";
+        String only = "";
+        String csv = null;
+        for (String arg : args) {
+            if (arg.startsWith("--sizes=")) {
+                for (String size : arg.substring("--sizes=".length()).split(",")) {
+                    sizes.add(Integer.parseInt(size.trim()));
+                }
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else if (arg.startsWith("--data=")) {
+                dataDir = arg.substring("--data=".length());
+            } else if (arg.startsWith("--only=")) {
+                only = arg.substring("--only=".length());
+            } else if (arg.startsWith("--csv=")) {
+                csv = arg.substring("--csv=".length());
+            } else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(1);
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.add(10_000);
+            sizes.add(1_000_000);
+        }
+
+        PrintStream console = System.out;
+        Harness harness = new Harness(console, warmup, iterations);
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        PrintStream stderr = System.err;
+        for (int size : sizes) {
+            File dir = prepare(dataDir, size);
+            console.println("\n# " + size + " rows (" + dir.getPath() + ")");
+            // Row-level warnings are still formatted but not written to the terminal.
+            System.setErr(discard);
+            try {
+                runAll(harness, dir, size, only, console, discard);
+            } finally {
+                System.setErr(stderr);
+            }
+        }
+
+        if (csv != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(csv), true, "UTF-8")) {
+                harness.writeCsv(out);
+            }
+            console.println("\nResults written to " + csv);
+        }
+    }
+
+    private static File prepare(String dataDir, int size) throws Exception {
+        File dir = new File(dataDir, Integer.toString(size));
+        if (!new File(dir, "startup.csv").isFile()) {
+            System.out.println("Generating " + size + " rows into " + dir.getPath() + "...");
+            DataGenerator generator = new DataGenerator(SEED, 0.001);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IllegalStateException("Cannot create " + dir);
+            }
+            generator.writeEmployees(new File(dir, "startup.csv"), size);
+            generator.writeCandidates(new File(dir, "candidates.csv"), Math.max(1, size / 10));
+            generator.writeRejections(new File(dir, "rejections.csv"), size, Math.max(1, size / 10));
+        }
+        return dir;
+    }
+
+    private static void runAll(Harness harness, File dir, int size, String only, PrintStream console, PrintStream discard) throws Exception {
+        String master = new File(dir, "startup.csv").getPath();
+        String rejections = new File(dir, "rejections.csv").getPath();
+        // The code under test prints progress through System.out; the harness keeps the console.
+        System.setOut(discard);
+        try {
+            if (selected("parse.fromCSV", only)) {
+                harness.run("parse.fromCSV", size, () -> parseAll(master));
+            }
+            if (selected("load.sequential", only)) {
+                harness.run("load.sequential", size, () -> load(master, LoadMode.SEQUENTIAL, false));
+            }
+            if (selected("load.parallel", only)) {
+                harness.run("load.parallel", size, () -> load(master, LoadMode.PARALLEL_MAPPED, false));
+            }
+            if (selected("load.snapshot", only)) {
+                load(master, LoadMode.AUTO, true);
+                harness.run("load.snapshot", size, () -> load(master, LoadMode.AUTO, true));
+            }
+
+            HRSystem hris = load(master, LoadMode.AUTO, false);
+            if (selected("analytics.fusedPass", only)) {
+                harness.run("analytics.fusedPass", size, () -> AnalyticsEngine.compute(hris.getDataset(), LocalDate.now()));
+            }
+            // The columnar pass once per kernel implementation; the vector one needs the incubator module.
+            if (selected("analytics.columnar", only)) {
+                HRSystem columnar = new HRSystem(new Scanner(""));
+                columnar.setColumnarStore(true);
+                columnar.loadData(master, LoadMode.AUTO);
+                List<AggregationKernels> kernels = new ArrayList<>();
+                kernels.add(Kernels.scalar());
+                if (Kernels.preferred() != Kernels.scalar()) {
+                    kernels.add(Kernels.preferred());
+                }
+                for (AggregationKernels impl : kernels) {
+                    String name = "analytics.columnar." + impl.getName().split(" ")[0];
+                    harness.run(name, size, () -> AnalyticsEngine.compute(columnar.getDataset(), LocalDate.now(), impl));
+                }
+            }
+            // The report methods render from the analytics snapshot cached on the dataset, as in the app.
+            if (selected("report.directory", only)) {
+                harness.run("report.directory", size, () -> { hris.listAllEmployees(discard); return null; });
+            }
+            if (selected("report.headcount", only)) {
+                harness.run("report.headcount", size, () -> { hris.generateDepartmentReport(discard); return null; });
+            }
+            if (selected("report.attrition", only)) {
+                harness.run("report.attrition", size, () -> { hris.generateAttritionReport(discard); return null; });
+            }
+            if (selected("report.parity", only)) {
+                harness.run("report.parity", size, () -> { hris.generatePayParityReport(discard); return null; });
+            }
+            if (selected("report.gratuity", only)) {
+                harness.run("report.gratuity", size, () -> { hris.generateGratuityReport(discard); return null; });
+            }
+            if (selected("lookup.search", only)) {
+                List<String> queries = searchQueries(hris.getDataset());
+                harness.run("lookup.search", queries.size(), () -> {
+                    int found = 0;
+                    for (String query : queries) {
+                        found += hris.searchEmployees(discard, query, 20);
+                    }
+                    return found;
+                });
+            }
+            if (selected("compensation.scenarios", only)) {
+                List<CompensationScenario> scenarios = compensationScenarios(hris.getDataset(), 500);
+                harness.run("compensation.scenarios", scenarios.size(),
+                        () -> CompensationSimulator.simulate(hris.getDataset(), scenarios));
+            }
+            // Candidate ID index: a full build from the log, then lookups of logged and unknown IDs.
+            if (selected("index.ids", only)) {
+                String candidates = new File(dir, "candidates.csv").getPath();
+                harness.run("index.ids.rebuild", size,
+                        () -> deleteIndex(candidates),
+                        () -> {
+                            try (IdIndex index = new IdIndex(candidates)) {
+                                return index.size();
+                            }
+                        });
+                try (IdIndex index = new IdIndex(candidates)) {
+                    int lookups = 100_000;
+                    harness.run("index.ids.lookup", lookups, () -> {
+                        int found = 0;
+                        for (int i = 0; i < lookups; i++) {
+                            if (index.find("C" + (i * 7) % (size / 5 + 1)) != null) {
+                                found++;
+                            }
+                        }
+                        return found;
+                    });
+                }
+            }
+            // A full rebuild of the reason counts: the checkpoint is removed before every run.
+            if (selected("pareto.rebuild", only)) {
+                harness.run("pareto.rebuild", size,
+                        () -> deleteCheckpoint(rejections),
+                        () -> {
+                            ParetoTracker tracker = new ParetoTracker(rejections);
+                            tracker.refresh();
+                            return tracker.ranked();
+                        });
+            }
+            if (selected("pareto.chart", only)) {
+                harness.run("pareto.chart", size,
+                        () -> deleteCheckpoint(rejections),
+                        () -> { hris.generateParetoChart(discard, new ParetoTracker(rejections)); return null; });
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static boolean selected(String name, String only) {
+        return only.isEmpty() || name.contains(only);
+    }
+
+    private static int parseAll(String master) throws Exception {
+        int parsed = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(master))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    if (Employee.fromCSV(line) != null) {
+                        parsed++;
+                    }
+                } catch (RuntimeException e) {
+                    // Malformed rows are part of the workload.
+                }
+            }
+        }
+        return parsed;
+    }
+
+    // Name prefixes, whole surnames, surnames with two letters swapped and IDs, taken from
+    // rows spread evenly through the master.
+    private static List<String> searchQueries(Dataset dataset) {
+        List<String> queries = new ArrayList<>();
+        int step = Math.max(1, dataset.size() / 100);
+        for (int row = 0; row < dataset.size(); row += step) {
+            String[] words = dataset.fullName(row).trim().split("\\s+");
+            String first = words[0];
+            String last = words[words.length - 1];
+            queries.add(first.substring(0, Math.min(3, first.length())));
+            queries.add(last);
+            if (last.length() >= 5) {
+                queries.add(last.substring(0, 2) + last.charAt(3) + last.charAt(2) + last.substring(4));
+            }
+            queries.add(dataset.id(row));
+        }
+        return queries;
+    }
+
+    // Seeded scenarios with department and role increments and a few promotions each.
+    private static List<CompensationScenario> compensationScenarios(Dataset dataset, int count) {
+        Random random = new Random(SEED);
+        List<CompensationScenario> scenarios = new ArrayList<>(count);
+        for (int i = 0; i < count && !dataset.isEmpty(); i++) {
+            CompensationScenario scenario = new CompensationScenario("Scenario " + (i + 1))
+                    .defaultIncrement(random.nextInt(10))
+                    .departmentIncrement(dataset.department(random.nextInt(dataset.size())), random.nextInt(15))
+                    .roleIncrement(dataset.role(random.nextInt(dataset.size())), random.nextInt(20))
+                    .benefitsMultiplier(1.15 + random.nextInt(4) * 0.05);
+            for (int p = 0; p < 20; p++) {
+                scenario.promotion(dataset.id(random.nextInt(dataset.size())), 5 + random.nextInt(20));
+            }
+            scenarios.add(scenario);
+        }
+        return scenarios;
+    }
+
+    private static HRSystem load(String master, LoadMode mode, boolean snapshot) {
+        HRSystem hris = new HRSystem(new Scanner(""));
+        hris.setSnapshotEnabled(snapshot);
+        hris.loadData(master, mode);
+        return hris;
+    }
+
+    private static void deleteIndex(String log) {
+        try {
+            Files.deleteIfExists(Paths.get(log + ".idx"));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteCheckpoint(String rejections) {
+        try {
+            Files.deleteIfExists(Paths.get(rejections + ".pareto"));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
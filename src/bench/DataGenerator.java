@@ -0,0 +1,204 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Writes reproducible startup.csv, candidates.csv and rejections.csv files for benchmarks and
+// load testing. The same seed and sizes always give byte-identical files. Departments,
+// statuses and rejection reasons are skewed the way a real HR export is, and a small share of
+// rows is deliberately malformed so the loaders' error paths are exercised too.
+public class DataGenerator {
+    private static final String[] DEPARTMENTS = {"Engineering", "Sales", "Operations", "HR", "Finance", "Marketing", "Legal", "Support"};
+    private static final double[] DEPARTMENT_WEIGHTS = {0.38, 0.20, 0.15, 0.08, 0.07, 0.06, 0.03, 0.03};
+    private static final String[][] ROLES = {
+        {"Software Engineer", "Senior Engineer", "Tech Lead", "QA Analyst", "Engineering Manager"},
+        {"Sales Executive", "Account Manager", "Sales Manager"},
+        {"Operations Analyst", "Operations Lead", "Logistics Coordinator"},
+        {"HR Generalist", "Recruiter", "HR Business Partner"},
+        {"Accountant", "Financial Analyst", "Finance Manager"},
+        {"Marketing Associate", "Content Strategist", "Marketing Manager"},
+        {"Legal Counsel", "Paralegal"},
+        {"Support Agent", "Support Lead"},
+    };
+    // Monthly basic salary medians per department, in rupees.
+    private static final double[] SALARY_MEDIANS = {140000, 90000, 70000, 65000, 95000, 80000, 120000, 45000};
+    // Active, Probation, Notice Period, Exited and an unrecognised "On Leave".
+    private static final String[] STATUSES = {"Active", "Probation", "Notice Period", "Exited", "On Leave"};
+    private static final double[] STATUS_WEIGHTS = {0.68, 0.07, 0.05, 0.18, 0.02};
+    private static final String[] REJECTION_REASONS = {
+        "Salary Expectations Too High", "Lacks Technical Skills", "Poor Culture Fit", "Candidate Ghosted / Withdrew", "Other"};
+    private static final double[] REJECTION_WEIGHTS = {0.45, 0.28, 0.12, 0.10, 0.05};
+    private static final LocalDate EPOCH = LocalDate.of(2026, 1, 1);
+    private static final String[] FIRST_NAMES = {"Aarav", "Priya", "Rohan", "Ananya", "Vikram", "Meera", "Arjun", "Kavya",
+        "Rahul", "Sneha", "Aditya", "Isha", "Karan", "Divya", "Nikhil", "Pooja", "Sanjay", "Neha", "Amit", "Riya"};
+    private static final String[] LAST_NAMES = {"Sharma", "Verma", "Iyer", "Patel", "Reddy", "Nair", "Gupta", "Singh",
+        "Menon", "Kulkarni", "Das", "Joshi", "Rao", "Chopra", "Mehta", "Bose"};
+
+    private final Random random;
+    private final double malformedRate;
+
+    public DataGenerator(long seed, double malformedRate) {
+        this.random = new Random(seed);
+        this.malformedRate = malformedRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = 42;
+        int employees = 100_000;
+        int candidates = 20_000;
+        int rejections = 20_000;
+        double malformed = 0.001;
+        String outDir = ".";
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--employees=")) {
+                employees = Integer.parseInt(arg.substring("--employees=".length()));
+            } else if (arg.startsWith("--candidates=")) {
+                candidates = Integer.parseInt(arg.substring("--candidates=".length()));
+            } else if (arg.startsWith("--rejections=")) {
+                rejections = Integer.parseInt(arg.substring("--rejections=".length()));
+            } else if (arg.startsWith("--malformed=")) {
+                malformed = Double.parseDouble(arg.substring("--malformed=".length()));
+            } else if (arg.startsWith("--out=")) {
+                outDir = arg.substring("--out=".length());
+            } else {
+                System.err.println("Usage: java bench.DataGenerator [--seed=42] [--employees=100000] [--candidates=20000]");
+                System.err.println("                                [--rejections=20000] [--malformed=0.001] [--out=.]");
+                System.exit(1);
+            }
+        }
+
+        File dir = new File(outDir);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + outDir);
+        }
+        DataGenerator generator = new DataGenerator(seed, malformed);
+        generator.writeEmployees(new File(dir, "startup.csv"), employees);
+        generator.writeCandidates(new File(dir, "candidates.csv"), candidates);
+        generator.writeRejections(new File(dir, "rejections.csv"), rejections, candidates);
+        System.out.println("Generated " + employees + " employees, " + candidates + " candidates and "
+                + rejections + " rejections in " + dir.getPath() + " (seed " + seed + ").");
+    }
+
+    public void writeEmployees(File file, int rows) throws IOException {
+        try (BufferedWriter out = open(file)) {
+            out.write("ID,FullName,Gender,Department,Role,JoiningDate,BasicSalary,Status");
+            out.newLine();
+            StringBuilder line = new StringBuilder(128);
+            for (int i = 0; i < rows; i++) {
+                line.setLength(0);
+                if (random.nextDouble() < malformedRate) {
+                    malformedEmployee(line, i);
+                } else {
+                    employee(line, i);
+                }
+                out.append(line);
+                out.newLine();
+            }
+        }
+    }
+
+    private void employee(StringBuilder line, int i) {
+        int department = pick(DEPARTMENT_WEIGHTS);
+        String[] roles = ROLES[department];
+        // Junior roles come first in each list and are the most common.
+        int role = Math.min(roles.length - 1, (int) Math.abs(random.nextGaussian() * roles.length / 2.5));
+        double genderDraw = random.nextDouble();
+        String gender = (genderDraw < 0.58) ? "M" : (genderDraw < 0.985) ? "F" : "X";
+        // Hiring has grown over time, so recent joining dates are more common.
+        int daysBack = (int) (Math.pow(random.nextDouble(), 1.8) * 25 * 365);
+        double salary = SALARY_MEDIANS[department] * (1 + 0.35 * role) * Math.exp(random.nextGaussian() * 0.25);
+
+        line.append('E').append(i).append(',')
+            .append(firstName()).append(' ').append(lastName()).append(',')
+            .append(gender).append(',')
+            .append(DEPARTMENTS[department]).append(',')
+            .append(roles[role]).append(',')
+            .append(EPOCH.minusDays(daysBack)).append(',')
+            .append(Math.round(salary * 100) / 100.0).append(',')
+            .append(STATUSES[pick(STATUS_WEIGHTS)]);
+    }
+
+    private void malformedEmployee(StringBuilder line, int i) {
+        switch (random.nextInt(4)) {
+            case 0:
+                // Truncated export line.
+                line.append('E').append(i).append(',').append(firstName()).append(",M,Sales");
+                break;
+            case 1:
+                line.append('E').append(i).append(',').append(firstName()).append(" ").append(lastName())
+                    .append(",F,Finance,Accountant,31/12/2019,85000,Active");
+                break;
+            case 2:
+                line.append('E').append(i).append(',').append(firstName()).append(" ").append(lastName())
+                    .append(",M,Engineering,Tech Lead,2018-04-01,N/A,Active");
+                break;
+            default:
+                // Blank line.
+                break;
+        }
+    }
+
+    public void writeCandidates(File file, int rows) throws IOException {
+        try (BufferedWriter out = open(file)) {
+            for (int i = 0; i < rows; i++) {
+                int department = pick(DEPARTMENT_WEIGHTS);
+                String[] roles = ROLES[department];
+                LocalDate applied = EPOCH.minusDays(random.nextInt(3 * 365));
+                double outcome = random.nextDouble();
+                // Cycle times cluster around a month with a long tail past the 45-day limit.
+                LocalDate offer = applied.plusDays(7 + (long) (Math.exp(random.nextGaussian() * 0.5) * 25));
+                String offerDate = (outcome < 0.15) ? "PENDING" : offer.toString();
+                String status = (outcome < 0.15) ? "In Progress" : (outcome < 0.75) ? "Accepted" : "Rejected";
+                out.append('C').append(Integer.toString(i)).append(',')
+                   .append(firstName()).append(' ').append(lastName()).append(',')
+                   .append(roles[random.nextInt(roles.length)]).append(',')
+                   .append(applied.toString()).append(',')
+                   .append(offerDate).append(',')
+                   .append(status);
+                out.newLine();
+            }
+        }
+    }
+
+    public void writeRejections(File file, int rows, int candidates) throws IOException {
+        try (BufferedWriter out = open(file)) {
+            for (int i = 0; i < rows; i++) {
+                out.append('C').append(Integer.toString(random.nextInt(Math.max(1, candidates)))).append(',')
+                   .append(REJECTION_REASONS[pick(REJECTION_WEIGHTS)]).append(',')
+                   .append(EPOCH.minusDays(random.nextInt(3 * 365)).toString());
+                out.newLine();
+            }
+        }
+    }
+
+    private String firstName() {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+    }
+
+    private String lastName() {
+        return LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private int pick(double[] weights) {
+        double draw = random.nextDouble();
+        for (int i = 0; i < weights.length - 1; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static BufferedWriter open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+    }
+}
@@ -0,0 +1,76 @@
+package bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+// Minimal JMH-style measurement loop: warm-up iterations that are discarded, then timed
+// iterations reported as mean, standard deviation and range in milliseconds per operation.
+// Every result is folded into a volatile sink so the JIT cannot drop the work as dead code.
+public class Harness {
+    private static volatile int sink;
+
+    private final PrintStream out;
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final List<String> results = new ArrayList<>();
+
+    public Harness(PrintStream out, int warmupIterations, int measuredIterations) {
+        this.out = out;
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    // Runs setup (untimed) before every invocation of the operation.
+    public void run(String name, long rows, Runnable setup, Callable<?> operation) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            setup.run();
+            consume(operation.call());
+        }
+
+        double[] millis = new double[measuredIterations];
+        for (int i = 0; i < measuredIterations; i++) {
+            setup.run();
+            long start = System.nanoTime();
+            Object result = operation.call();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            consume(result);
+        }
+
+        double mean = 0;
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double m : millis) {
+            mean += m;
+            min = Math.min(min, m);
+            max = Math.max(max, m);
+        }
+        mean /= millis.length;
+        double variance = 0;
+        for (double m : millis) {
+            variance += (m - mean) * (m - mean);
+        }
+        double stddev = (millis.length > 1) ? Math.sqrt(variance / (millis.length - 1)) : 0;
+
+        out.printf("%-24s %,12d rows  %12.3f ± %9.3f ms/op  (min %.3f, max %.3f)%n",
+                name, rows, mean, stddev, min, max);
+        results.add(String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f", name, rows, mean, stddev, min, max));
+    }
+
+    public void run(String name, long rows, Callable<?> operation) throws Exception {
+        run(name, rows, () -> { }, operation);
+    }
+
+    public void writeCsv(PrintStream out) {
+        out.println("benchmark,rows,mean_ms,stddev_ms,min_ms,max_ms");
+        for (String result : results) {
+            out.println(result);
+        }
+    }
+
+    private static void consume(Object result) {
+        sink += (result != null) ? result.hashCode() : 0;
+    }
+}
@@ -0,0 +1,198 @@
+package bench;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import service.HRSystem;
+import service.LatencyHistogram;
+import service.ReportServer;
+
+// Closed-loop load test for the report server: each client sends one request, waits for the
+// response, and sends the next, cycling through the endpoints. After a warm-up period the
+// latency of every request is recorded per endpoint, and throughput plus p50/p90/p99/p99.9/max
+// are printed at the end. Because clients wait for each response, a stalled server slows the
+// clients down rather than queueing more work, so the percentiles understate the latency an
+// open stream of users would see during a stall; compare runs, not absolute numbers.
+//
+// Without --url, the employee master and logs in --data are loaded and an embedded server is
+// started on a free port in the same JVM.
+//
+//   java bench.LoadTest [--url=http://localhost:8088] [--data=.] [--columnar] [--clients=200]
+//                       [--warmup=5] [--duration=20] [--paths=/api/headcount,/api/parity]
+public class LoadTest {
+    private static final String[] DEFAULT_PATHS = {
+        "/api/headcount", "/api/attrition", "/api/parity", "/api/gratuity?page=1&size=100", "/api/pareto", "/api/directory?page=1&size=100"
+    };
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        String dataDir = ".";
+        boolean columnar = false;
+        int clients = 200;
+        int warmupSeconds = 5;
+        int durationSeconds = 20;
+        String[] paths = DEFAULT_PATHS;
+        for (String arg : args) {
+            if (arg.startsWith("--url=")) {
+                url = arg.substring("--url=".length());
+            } else if (arg.startsWith("--data=")) {
+                dataDir = arg.substring("--data=".length());
+            } else if (arg.equals("--columnar")) {
+                columnar = true;
+            } else if (arg.startsWith("--clients=")) {
+                clients = Integer.parseInt(arg.substring("--clients=".length()));
+            } else if (arg.startsWith("--warmup=")) {
+                warmupSeconds = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--duration=")) {
+                durationSeconds = Integer.parseInt(arg.substring("--duration=".length()));
+            } else if (arg.startsWith("--paths=")) {
+                paths = arg.substring("--paths=".length()).split(",");
+            } else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(1);
+            }
+        }
+
+        PrintStream console = System.out;
+        HRSystem hris = null;
+        ReportServer server = null;
+        if (url == null) {
+            hris = new HRSystem(new Scanner(System.in));
+            hris.setColumnarStore(columnar);
+            // The loaders report progress through System.out; keep the console for results.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                hris.loadData(new File(dataDir, "startup.csv").getPath());
+            } finally {
+                System.setOut(console);
+            }
+            server = ReportServer.start(hris, 0);
+            url = "http://localhost:" + server.getPort();
+            console.println("Embedded server on " + url + " with " + hris.getDataset().size() + " employees ("
+                    + (server.usesVirtualThreads() ? "virtual threads" : "thread pool") + ").");
+        }
+
+        try {
+            run(console, url, paths, clients, warmupSeconds, durationSeconds);
+        } finally {
+            if (server != null) {
+                server.stop();
+                hris.shutdown();
+            }
+        }
+    }
+
+    private static void run(PrintStream out, String url, String[] paths, int clients, int warmupSeconds,
+                            int durationSeconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest[] requests = new HttpRequest[paths.length];
+        LatencyHistogram[] latencies = new LatencyHistogram[paths.length];
+        LongAdder[] errors = new LongAdder[paths.length];
+        LongAdder[] bytes = new LongAdder[paths.length];
+        LatencyHistogram all = new LatencyHistogram();
+        for (int i = 0; i < paths.length; i++) {
+            requests[i] = HttpRequest.newBuilder(URI.create(url + paths[i].trim()))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            latencies[i] = new LatencyHistogram();
+            errors[i] = new LongAdder();
+            bytes[i] = new LongAdder();
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupSeconds * 1_000_000_000L;
+        long measureUntil = measureFrom + durationSeconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(clients);
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int first = c % paths.length;
+            Thread thread = new Thread(() -> {
+                try {
+                    int next = first;
+                    while (true) {
+                        long sent = System.nanoTime();
+                        if (sent >= measureUntil) {
+                            break;
+                        }
+                        int path = next;
+                        next = (next + 1) % paths.length;
+                        int status;
+                        long length = 0;
+                        try {
+                            HttpResponse<byte[]> response = client.send(requests[path], HttpResponse.BodyHandlers.ofByteArray());
+                            status = response.statusCode();
+                            length = response.body().length;
+                        } catch (java.io.IOException e) {
+                            status = -1;
+                        }
+                        long received = System.nanoTime();
+                        if (sent >= measureFrom && received <= measureUntil) {
+                            latencies[path].record(received - sent);
+                            all.record(received - sent);
+                            bytes[path].add(length);
+                            if (status != 200) {
+                                errors[path].increment();
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        out.println("Running " + clients + " clients against " + url + ": " + warmupSeconds + "s warm-up, "
+                + durationSeconds + "s measured...");
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        done.await();
+
+        out.printf("%n%-32s %10s %10s %8s %8s %8s %8s %8s %8s%n", "Endpoint", "Requests", "Req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms", "Errors");
+        out.println("-----------------------------------------------------------------------------------------------------------");
+        long totalErrors = 0;
+        for (int i = 0; i < paths.length; i++) {
+            printRow(out, paths[i].trim(), latencies[i], errors[i].sum(), durationSeconds);
+            totalErrors += errors[i].sum();
+        }
+        out.println("-----------------------------------------------------------------------------------------------------------");
+        printRow(out, "All endpoints", all, totalErrors, durationSeconds);
+        long totalBytes = 0;
+        for (LongAdder adder : bytes) {
+            totalBytes += adder.sum();
+        }
+        out.printf("Response data: %,.1f MB/s%n", totalBytes / 1e6 / durationSeconds);
+        if (totalErrors > 0) {
+            out.println("⚠️ [WARNING] " + totalErrors + " requests failed or returned a non-200 status.");
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, LatencyHistogram latency, long errors, int durationSeconds) {
+        out.printf("%-32s %,10d %,10.0f %8.2f %8.2f %8.2f %8.2f %8.2f %8d%n", name, latency.getCount(),
+                (double) latency.getCount() / durationSeconds, millis(latency.percentile(0.5)), millis(latency.percentile(0.9)),
+                millis(latency.percentile(0.99)), millis(latency.percentile(0.999)), millis(latency.getMaxNanos()), errors);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
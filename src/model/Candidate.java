@@ -21,6 +21,19 @@ public class Candidate {
         this.status = status;
     }
 
+    public static Candidate fromCSV(String csvLine) {
+        String[] parts = csvLine.split(",");
+
+        String candidateId = parts[0];
+        String name = parts[1];
+        String roleApplied = parts[2];
+        LocalDate applicationDate = LocalDate.parse(parts[3]);
+        LocalDate offerDate = parts[4].equals("PENDING") ? null : LocalDate.parse(parts[4]);
+        String status = parts[5];
+
+        return new Candidate(candidateId, name, roleApplied, applicationDate, offerDate, status);
+    }
+
     public long getCycleTimeDays() {
         if (this.offerDate == null) {
             return -1;
@@ -28,6 +41,30 @@ public class Candidate {
         return ChronoUnit.DAYS.between(this.applicationDate, this.offerDate);
     }
 
+    public String getCandidateId() {
+        return candidateId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getRoleApplied() {
+        return roleApplied;
+    }
+
+    public LocalDate getApplicationDate() {
+        return applicationDate;
+    }
+
+    public LocalDate getOfferDate() {
+        return offerDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
     public String toCSVString() {
         String offerStr = (offerDate != null) ? offerDate.toString() : "PENDING";
         return String.format("%s,%s,%s,%s,%s,%s", 
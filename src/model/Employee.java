@@ -3,6 +3,8 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
 public class Employee {
+    public static final double DEFAULT_BENEFITS_MULTIPLIER = 1.20;
+
     private  String id;
     private String fullName;
     private String gender;
@@ -43,7 +45,17 @@ public long getTenureYears() {
 }
 
 public double getAnnualCTC() {
-    return (this.basicSalary * 12) * 1.20;
+    return getAnnualCTC(DEFAULT_BENEFITS_MULTIPLIER);
+}
+
+// Monthly basic salary for a year, grossed up by the benefits multiplier.
+public double getAnnualCTC(double benefitsMultiplier) {
+    return annualCTC(this.basicSalary, benefitsMultiplier);
+}
+
+// Linear in the salary, so it also turns a sum of monthly salaries into their total CTC.
+public static double annualCTC(double monthlyBasic, double benefitsMultiplier) {
+    return (monthlyBasic * 12) * benefitsMultiplier;
 }
 
 public String getId() {
@@ -63,6 +75,14 @@ public Double getBasicSalary() {
 public String getStatus() {
     return Status;}
 
+// Same field order as startup.csv. A missing salary is written as NaN so the row still loads.
+public String toCSVString() {
+    String salary = (basicSalary == null || basicSalary.isNaN()) ? "NaN"
+            : java.math.BigDecimal.valueOf(basicSalary).stripTrailingZeros().toPlainString();
+    return String.format("%s,%s,%s,%s,%s,%s,%s,%s",
+            id, fullName, gender, department, role, joiningDate, salary, Status);
+}
+
 @Override
 public String toString() {
     return String.format("ID: %s | Name: %S | Dept: %s | Tenure: %d Years", id, fullName, department, getTenureYears());
@@ -0,0 +1,31 @@
+package service;
+
+// Counting and summing loops over the primitive columns of an EmployeeColumns, used by the
+// columnar analytics pass. A code set is a bit set over dictionary codes: bit c set means code c
+// is included, so every code passed in a set or column must be below 64. All methods look at
+// rows from (inclusive) to to (exclusive) and add to what the output already holds.
+//
+// ScalarKernels works on any JVM; VectorKernels uses the incubating JDK Vector API and is only
+// picked when it was compiled and the jdk.incubator.vector module is present (see Kernels).
+public interface AggregationKernels {
+    // Name shown in diagnostics and benchmarks.
+    String getName();
+
+    // counts[c] += rows whose code is c. counts must be longer than every code present.
+    void countCodes(byte[] codes, int from, int to, long[] counts);
+
+    // counts[keys[row]] += 1 for rows whose filter code is in filterSet. Every key of such a row
+    // must be below counts.length.
+    void countKeys(int[] keys, byte[] filter, long filterSet, int from, int to, long[] counts);
+
+    // totals[0] += sum and totals[1] += count of the values that are >= 0 (so not NaN), over rows
+    // whose gender code is in genderSet and status code in statusSet.
+    void sumSalaries(double[] values, byte[] genders, long genderSet, byte[] statuses, long statusSet,
+                     int from, int to, double[] totals);
+
+    // Appends, in order, the rows whose status code is in statusSet and whose day is <= maxDay.
+    void selectOnOrBefore(int[] days, int maxDay, byte[] statuses, long statusSet, int from, int to, IntArrayList rows);
+
+    // Rows whose status code is in statusSet and whose day is > minDay.
+    long countAfter(int[] days, int minDay, byte[] statuses, long statusSet, int from, int to);
+}
@@ -0,0 +1,378 @@
+package service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.Employee;
+
+// Computes headcount by department, attrition counts, pay parity sums and the gratuity
+// eligible set in a single fused pass over a Dataset.
+public final class AnalyticsEngine {
+    private static final int GRATUITY_YEARS = 5;
+    // Code sets passed to the kernels are 64-bit masks.
+    private static final int MAX_KERNEL_CODES = 64;
+
+    private AnalyticsEngine() {
+    }
+
+    public static AnalyticsSnapshot compute(Dataset dataset, LocalDate today) {
+        return compute(dataset, today, Kernels.preferred());
+    }
+
+    // The kernels are used for the columnar layout; the row store is scanned record by record.
+    public static AnalyticsSnapshot compute(Dataset dataset, LocalDate today, AggregationKernels kernels) {
+        try (Metrics.Timer timer = Metrics.time("analytics.compute");
+             Quarantine issues = Quarantine.consoleOnly("Analytics")) {
+            timer.rows(dataset.size());
+            Accumulator acc = new Accumulator(today, true, issues);
+            EmployeeColumns columns = dataset.columns();
+            if (columns != null) {
+                if (!scanWithKernels(columns, acc, kernels)) {
+                    scanColumns(columns, acc);
+                }
+            } else {
+                scanRows(dataset.employees(), acc);
+            }
+            return acc.toSnapshot(dataset.getVersion(), dataset.size());
+        }
+    }
+
+    private static void scanColumns(EmployeeColumns columns, Accumulator acc) {
+        StringDictionary statusDictionary = columns.statusDictionary();
+        StringDictionary genderDictionary = columns.genderDictionary();
+        byte[] statusClasses = columns.statusClasses();
+        byte[] genderClasses = columns.genderClasses();
+        boolean[] headcountActive = new boolean[statusClasses.length];
+        for (int code = 0; code < statusClasses.length; code++) {
+            headcountActive[code] = EmployeeCodes.countsForHeadcount(statusDictionary.decode(code));
+        }
+        StringDictionary departmentDictionary = columns.departmentDictionary();
+        for (int code = 0; code < departmentDictionary.size(); code++) {
+            acc.departmentSlot(departmentDictionary.decode(code));
+        }
+
+        for (int row = 0, n = columns.size(); row < n; row++) {
+            int status = columns.statusCode(row);
+            int gender = columns.genderCode(row);
+            acc.accept(row, columns.id(row),
+                    statusClasses[status], headcountActive[status], columns.departmentCode(row),
+                    genderClasses[gender], genderDictionary.decode(gender), statusDictionary.decode(status),
+                    columns.salary(row), columns.joiningEpochDay(row));
+        }
+    }
+
+    // The same totals as scanColumns, from a few whole-column passes: status counts, Active
+    // headcount by department, male and female salary sums, and the gratuity rows. Only the
+    // salary sketches still take a value at a time. Records the row-at-a-time pass would report
+    // as excluded are looked for only when the counts show there are some. Returns false, having
+    // done nothing, when a dictionary has too many codes for a code set.
+    private static boolean scanWithKernels(EmployeeColumns columns, Accumulator acc, AggregationKernels kernels) {
+        StringDictionary statusDictionary = columns.statusDictionary();
+        StringDictionary genderDictionary = columns.genderDictionary();
+        StringDictionary departmentDictionary = columns.departmentDictionary();
+        if (statusDictionary.size() > MAX_KERNEL_CODES || genderDictionary.size() > MAX_KERNEL_CODES) {
+            return false;
+        }
+        byte[] statusClasses = columns.statusClasses();
+        byte[] genderClasses = columns.genderClasses();
+        long headcountSet = 0;
+        long staffSet = 0;
+        long gratuitySet = 0;
+        for (int code = 0; code < statusClasses.length; code++) {
+            byte status = statusClasses[code];
+            if (status == EmployeeCodes.STATUS_ACTIVE && EmployeeCodes.countsForHeadcount(statusDictionary.decode(code))) {
+                headcountSet |= 1L << code;
+            }
+            if (status == EmployeeCodes.STATUS_ACTIVE || status == EmployeeCodes.STATUS_PROBATION
+                    || status == EmployeeCodes.STATUS_NOTICE_PERIOD) {
+                staffSet |= 1L << code;
+            }
+            if (status == EmployeeCodes.STATUS_ACTIVE || status == EmployeeCodes.STATUS_NOTICE_PERIOD) {
+                gratuitySet |= 1L << code;
+            }
+        }
+        long maleSet = 0;
+        long femaleSet = 0;
+        for (int code = 0; code < genderClasses.length; code++) {
+            if (genderClasses[code] == EmployeeCodes.GENDER_MALE) {
+                maleSet |= 1L << code;
+            } else if (genderClasses[code] == EmployeeCodes.GENDER_FEMALE) {
+                femaleSet |= 1L << code;
+            }
+        }
+
+        int n = columns.size();
+        byte[] statuses = columns.statusColumn();
+        byte[] genders = columns.genderColumn();
+        double[] salaries = columns.salaryColumn();
+        int[] joiningDays = columns.joiningDayColumn();
+        boolean excluded = false;
+
+        long[] statusCounts = new long[statusClasses.length];
+        kernels.countCodes(statuses, 0, n, statusCounts);
+        long staff = 0;
+        for (int code = 0; code < statusCounts.length; code++) {
+            int count = (int) statusCounts[code];
+            switch (statusClasses[code]) {
+                case EmployeeCodes.STATUS_EXITED:
+                    acc.exitedCount += count;
+                    break;
+                case EmployeeCodes.STATUS_NOTICE_PERIOD:
+                    acc.noticePeriodCount += count;
+                    staff += count;
+                    break;
+                case EmployeeCodes.STATUS_ACTIVE:
+                case EmployeeCodes.STATUS_PROBATION:
+                    acc.activeCount += count;
+                    staff += count;
+                    break;
+                default:
+                    excluded |= count > 0;
+            }
+        }
+
+        for (int code = 0; code < departmentDictionary.size(); code++) {
+            acc.departmentSlot(departmentDictionary.decode(code));
+        }
+        long[] departmentCounts = new long[departmentDictionary.size()];
+        kernels.countKeys(columns.departmentColumn(), statuses, headcountSet, 0, n, departmentCounts);
+        for (int code = 0; code < departmentCounts.length; code++) {
+            acc.departmentCounts[code] += (int) departmentCounts[code];
+        }
+
+        double[] totals = new double[2];
+        kernels.sumSalaries(salaries, genders, maleSet, statuses, staffSet, 0, n, totals);
+        acc.totalMaleSalary += totals[0];
+        acc.maleCount += (int) totals[1];
+        totals = new double[2];
+        kernels.sumSalaries(salaries, genders, femaleSet, statuses, staffSet, 0, n, totals);
+        acc.totalFemaleSalary += totals[0];
+        acc.femaleCount += (int) totals[1];
+        excluded |= staff != acc.maleCount + acc.femaleCount;
+        if (acc.maleCount + acc.femaleCount > 0) {
+            for (int row = 0; row < n; row++) {
+                double salary = salaries[row];
+                if (((staffSet >>> statuses[row]) & 1) != 0 && salary >= 0) {
+                    byte gender = genderClasses[genders[row] & 0xFF];
+                    if (gender == EmployeeCodes.GENDER_MALE) {
+                        acc.maleSalaries.add(salary);
+                    } else if (gender == EmployeeCodes.GENDER_FEMALE) {
+                        acc.femaleSalaries.add(salary);
+                    }
+                }
+            }
+        }
+
+        IntArrayList gratuityRows = (acc.gratuityRows != null) ? acc.gratuityRows : new IntArrayList();
+        int before = gratuityRows.size();
+        kernels.selectOnOrBefore(joiningDays, (int) acc.gratuityCutoff, statuses, gratuitySet, 0, n, gratuityRows);
+        acc.gratuityCount += gratuityRows.size() - before;
+        excluded |= kernels.countAfter(joiningDays, (int) acc.todayDay, statuses, gratuitySet, 0, n) > 0;
+
+        if (excluded) {
+            for (int row = 0; row < n; row++) {
+                int status = columns.statusCode(row);
+                int gender = columns.genderCode(row);
+                acc.reportExclusions(columns.id(row), statusClasses[status], statusDictionary.decode(status),
+                        genderClasses[gender], genderDictionary.decode(gender), salaries[row], joiningDays[row]);
+            }
+        }
+        return true;
+    }
+
+    private static void scanRows(List<Employee> employees, Accumulator acc) {
+        Map<String, Byte> statusClasses = new HashMap<>();
+        for (int row = 0, n = employees.size(); row < n; row++) {
+            Employee emp = employees.get(row);
+            if (emp == null) {
+                acc.issues.exclude(null, RowError.NULL_RECORD, "row " + row);
+                continue;
+            }
+            acc.accept(emp, row, statusClasses);
+        }
+    }
+
+    // Row-at-a-time aggregation state shared by every input layout.
+    static final class Accumulator {
+        private final LocalDate today;
+        private final long todayDay;
+        private final long gratuityCutoff;
+
+        private final Map<String, Integer> departmentSlots = new HashMap<>();
+        private final List<String> departmentNames = new ArrayList<>();
+        private int[] departmentCounts = new int[16];
+
+        private int activeCount;
+        private int noticePeriodCount;
+        private int exitedCount;
+        private int maleCount;
+        private int femaleCount;
+        private double totalMaleSalary;
+        private double totalFemaleSalary;
+        private final QuantileSketch maleSalaries = new QuantileSketch();
+        private final QuantileSketch femaleSalaries = new QuantileSketch();
+        private final IntArrayList gratuityRows;
+        private int gratuityCount;
+        private final Quarantine issues;
+
+        // Without retained rows the state is bounded by the number of departments and status values.
+        // Records left out of a calculation are reported to issues.
+        Accumulator(LocalDate today, boolean retainGratuityRows, Quarantine issues) {
+            this.issues = issues;
+            this.gratuityRows = retainGratuityRows ? new IntArrayList() : null;
+            this.today = today;
+            this.todayDay = today.toEpochDay();
+            this.gratuityCutoff = today.minusYears(GRATUITY_YEARS).toEpochDay();
+        }
+
+        int departmentSlot(String department) {
+            Integer slot = departmentSlots.get(department);
+            if (slot == null) {
+                slot = departmentNames.size();
+                departmentNames.add(department);
+                departmentSlots.put(department, slot);
+                if (slot >= departmentCounts.length) {
+                    departmentCounts = Arrays.copyOf(departmentCounts, slot * 2);
+                }
+            }
+            return slot;
+        }
+
+        void accept(Employee emp, int row, Map<String, Byte> statusClasses) {
+            String statusValue = emp.getStatus();
+            Byte status = statusClasses.get(statusValue);
+            if (status == null) {
+                status = EmployeeCodes.classifyStatus(statusValue);
+                if (statusValue != null) {
+                    statusClasses.put(statusValue, status);
+                }
+            }
+            boolean headcountActive = status == EmployeeCodes.STATUS_ACTIVE && EmployeeCodes.countsForHeadcount(statusValue);
+            int deptSlot = headcountActive ? departmentSlot(emp.getDepartment()) : -1;
+            Double salary = emp.getBasicSalary();
+            accept(row, emp.getId(), status, headcountActive, deptSlot,
+                    EmployeeCodes.classifyGender(emp.getGender()), emp.getGender(), statusValue,
+                    (salary != null) ? salary : Double.NaN, emp.getJoiningDate().toEpochDay());
+        }
+
+        void accept(int row, String id, byte status, boolean headcountActive, int deptSlot,
+                    byte gender, String genderValue, String statusValue, double salary, long joinedDay) {
+            if (status == EmployeeCodes.STATUS_NULL) {
+                issues.exclude(id, RowError.NULL_STATUS, null);
+                return;
+            }
+
+            if (headcountActive) {
+                departmentCounts[deptSlot]++;
+            }
+
+            switch (status) {
+                case EmployeeCodes.STATUS_EXITED:
+                    exitedCount++;
+                    return;
+                case EmployeeCodes.STATUS_NOTICE_PERIOD:
+                    noticePeriodCount++;
+                    break;
+                case EmployeeCodes.STATUS_ACTIVE:
+                case EmployeeCodes.STATUS_PROBATION:
+                    activeCount++;
+                    break;
+                default:
+                    issues.exclude(id, RowError.UNKNOWN_STATUS, "'" + statusValue.trim() + "'");
+                    return;
+            }
+
+            acceptPay(id, gender, genderValue, salary);
+
+            if (status == EmployeeCodes.STATUS_ACTIVE || status == EmployeeCodes.STATUS_NOTICE_PERIOD) {
+                if (joinedInFuture(joinedDay)) {
+                    issues.exclude(id, RowError.FUTURE_JOINING_DATE, LocalDate.ofEpochDay(joinedDay).toString());
+                } else if (joinedDay <= gratuityCutoff) {
+                    gratuityCount++;
+                    if (gratuityRows != null) {
+                        gratuityRows.add(row);
+                    }
+                }
+            }
+        }
+
+        // Reports what accept() would report for the record, in the same order, without counting it.
+        void reportExclusions(String id, byte status, String statusValue, byte gender, String genderValue,
+                              double salary, long joinedDay) {
+            switch (status) {
+                case EmployeeCodes.STATUS_NULL:
+                    issues.exclude(id, RowError.NULL_STATUS, null);
+                    return;
+                case EmployeeCodes.STATUS_EXITED:
+                    return;
+                case EmployeeCodes.STATUS_ACTIVE:
+                case EmployeeCodes.STATUS_PROBATION:
+                case EmployeeCodes.STATUS_NOTICE_PERIOD:
+                    break;
+                default:
+                    issues.exclude(id, RowError.UNKNOWN_STATUS, "'" + statusValue.trim() + "'");
+                    return;
+            }
+            excludedFromPay(id, gender, genderValue, salary);
+            if ((status == EmployeeCodes.STATUS_ACTIVE || status == EmployeeCodes.STATUS_NOTICE_PERIOD) && joinedInFuture(joinedDay)) {
+                issues.exclude(id, RowError.FUTURE_JOINING_DATE, LocalDate.ofEpochDay(joinedDay).toString());
+            }
+        }
+
+        private boolean joinedInFuture(long joinedDay) {
+            return joinedDay > todayDay && ChronoUnit.YEARS.between(LocalDate.ofEpochDay(joinedDay), today) < 0;
+        }
+
+        private void acceptPay(String id, byte gender, String genderValue, double salary) {
+            if (excludedFromPay(id, gender, genderValue, salary)) {
+                return;
+            }
+            if (gender == EmployeeCodes.GENDER_MALE) {
+                totalMaleSalary += salary;
+                maleSalaries.add(salary);
+                maleCount++;
+            } else {
+                totalFemaleSalary += salary;
+                femaleSalaries.add(salary);
+                femaleCount++;
+            }
+        }
+
+        // Reports the record and returns true when it cannot count towards pay parity.
+        private boolean excludedFromPay(String id, byte gender, String genderValue, double salary) {
+            if (gender == EmployeeCodes.GENDER_NULL) {
+                issues.exclude(id, RowError.NULL_GENDER, null);
+            } else if (Double.isNaN(salary)) {
+                issues.exclude(id, RowError.MISSING_SALARY, null);
+            } else if (salary < 0) {
+                issues.exclude(id, RowError.NEGATIVE_SALARY, null);
+            } else if (gender != EmployeeCodes.GENDER_MALE && gender != EmployeeCodes.GENDER_FEMALE) {
+                issues.exclude(id, RowError.UNKNOWN_GENDER, "'" + genderValue + "'");
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        int getGratuityCount() {
+            return gratuityCount;
+        }
+
+        AnalyticsSnapshot toSnapshot(long datasetVersion, int totalHires) {
+            HashMap<String, Integer> headcount = new HashMap<>();
+            for (int slot = 0; slot < departmentNames.size(); slot++) {
+                if (departmentCounts[slot] > 0) {
+                    headcount.merge(EmployeeCodes.departmentKey(departmentNames.get(slot)), departmentCounts[slot], Integer::sum);
+                }
+            }
+            return new AnalyticsSnapshot(datasetVersion, today, headcount, totalHires,
+                    activeCount, noticePeriodCount, exitedCount,
+                    maleCount, femaleCount, totalMaleSalary, totalFemaleSalary, maleSalaries, femaleSalaries,
+                    gratuityCount, (gratuityRows != null) ? gratuityRows.toArray() : new int[0]);
+        }
+    }
+}
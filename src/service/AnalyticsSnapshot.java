@@ -0,0 +1,133 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+
+// Immutable result of one fused analytics pass over a Dataset. It is valid for the dataset
+// version it was computed from and, because gratuity depends on today's date, for one day.
+public final class AnalyticsSnapshot {
+    private final long datasetVersion;
+    private final LocalDate asOf;
+    private final Map<String, Integer> headcountByDepartment;
+    private final int totalHires;
+    private final int activeCount;
+    private final int noticePeriodCount;
+    private final int exitedCount;
+    private final int maleCount;
+    private final int femaleCount;
+    private final double totalMaleSalary;
+    private final double totalFemaleSalary;
+    private final QuantileSketch maleSalaries;
+    private final QuantileSketch femaleSalaries;
+    private final int gratuityEligibleCount;
+    private final int[] gratuityEligibleRows;
+
+    AnalyticsSnapshot(long datasetVersion, LocalDate asOf, Map<String, Integer> headcountByDepartment,
+                      int totalHires, int activeCount, int noticePeriodCount, int exitedCount,
+                      int maleCount, int femaleCount, double totalMaleSalary, double totalFemaleSalary,
+                      QuantileSketch maleSalaries, QuantileSketch femaleSalaries,
+                      int gratuityEligibleCount, int[] gratuityEligibleRows) {
+        this.datasetVersion = datasetVersion;
+        this.asOf = asOf;
+        this.headcountByDepartment = Collections.unmodifiableMap(headcountByDepartment);
+        this.totalHires = totalHires;
+        this.activeCount = activeCount;
+        this.noticePeriodCount = noticePeriodCount;
+        this.exitedCount = exitedCount;
+        this.maleCount = maleCount;
+        this.femaleCount = femaleCount;
+        this.totalMaleSalary = totalMaleSalary;
+        this.totalFemaleSalary = totalFemaleSalary;
+        this.maleSalaries = maleSalaries;
+        this.femaleSalaries = femaleSalaries;
+        this.gratuityEligibleCount = gratuityEligibleCount;
+        this.gratuityEligibleRows = gratuityEligibleRows;
+    }
+
+    public long getDatasetVersion() {
+        return datasetVersion;
+    }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public Map<String, Integer> getHeadcountByDepartment() {
+        return headcountByDepartment;
+    }
+
+    public int getTotalHires() {
+        return totalHires;
+    }
+
+    // Active and Probation staff; notice-period staff are counted separately.
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getNoticePeriodCount() {
+        return noticePeriodCount;
+    }
+
+    public int getExitedCount() {
+        return exitedCount;
+    }
+
+    public double getTurnoverRate() {
+        return (totalHires > 0) ? ((double) exitedCount / totalHires) * 100 : 0.0;
+    }
+
+    public int getMaleCount() {
+        return maleCount;
+    }
+
+    public int getFemaleCount() {
+        return femaleCount;
+    }
+
+    public double getTotalMaleSalary() {
+        return totalMaleSalary;
+    }
+
+    public double getTotalFemaleSalary() {
+        return totalFemaleSalary;
+    }
+
+    public double getAvgMaleSalary() {
+        return (maleCount > 0) ? (totalMaleSalary / maleCount) : 0;
+    }
+
+    public double getAvgFemaleSalary() {
+        return (femaleCount > 0) ? (totalFemaleSalary / femaleCount) : 0;
+    }
+
+    public double getParityRatio() {
+        double avgMaleSalary = getAvgMaleSalary();
+        return (avgMaleSalary > 0) ? (getAvgFemaleSalary() / avgMaleSalary) * 100 : 0.0;
+    }
+
+    // Salary distributions behind the averages above; quantiles are within 1% of the true value.
+    public double getMaleSalaryQuantile(double q) {
+        return maleSalaries.quantile(q);
+    }
+
+    public double getFemaleSalaryQuantile(double q) {
+        return femaleSalaries.quantile(q);
+    }
+
+    public double getMedianParityRatio() {
+        double maleMedian = maleSalaries.median();
+        return (maleMedian > 0) ? (femaleSalaries.median() / maleMedian) * 100 : 0.0;
+    }
+
+    public int getGratuityEligibleCount() {
+        return gratuityEligibleCount;
+    }
+
+    // Row numbers into the Dataset this snapshot was computed from, in dataset order. Streamed
+    // snapshots only carry the count, because their rows were written out as they were seen.
+    public int gratuityEligibleRow(int i) {
+        return gratuityEligibleRows[i];
+    }
+}
@@ -0,0 +1,245 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Line-oriented append log that keeps its file open through a FileChannel. Records handed in
+// by any number of threads are queued and written by a single writer thread, which drains
+// everything pending into one write (a group commit) and then syncs according to the
+// configured durability. Each future completes with the byte offset the record starts at.
+public class AppendLog implements Closeable {
+    public enum Durability {
+        // Leave flushing to the OS page cache, as the old per-record FileWriter did.
+        NONE,
+        // fsync after every group commit before completing its futures.
+        FSYNC_PER_BATCH,
+        // fsync at most once per interval; futures complete as soon as data is written.
+        FSYNC_INTERVAL
+    }
+
+    private static final int MAX_BATCH = 4096;
+    private static final long IDLE_POLL_MILLIS = 50;
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long fsyncIntervalMillis;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final LatencyHistogram appendLatency;
+    private final Thread writer;
+    private volatile boolean closed;
+    private boolean dirty;
+    private long lastSync = System.nanoTime();
+
+    public AppendLog(String file, Durability durability, long fsyncIntervalMillis) throws IOException {
+        this.path = Paths.get(file);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.durability = durability;
+        this.fsyncIntervalMillis = Math.max(1, fsyncIntervalMillis);
+        this.appendLatency = Metrics.histogram("append." + path.getFileName());
+        this.writer = new Thread(this::runWriter, "append-log-" + path.getFileName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public CompletableFuture<Long> append(String record) {
+        return enqueue(Collections.singletonList(record));
+    }
+
+    // Bulk ingest: all records go out in one write. Completes with the offset of the first one.
+    public CompletableFuture<Long> appendAll(List<String> records) {
+        return enqueue(records);
+    }
+
+    // The closed check and the add happen under the queue's lock, as does close() setting the
+    // flag, so nothing can be queued once the writer may have seen the queue empty and stopped.
+    private CompletableFuture<Long> enqueue(List<String> records) {
+        Pending pending = new Pending(encode(records), records.size());
+        synchronized (queue) {
+            if (!closed) {
+                queue.add(pending);
+                return pending.future;
+            }
+        }
+        pending.future.completeExceptionally(new IOException(path + " is closed"));
+        return pending.future;
+    }
+
+    private static byte[] encode(List<String> records) {
+        List<byte[]> encoded = new ArrayList<>(records.size());
+        int length = 0;
+        for (String record : records) {
+            byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            length += bytes.length + NEWLINE.length;
+        }
+        byte[] payload = new byte[length];
+        int pos = 0;
+        for (byte[] bytes : encoded) {
+            System.arraycopy(bytes, 0, payload, pos, bytes.length);
+            pos += bytes.length;
+            System.arraycopy(NEWLINE, 0, payload, pos, NEWLINE.length);
+            pos += NEWLINE.length;
+        }
+        return payload;
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            Pending first;
+            try {
+                first = queue.poll(Math.min(fsyncIntervalMillis, IDLE_POLL_MILLIS), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    break;
+                }
+                syncIfDue();
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    // Any failure fails this batch's futures only; the writer carries on with the next one, so
+    // callers waiting on later records are never left hanging.
+    private void commit(List<Pending> batch) {
+        try {
+            Metrics.LogCommitEvent event = new Metrics.LogCommitEvent();
+            event.begin();
+            long total = 0;
+            int records = 0;
+            for (Pending pending : batch) {
+                total += pending.payload.length;
+                records += pending.records;
+            }
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IOException("batch of " + total + " bytes is too large to write at once");
+            }
+            int length = (int) total;
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            for (Pending pending : batch) {
+                buffer.put(pending.payload);
+            }
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            long start = channel.position() - length;
+            dirty = true;
+            if (durability == Durability.FSYNC_PER_BATCH) {
+                sync();
+            } else if (durability == Durability.FSYNC_INTERVAL) {
+                syncIfDue();
+            }
+            boolean synced = !dirty;
+            // Latency as the caller sees it: queueing, the write and any sync it waited for.
+            long now = System.nanoTime();
+            for (Pending pending : batch) {
+                appendLatency.record(now - pending.enqueued);
+                pending.future.complete(start);
+                start += pending.payload.length;
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.log = path.toString();
+                event.records = records;
+                event.bytes = length;
+                event.synced = synced;
+                event.commit();
+            }
+        } catch (IOException e) {
+            fail(batch, e);
+        } catch (Throwable t) {
+            fail(batch, new IOException("Failed to write " + path + ": " + t, t));
+        }
+    }
+
+    private static void fail(List<Pending> batch, IOException e) {
+        for (Pending pending : batch) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private void syncIfDue() {
+        if (durability == Durability.FSYNC_INTERVAL && dirty
+                && System.nanoTime() - lastSync >= TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis)) {
+            try {
+                sync();
+            } catch (IOException e) {
+                System.err.println("[WARN] Failed to sync " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        dirty = false;
+        lastSync = System.nanoTime();
+    }
+
+    // Waits for everything queued so far to be written, then syncs unless durability is NONE.
+    @Override
+    public void close() throws IOException {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending late;
+        while ((late = queue.poll()) != null) {
+            late.future.completeExceptionally(new IOException(path + " is closed"));
+        }
+        try {
+            if (dirty && durability != Durability.NONE) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static final class Pending {
+        final byte[] payload;
+        final int records;
+        final long enqueued = System.nanoTime();
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        Pending(byte[] payload, int records) {
+            this.payload = payload;
+            this.records = records;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Small open-addressing intern table for low-cardinality columns (gender, department, role,
+// status). A field that has been seen before is resolved by comparing bytes in place, so
+// repeated values never allocate a new String.
+final class ByteStringCache {
+    private byte[][] keys = new byte[64][];
+    private String[] values = new String[64];
+    private int[] hashes = new int[64];
+    private int size;
+
+    String intern(CsvFields fields, int field) {
+        int hash = fields.hash(field);
+        int mask = keys.length - 1;
+        int slot = mix(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && fields.equalsBytes(field, keys[slot])) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int len = fields.length(field);
+        byte[] key = Arrays.copyOf(fields.copy(field), len);
+        String value = new String(key, StandardCharsets.UTF_8);
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return value;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        String[] oldValues = values;
+        int[] oldHashes = hashes;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = mix(oldHashes[i]) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+}
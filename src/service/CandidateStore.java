@@ -0,0 +1,359 @@
+package service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import model.Candidate;
+
+// In-memory view of candidates.csv. The file is read once at startup, memory-mapped and parsed
+// in parallel chunks the same way as the employee master, into compact per-candidate columns.
+// Cycle-time histograms per role and per offer month are kept up to date as candidates are
+// added, so reports read the histograms and never go back to the file.
+public class CandidateStore {
+    public static final int CYCLE_TIME_LIMIT_DAYS = 45;
+
+    static final int FIELD_COUNT = 6;
+    // Offer day of a candidate still waiting for an offer.
+    static final int PENDING = Integer.MIN_VALUE;
+
+    private static final byte[] PENDING_BYTES = "PENDING".getBytes(StandardCharsets.US_ASCII);
+
+    // Cycle-time summary for one role, one month or the whole store.
+    public static final class CycleTimes {
+        private final String label;
+        private final int offers;
+        private final int pending;
+        private final int median;
+        private final int p90;
+        private final int max;
+        private final int overLimit;
+
+        CycleTimes(String label, CycleTimeHistogram histogram, int pending) {
+            this.label = label;
+            this.offers = histogram.getCount();
+            this.pending = pending;
+            this.median = histogram.percentile(0.5);
+            this.p90 = histogram.percentile(0.9);
+            this.max = histogram.getMax();
+            this.overLimit = histogram.countOver(CYCLE_TIME_LIMIT_DAYS);
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getOffers() {
+            return offers;
+        }
+
+        public int getPending() {
+            return pending;
+        }
+
+        // Days, or -1 when no offer has been made yet.
+        public int getMedianDays() {
+            return median;
+        }
+
+        public int getP90Days() {
+            return p90;
+        }
+
+        public int getMaxDays() {
+            return max;
+        }
+
+        public int getOverLimit() {
+            return overLimit;
+        }
+
+        public double getOverLimitRate() {
+            return (offers > 0) ? (overLimit * 100.0) / offers : 0.0;
+        }
+
+        // More than one offer in ten took longer than the limit.
+        public boolean breachesLimit() {
+            return p90 > CYCLE_TIME_LIMIT_DAYS;
+        }
+    }
+
+    private final List<String> ids = new ArrayList<>();
+    private final StringDictionary roles = new StringDictionary();
+    private final StringDictionary statuses = new StringDictionary();
+    private final IntArrayList roleCodes = new IntArrayList();
+    private final IntArrayList statusCodes = new IntArrayList();
+    private final IntArrayList applicationDays = new IntArrayList();
+    private final IntArrayList offerDays = new IntArrayList();
+
+    private final CycleTimeHistogram overall = new CycleTimeHistogram();
+    private final List<CycleTimeHistogram> byRole = new ArrayList<>();
+    private final IntArrayList pendingByRole = new IntArrayList();
+    private final Map<Integer, CycleTimeHistogram> byMonth = new TreeMap<>();
+    private int pending;
+
+    // Reads filePath into a new store; a missing file gives an empty one. Skipped rows go to
+    // <filePath>.quarantine.
+    public static CandidateStore load(String filePath) {
+        return load(filePath, ForkJoinPool.commonPool());
+    }
+
+    public static CandidateStore load(String filePath, ForkJoinPool pool) {
+        CandidateStore store = new CandidateStore();
+        try (Metrics.Timer timer = Metrics.time("load.candidates");
+             Quarantine quarantine = Quarantine.forFile(filePath);
+             FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = MappedCsv.chunkBoundaries(channel, 0, size, pool.getParallelism());
+
+            List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                tasks.add(pool.submit(() -> parseChunk(channel, from, to)));
+            }
+
+            int linesBefore = 0;
+            long allocated = 0;
+            for (ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = MappedCsv.join(task, tasks);
+                allocated += chunk.allocated;
+                for (int i = 0; i < chunk.ids.size(); i++) {
+                    store.addRow(chunk.ids.get(i), chunk.roles.get(i), chunk.statuses.get(i),
+                            chunk.applicationDays.get(i), chunk.offerDays.get(i));
+                }
+                for (int i = 0; i < chunk.rejectedLines.size(); i++) {
+                    int line = linesBefore + chunk.rejectedLines.get(i);
+                    // candidates.csv has no header, but ATS exports copied over it often do.
+                    if (line == 1 && chunk.rejectedCauses.get(i) == RowError.BAD_DATE) {
+                        continue;
+                    }
+                    quarantine.reject(line, chunk.rejectedCauses.get(i), chunk.rejectedDetails.get(i),
+                            chunk.rejectedRecords.get(i));
+                }
+                linesBefore += chunk.lines;
+            }
+            timer.rows(store.size()).failures(quarantine.getTotal()).allocatedElsewhere(allocated);
+        } catch (NoSuchFileException e) {
+            // No candidate has been logged yet.
+        } catch (IOException e) {
+            System.err.println("[WARN] Cannot read " + filePath + ": " + e.getMessage() + ". Cycle-time reports start empty.");
+        }
+        return store;
+    }
+
+    // Records a candidate that has just been appended to the log.
+    public synchronized void add(Candidate candidate) {
+        int applicationDay = (int) candidate.getApplicationDate().toEpochDay();
+        int offerDay = (candidate.getOfferDate() != null) ? (int) candidate.getOfferDate().toEpochDay() : PENDING;
+        addRow(candidate.getCandidateId(), candidate.getRoleApplied(), candidate.getStatus(), applicationDay, offerDay);
+    }
+
+    private synchronized void addRow(String id, String role, String status, int applicationDay, int offerDay) {
+        int roleCode = roles.encode(role);
+        ids.add(id);
+        roleCodes.add(roleCode);
+        statusCodes.add(statuses.encode(status));
+        applicationDays.add(applicationDay);
+        offerDays.add(offerDay);
+
+        if (roleCode == byRole.size()) {
+            byRole.add(new CycleTimeHistogram());
+            pendingByRole.add(0);
+        }
+        if (offerDay == PENDING) {
+            pending++;
+            pendingByRole.set(roleCode, pendingByRole.get(roleCode) + 1);
+            return;
+        }
+        // A negative cycle time is a data-entry error that load and logging both reject; if one
+        // slips through it is kept as a candidate but left out of the cycle-time figures.
+        int days = offerDay - applicationDay;
+        if (days < 0) {
+            return;
+        }
+        overall.add(days);
+        byRole.get(roleCode).add(days);
+        byMonth.computeIfAbsent(yearMonth(offerDay), m -> new CycleTimeHistogram()).add(days);
+    }
+
+    // The columns a join reads, copied under the lock so the join itself does not hold it.
+    static final class Columns {
+        final String[] ids;
+        final int[] roleCodes;
+        final int[] statusCodes;
+        final int[] offerDays;
+        final String[] roleNames;
+        final String[] statusNames;
+
+        Columns(String[] ids, int[] roleCodes, int[] statusCodes, int[] offerDays, String[] roleNames, String[] statusNames) {
+            this.ids = ids;
+            this.roleCodes = roleCodes;
+            this.statusCodes = statusCodes;
+            this.offerDays = offerDays;
+            this.roleNames = roleNames;
+            this.statusNames = statusNames;
+        }
+
+        int size() {
+            return ids.length;
+        }
+    }
+
+    synchronized Columns columns() {
+        String[] roleNames = new String[roles.size()];
+        for (int code = 0; code < roleNames.length; code++) {
+            roleNames[code] = roles.decode(code);
+        }
+        String[] statusNames = new String[statuses.size()];
+        for (int code = 0; code < statusNames.length; code++) {
+            statusNames[code] = statuses.decode(code);
+        }
+        return new Columns(ids.toArray(new String[0]), roleCodes.toArray(), statusCodes.toArray(), offerDays.toArray(),
+                roleNames, statusNames);
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    public synchronized CycleTimes overall() {
+        return new CycleTimes("All roles", overall, pending);
+    }
+
+    // One entry per role, sorted by role name.
+    public synchronized List<CycleTimes> byRole() {
+        List<CycleTimes> result = new ArrayList<>(byRole.size());
+        for (int code = 0; code < byRole.size(); code++) {
+            String role = roles.decode(code);
+            result.add(new CycleTimes((role != null && !role.trim().isEmpty()) ? role : "Unassigned",
+                    byRole.get(code), pendingByRole.get(code)));
+        }
+        result.sort((a, b) -> a.getLabel().compareToIgnoreCase(b.getLabel()));
+        return result;
+    }
+
+    // The most recent months with at least one offer, oldest first, labelled yyyy-MM.
+    public synchronized List<CycleTimes> byMonth(int months) {
+        List<CycleTimes> result = new ArrayList<>();
+        for (Map.Entry<Integer, CycleTimeHistogram> entry : byMonth.entrySet()) {
+            int month = entry.getKey();
+            result.add(new CycleTimes(String.format("%04d-%02d", Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1),
+                    entry.getValue(), 0));
+        }
+        return result.subList(Math.max(0, result.size() - months), result.size());
+    }
+
+    // year * 12 + (month - 1) of an epoch day, with the same civil-calendar arithmetic as
+    // LocalDate.ofEpochDay but no allocation.
+    static int yearMonth(long epochDay) {
+        long zeroDay = epochDay + 719_468;
+        long era = Math.floorDiv(zeroDay, 146_097);
+        long dayOfEra = zeroDay - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long month = (shiftedMonth < 10) ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + ((month <= 2) ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    private static Chunk parseChunk(FileChannel channel, long from, long to) throws IOException {
+        Chunk chunk = new Chunk();
+        if (to <= from) {
+            return chunk;
+        }
+        long allocatedBefore = Metrics.threadAllocatedBytes();
+        MappedByteBuffer buf = MappedCsv.map(channel, from, to);
+        int limit = buf.limit();
+        CsvFields fields = new CsvFields();
+        ByteStringCache dictionary = new ByteStringCache();
+
+        int pos = 0;
+        while (pos < limit) {
+            int newline = MappedCsv.lineEnd(buf, pos, limit);
+            int end = MappedCsv.trimCarriageReturn(buf, pos, newline);
+            chunk.lines++;
+            parseLine(buf, pos, end, fields, dictionary, chunk);
+            pos = newline + 1;
+        }
+        if (allocatedBefore >= 0) {
+            chunk.allocated = Metrics.threadAllocatedBytes() - allocatedBefore;
+        }
+        return chunk;
+    }
+
+    // Accepts exactly what Candidate.fromCSV accepts.
+    private static void parseLine(MappedByteBuffer buf, int start, int end, CsvFields fields,
+                                  ByteStringCache dictionary, Chunk chunk) {
+        if (CsvFields.isBlank(buf, start, end)) {
+            chunk.reject(RowError.BLANK_LINE, null, buf, start, end);
+            return;
+        }
+
+        int count = fields.split(buf, start, end);
+        if (count < FIELD_COUNT) {
+            chunk.reject(RowError.MISSING_FIELDS, count + " of " + FIELD_COUNT + " fields", buf, start, end);
+            return;
+        }
+
+        try {
+            int applicationDay = epochDay(fields, 3);
+            int offerDay = fields.equalsBytes(4, PENDING_BYTES) ? PENDING : epochDay(fields, 4);
+            if (offerDay != PENDING && offerDay < applicationDay) {
+                chunk.reject(RowError.OFFER_BEFORE_APPLICATION, null, buf, start, end);
+                return;
+            }
+            chunk.ids.add(fields.string(0));
+            chunk.roles.add(dictionary.intern(fields, 2));
+            chunk.statuses.add(dictionary.intern(fields, 5));
+            chunk.applicationDays.add(applicationDay);
+            chunk.offerDays.add(offerDay);
+        } catch (RuntimeException e) {
+            chunk.reject(RowError.classify(e), e.getMessage(), buf, start, end);
+        }
+    }
+
+    private static int epochDay(CsvFields fields, int field) {
+        long epochDay = fields.epochDay(field);
+        return (int) ((epochDay != Long.MIN_VALUE) ? epochDay : fields.date(field).toEpochDay());
+    }
+
+    private static final class Chunk {
+        final List<String> ids = new ArrayList<>();
+        final List<String> roles = new ArrayList<>();
+        final List<String> statuses = new ArrayList<>();
+        final IntArrayList applicationDays = new IntArrayList();
+        final IntArrayList offerDays = new IntArrayList();
+        final List<Integer> rejectedLines = new ArrayList<>();
+        final List<RowError> rejectedCauses = new ArrayList<>();
+        final List<String> rejectedDetails = new ArrayList<>();
+        final List<String> rejectedRecords = new ArrayList<>();
+        int lines;
+        long allocated;
+
+        void reject(RowError cause, String detail, MappedByteBuffer buf, int start, int end) {
+            byte[] record = new byte[end - start];
+            for (int i = 0; i < record.length; i++) {
+                record[i] = buf.get(start + i);
+            }
+            rejectedLines.add(lines);
+            rejectedCauses.add(cause);
+            rejectedDetails.add(detail);
+            rejectedRecords.add(new String(record, StandardCharsets.UTF_8));
+        }
+    }
+}
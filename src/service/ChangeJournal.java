@@ -0,0 +1,403 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import model.Employee;
+
+// Append-only journal of edits to the employee master, kept next to it as <master>.journal.
+// Each edit is one line: ADD or UPDATE followed by the whole employee record, or TERMINATE
+// followed by the ID and the new status. Every record sets a value rather than changing the
+// previous one, so replaying a record that the master already reflects does no harm; that is
+// what makes an interrupted checkpoint safe to recover from.
+//
+// A checkpoint moves the journal aside to <master>.journal.compacting (new edits start a fresh
+// journal), writes a new master with those records folded in, copying untouched lines as they
+// are, swaps it in with an atomic rename and only then deletes the compacting file. Loading the
+// master replays the compacting file, if a checkpoint was cut short, and then the journal.
+public final class ChangeJournal implements Closeable {
+    public static final String SUFFIX = ".journal";
+    static final String COMPACTING_SUFFIX = ".journal.compacting";
+    static final String MASTER_HEADER = "ID,FullName,Gender,Department,Role,JoiningDate,BasicSalary,Status";
+
+    private static final String ADD = "ADD";
+    private static final String UPDATE = "UPDATE";
+    private static final String TERMINATE = "TERMINATE";
+    private static final int STATUS_FIELD = 7;
+
+    private final String masterPath;
+    private final Path journalPath;
+    private final Path compactingPath;
+    private final AppendLog.Durability durability;
+    private final long syncIntervalMillis;
+    private AppendLog log;
+    // Records written since the master was last rewritten, including any being folded in now.
+    private int pendingRecords;
+
+    public ChangeJournal(String masterPath, AppendLog.Durability durability, long syncIntervalMillis) {
+        this.masterPath = masterPath;
+        this.journalPath = Paths.get(masterPath + SUFFIX);
+        this.compactingPath = Paths.get(masterPath + COMPACTING_SUFFIX);
+        this.durability = durability;
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    public String getMasterPath() {
+        return masterPath;
+    }
+
+    public Path getPath() {
+        return journalPath;
+    }
+
+    public synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    static String addRecord(Employee employee) {
+        return ADD + "," + employee.toCSVString();
+    }
+
+    static String updateRecord(Employee employee) {
+        return UPDATE + "," + employee.toCSVString();
+    }
+
+    static String terminateRecord(String id, String status) {
+        return TERMINATE + "," + id + "," + status;
+    }
+
+    static Employee withStatus(Employee employee, String status) {
+        return new Employee(employee.getId(), employee.getFullName(), employee.getGender(), employee.getDepartment(),
+                employee.getRole(), employee.getJoiningDate(), employee.getBasicSalary(), status);
+    }
+
+    // Writes one record and waits until the log has it (and has synced it, if so configured).
+    synchronized void append(String record) throws IOException {
+        if (log == null) {
+            repairTail(journalPath);
+            log = new AppendLog(journalPath.toString(), durability, syncIntervalMillis);
+        }
+        try {
+            log.append(record).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+        pendingRecords++;
+    }
+
+    // Applies the compacting file and the journal to a freshly read master.
+    synchronized Dataset replay(Dataset master) {
+        if (log == null) {
+            try {
+                repairTail(journalPath);
+            } catch (IOException e) {
+                System.err.println("[WARN] Cannot repair " + journalPath + ": " + e.getMessage());
+            }
+        }
+        Map<String, Change> changes = new LinkedHashMap<>();
+        int records;
+        try (Metrics.Timer timer = Metrics.time("journal.replay");
+             Quarantine quarantine = Quarantine.consoleOnly(journalPath.toString())) {
+            records = fold(compactingPath, changes, quarantine) + fold(journalPath, changes, quarantine);
+            timer.rows(records);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Cannot read " + journalPath + ": " + e.getMessage() + ". Edits since the last checkpoint are not loaded.");
+            return master;
+        }
+        pendingRecords = records;
+        if (changes.isEmpty()) {
+            return master;
+        }
+
+        EmployeeIndex index = master.index();
+        List<Employee> updated = new ArrayList<>(changes.size());
+        for (Change change : changes.values()) {
+            Employee employee = change.record;
+            if (employee == null) {
+                int row = index.findRow(change.id);
+                if (row < 0) {
+                    System.err.println("[WARN] Journal sets the status of unknown employee ID '" + change.id + "'. Ignored.");
+                    continue;
+                }
+                employee = withStatus(master.employees().get(row), change.status);
+            }
+            updated.add(employee);
+        }
+        System.out.println("Replayed " + records + " journal records (" + updated.size() + " employees) from " + journalPath + ".");
+        return master.withEmployees(updated);
+    }
+
+    // The net edits since the last checkpoint, for reading the master one record at a time
+    // without loading it. Nothing on disk is changed; a cut-off last line is left for the next
+    // append to drop.
+    synchronized Pending pending() {
+        Map<String, Change> changes = new LinkedHashMap<>();
+        int records;
+        try (Quarantine quarantine = Quarantine.consoleOnly(journalPath.toString())) {
+            records = fold(compactingPath, changes, quarantine) + fold(journalPath, changes, quarantine);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Cannot read " + journalPath + ": " + e.getMessage() + ". Edits since the last checkpoint are not included.");
+            return new Pending(new LinkedHashMap<>());
+        }
+        if (records > 0) {
+            System.out.println("Applying " + records + " journal records (" + changes.size() + " employees) from " + journalPath + ".");
+        }
+        return new Pending(changes);
+    }
+
+    // Applies pending edits to a master read in file order, the way replay() does to a loaded
+    // one: apply() each master record, then add the employees that were not in it.
+    static final class Pending {
+        private final Map<String, Change> changes;
+
+        private Pending(Map<String, Change> changes) {
+            this.changes = changes;
+        }
+
+        Employee apply(Employee employee) {
+            Change change = changes.remove(employee.getId());
+            if (change == null) {
+                return employee;
+            }
+            return change.record != null ? change.record : withStatus(employee, change.status);
+        }
+
+        List<Employee> added() {
+            List<Employee> added = new ArrayList<>();
+            for (Change change : changes.values()) {
+                if (change.record != null) {
+                    added.add(change.record);
+                } else {
+                    System.err.println("[WARN] Journal sets the status of unknown employee ID '" + change.id + "'. Ignored.");
+                }
+            }
+            changes.clear();
+            return added;
+        }
+    }
+
+    // Moves the records written so far aside for a checkpoint; later appends start a new
+    // journal. Returns false when there is nothing to fold in.
+    synchronized boolean rotate() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+        repairTail(journalPath);
+        boolean journalled = Files.exists(journalPath) && Files.size(journalPath) > 0;
+        if (!journalled) {
+            return Files.exists(compactingPath);
+        }
+        if (Files.exists(compactingPath)) {
+            // An earlier checkpoint did not finish; its records stay ahead of the newer ones.
+            repairTail(compactingPath);
+            Files.write(compactingPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+            Files.delete(journalPath);
+        } else {
+            move(journalPath, compactingPath);
+        }
+        return true;
+    }
+
+    // Rewrites the master with the compacting records folded in and returns how many there
+    // were. Must follow rotate(), and nothing else may read or replace the master meanwhile.
+    // Appends to the new journal carry on while this runs.
+    int compact() throws IOException {
+        Map<String, Change> changes = new LinkedHashMap<>();
+        int records;
+        try (Quarantine quarantine = Quarantine.consoleOnly(compactingPath.toString())) {
+            records = fold(compactingPath, changes, quarantine);
+        }
+
+        Path master = Paths.get(masterPath);
+        Path temp = Paths.get(masterPath + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            try (BufferedReader in = Files.newBufferedReader(master, StandardCharsets.UTF_8)) {
+                String header = in.readLine();
+                out.write(header != null ? header : MASTER_HEADER);
+                out.newLine();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int comma = line.indexOf(',');
+                    Change change = changes.remove(comma < 0 ? line : line.substring(0, comma));
+                    if (change == null) {
+                        out.write(line);
+                    } else if (change.record != null) {
+                        out.write(change.record.toCSVString());
+                    } else {
+                        out.write(replaceStatus(line, change.status));
+                    }
+                    out.newLine();
+                }
+            } catch (NoSuchFileException e) {
+                out.write(MASTER_HEADER);
+                out.newLine();
+            }
+            for (Change change : changes.values()) {
+                if (change.record != null) {
+                    out.write(change.record.toCSVString());
+                    out.newLine();
+                } else {
+                    System.err.println("[WARN] Journal sets the status of unknown employee ID '" + change.id + "'. Dropped.");
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        move(temp, master);
+        Files.deleteIfExists(compactingPath);
+        synchronized (this) {
+            pendingRecords = Math.max(0, pendingRecords - records);
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    // Net effect of the records for one employee: a whole record (ADD or UPDATE, with any later
+    // TERMINATE applied to it) or only a new status for an employee in the master.
+    private static final class Change {
+        final String id;
+        final Employee record;
+        final String status;
+
+        Change(String id, Employee record, String status) {
+            this.id = id;
+            this.record = record;
+            this.status = status;
+        }
+    }
+
+    private static int fold(Path file, Map<String, Change> changes, Quarantine quarantine) throws IOException {
+        String text;
+        try {
+            text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        int records = 0;
+        int lineNumber = 0;
+        int start = 0;
+        int end;
+        // A last line without a newline was cut off mid-write and is not counted.
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            lineNumber++;
+            String line = text.substring(start, (end > start && text.charAt(end - 1) == '\r') ? end - 1 : end);
+            start = end + 1;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                if (apply(line, changes)) {
+                    records++;
+                } else {
+                    quarantine.reject(lineNumber, RowError.OTHER, "unknown journal operation", line);
+                }
+            } catch (RuntimeException e) {
+                quarantine.reject(lineNumber, RowError.classify(e), e.getMessage(), line);
+            }
+        }
+        return records;
+    }
+
+    private static boolean apply(String line, Map<String, Change> changes) {
+        int comma = line.indexOf(',');
+        String op = (comma < 0) ? line : line.substring(0, comma);
+        if (op.equals(ADD) || op.equals(UPDATE)) {
+            Employee employee = Employee.fromCSV(line.substring(comma + 1));
+            changes.remove(employee.getId());
+            changes.put(employee.getId(), new Change(employee.getId(), employee, null));
+            return true;
+        }
+        if (op.equals(TERMINATE)) {
+            String[] parts = line.split(",", -1);
+            String id = parts[1];
+            String status = parts[2];
+            Change previous = changes.remove(id);
+            changes.put(id, (previous != null && previous.record != null)
+                    ? new Change(id, withStatus(previous.record, status), null)
+                    : new Change(id, null, status));
+            return true;
+        }
+        return false;
+    }
+
+    private static String replaceStatus(String line, String status) {
+        String[] parts = line.split(",", -1);
+        if (parts.length <= STATUS_FIELD) {
+            return line;
+        }
+        parts[STATUS_FIELD] = status;
+        return String.join(",", parts);
+    }
+
+    // Cuts off a partial last record left by a crash, so the next append starts on a new line.
+    private static void repairTail(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long keep = size;
+            ByteBuffer block = ByteBuffer.allocate(4096);
+            search:
+            while (keep > 0) {
+                long from = Math.max(0, keep - block.capacity());
+                block.clear().limit((int) (keep - from));
+                while (block.hasRemaining()) {
+                    if (channel.read(block, from + block.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int i = block.position() - 1; i >= 0; i--) {
+                    if (block.get(i) == '\n') {
+                        keep = from + i + 1;
+                        break search;
+                    }
+                }
+                keep = from;
+            }
+            if (keep < size) {
+                System.err.println("[WARN] Dropping an incomplete last record (" + (size - keep) + " bytes) from " + file + ".");
+                channel.truncate(keep);
+            }
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import model.Employee;
+
+// One set of compensation rules for a what-if run. Each employee gets the increment for their
+// role if the scenario has one, else the one for their department, else the default increment;
+// a promotion bump compounds on top of that. Increments and bumps are percentages.
+//
+// A scenario file has one rule per line, grouped into scenarios by the first column:
+//
+//   Scenario,Rule,Target,Value
+//   Merit 2025,default,,6
+//   Merit 2025,department,Engineering,9
+//   Merit 2025,role,Team Lead,12
+//   Merit 2025,promotion,E1042,15
+//   Merit 2025,benefits,,1.25
+public final class CompensationScenario {
+    private final String name;
+    private double defaultIncrement;
+    private final Map<String, Double> departmentIncrements = new HashMap<>();
+    private final Map<String, Double> roleIncrements = new HashMap<>();
+    private final Map<String, Double> promotions = new LinkedHashMap<>();
+    private double benefitsMultiplier = Employee.DEFAULT_BENEFITS_MULTIPLIER;
+
+    public CompensationScenario(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CompensationScenario defaultIncrement(double percent) {
+        this.defaultIncrement = percent;
+        return this;
+    }
+
+    public CompensationScenario departmentIncrement(String department, double percent) {
+        departmentIncrements.put(departmentKey(department), percent);
+        return this;
+    }
+
+    public CompensationScenario roleIncrement(String role, double percent) {
+        roleIncrements.put(roleKey(role), percent);
+        return this;
+    }
+
+    public CompensationScenario promotion(String employeeId, double bumpPercent) {
+        promotions.put(employeeId.trim(), bumpPercent);
+        return this;
+    }
+
+    public CompensationScenario benefitsMultiplier(double multiplier) {
+        this.benefitsMultiplier = multiplier;
+        return this;
+    }
+
+    public double getBenefitsMultiplier() {
+        return benefitsMultiplier;
+    }
+
+    // Employee ID to bump percentage, in the order the rules were given.
+    public Map<String, Double> getPromotions() {
+        return Collections.unmodifiableMap(promotions);
+    }
+
+    // Increment in percent for a department and role, both already normalised by
+    // departmentKey and roleKey.
+    double increment(String departmentKey, String roleKey) {
+        Double percent = roleIncrements.get(roleKey);
+        if (percent == null) {
+            percent = departmentIncrements.get(departmentKey);
+        }
+        return (percent != null) ? percent : defaultIncrement;
+    }
+
+    // Same grouping as the pay cube: trimmed, blank as "Unassigned", ignoring case.
+    static String departmentKey(String department) {
+        return EmployeeCodes.departmentKey(department).toLowerCase();
+    }
+
+    static String roleKey(String role) {
+        return GroupByEngine.valueKey(role).toLowerCase();
+    }
+
+    // Reads every scenario in the file, in order of first appearance. Bad lines are skipped
+    // with a warning; a header line is recognised and ignored.
+    public static List<CompensationScenario> readAll(String path) throws IOException {
+        Map<String, CompensationScenario> scenarios = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path));
+             Quarantine quarantine = Quarantine.consoleOnly(path)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split(",", -1);
+                if (lineNumber == 1 && parts[0].trim().equalsIgnoreCase("Scenario")) {
+                    continue;
+                }
+                try {
+                    if (parts.length < 4 || parts[0].trim().isEmpty()) {
+                        quarantine.reject(lineNumber, RowError.MISSING_FIELDS, null, line);
+                        continue;
+                    }
+                    String name = parts[0].trim();
+                    CompensationScenario scenario = scenarios.get(name);
+                    if (scenario == null) {
+                        scenario = new CompensationScenario(name);
+                    }
+                    if (!scenario.apply(parts[1].trim(), parts[2].trim(), Double.parseDouble(parts[3].trim()))) {
+                        quarantine.reject(lineNumber, RowError.OTHER, "unknown rule '" + parts[1].trim() + "'", line);
+                        continue;
+                    }
+                    scenarios.put(name, scenario);
+                } catch (RuntimeException e) {
+                    quarantine.reject(lineNumber, RowError.classify(e), e.getMessage(), line);
+                }
+            }
+        }
+        return new ArrayList<>(scenarios.values());
+    }
+
+    private boolean apply(String rule, String target, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new NumberFormatException("not a finite number");
+        }
+        switch (rule.toLowerCase()) {
+            case "default":
+                defaultIncrement(value);
+                return true;
+            case "department":
+                departmentIncrement(target, value);
+                return true;
+            case "role":
+                roleIncrement(target, value);
+                return true;
+            case "promotion":
+                if (target.isEmpty()) {
+                    throw new IllegalArgumentException("promotion needs an employee ID");
+                }
+                promotion(target, value);
+                return true;
+            case "benefits":
+                if (value <= 0) {
+                    throw new IllegalArgumentException("benefits multiplier must be positive");
+                }
+                benefitsMultiplier(value);
+                return true;
+            default:
+                return false;
+        }
+    }
+}
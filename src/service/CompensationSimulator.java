@@ -0,0 +1,270 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import model.Employee;
+
+// Evaluates a batch of CompensationScenarios against the Active and Probation staff of a
+// Dataset. Increments depend only on department and role, so a scenario never needs the
+// individual rows: it scales the salary sums of the pay cube cells (built once per dataset
+// version by a partitioned parallel scan, see GroupByEngine) and adds a correction for each
+// promoted employee. The scenarios themselves are split into chunks evaluated on a fork-join
+// pool and joined in input order.
+public final class CompensationSimulator {
+    private static final int MIN_TASK_SCENARIOS = 8;
+
+    private CompensationSimulator() {
+    }
+
+    public static final class Result {
+        private final String name;
+        private final double benefitsMultiplier;
+        private final double[] departmentCtc;
+        private final double annualCtc;
+        private final double parityRatio;
+        private final int promotions;
+        private final int skippedPromotions;
+
+        Result(String name, double benefitsMultiplier, double[] departmentCtc, double parityRatio,
+               int promotions, int skippedPromotions) {
+            this.name = name;
+            this.benefitsMultiplier = benefitsMultiplier;
+            this.departmentCtc = departmentCtc;
+            double total = 0;
+            for (double ctc : departmentCtc) {
+                total += ctc;
+            }
+            this.annualCtc = total;
+            this.parityRatio = parityRatio;
+            this.promotions = promotions;
+            this.skippedPromotions = skippedPromotions;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getBenefitsMultiplier() {
+            return benefitsMultiplier;
+        }
+
+        public double getAnnualCtc() {
+            return annualCtc;
+        }
+
+        // Indexed like Batch.getDepartments().
+        public double getDepartmentCtc(int department) {
+            return departmentCtc[department];
+        }
+
+        // Female to male average basic salary after the scenario, as in the parity report.
+        public double getParityRatio() {
+            return parityRatio;
+        }
+
+        public int getPromotions() {
+            return promotions;
+        }
+
+        // Promotion rules naming an ID that is not on the Active or Probation staff with a salary.
+        public int getSkippedPromotions() {
+            return skippedPromotions;
+        }
+    }
+
+    // The current pay of the same staff, and one Result per scenario in input order.
+    public static final class Batch {
+        private final List<String> departments;
+        private final int[] departmentStaff;
+        private final int staff;
+        private final Result current;
+        private final List<Result> results;
+
+        Batch(List<String> departments, int[] departmentStaff, Result current, List<Result> results) {
+            this.departments = Collections.unmodifiableList(departments);
+            this.departmentStaff = departmentStaff;
+            int total = 0;
+            for (int count : departmentStaff) {
+                total += count;
+            }
+            this.staff = total;
+            this.current = current;
+            this.results = Collections.unmodifiableList(results);
+        }
+
+        public List<String> getDepartments() {
+            return departments;
+        }
+
+        public int getDepartmentStaff(int department) {
+            return departmentStaff[department];
+        }
+
+        // Active and Probation employees with a usable salary.
+        public int getStaff() {
+            return staff;
+        }
+
+        // Today's salaries at the default benefits multiplier.
+        public Result getCurrent() {
+            return current;
+        }
+
+        public List<Result> getResults() {
+            return results;
+        }
+
+        public double getDelta(Result result) {
+            return result.getAnnualCtc() - current.getAnnualCtc();
+        }
+    }
+
+    public static Batch simulate(Dataset dataset, List<CompensationScenario> scenarios) {
+        return simulate(dataset, scenarios, ForkJoinPool.commonPool());
+    }
+
+    public static Batch simulate(Dataset dataset, List<CompensationScenario> scenarios, ForkJoinPool pool) {
+        try (Metrics.Timer timer = Metrics.time("compensation.simulate")) {
+            timer.rows(scenarios.size());
+            Staff staff = new Staff(dataset);
+            Result current = staff.evaluate(new CompensationScenario("Current")
+                    .benefitsMultiplier(Employee.DEFAULT_BENEFITS_MULTIPLIER));
+
+            int n = scenarios.size();
+            int partitions = Math.max(1, Math.min(pool.getParallelism() * 4, n / MIN_TASK_SCENARIOS));
+            List<ForkJoinTask<Result[]>> tasks = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int from = (int) ((long) n * p / partitions);
+                int to = (int) ((long) n * (p + 1) / partitions);
+                tasks.add(pool.submit(() -> {
+                    Result[] chunk = new Result[to - from];
+                    for (int i = from; i < to; i++) {
+                        chunk[i - from] = staff.evaluate(scenarios.get(i));
+                    }
+                    return chunk;
+                }));
+            }
+            List<Result> results = new ArrayList<>(n);
+            for (ForkJoinTask<Result[]> task : tasks) {
+                Collections.addAll(results, task.join());
+            }
+            return new Batch(staff.departments, staff.departmentStaff, current, results);
+        }
+    }
+
+    // Monthly salary sums of the staff per department x role x gender, read from the pay cube
+    // once and shared read-only by every scenario.
+    private static final class Staff {
+        private final Dataset dataset;
+        private final List<String> departments = new ArrayList<>();
+        private final Map<String, Integer> departmentSlots = new HashMap<>();
+        private final int[] departmentStaff;
+        private int maleCount;
+        private int femaleCount;
+
+        private final int cells;
+        private final int[] cellDepartments;
+        private final String[] cellDepartmentKeys;
+        private final String[] cellRoleKeys;
+        private final byte[] cellGenders;
+        private final double[] cellSalarySums;
+
+        Staff(Dataset dataset) {
+            this.dataset = dataset;
+            List<PayCube.Cell> staffCells = new ArrayList<>();
+            TreeMap<String, String> labels = new TreeMap<>();
+            for (PayCube.Cell cell : dataset.payCube().cells()) {
+                if (onPayroll(cell.statusClass()) && cell.getPaidCount() > 0) {
+                    staffCells.add(cell);
+                    String department = cell.get(PayCube.Dimension.DEPARTMENT);
+                    labels.putIfAbsent(CompensationScenario.departmentKey(department), department);
+                }
+            }
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                departmentSlots.put(label.getKey(), departments.size());
+                departments.add(label.getValue());
+            }
+
+            departmentStaff = new int[departments.size()];
+            cells = staffCells.size();
+            cellDepartments = new int[cells];
+            cellDepartmentKeys = new String[cells];
+            cellRoleKeys = new String[cells];
+            cellGenders = new byte[cells];
+            cellSalarySums = new double[cells];
+            for (int c = 0; c < cells; c++) {
+                PayCube.Cell cell = staffCells.get(c);
+                cellDepartmentKeys[c] = CompensationScenario.departmentKey(cell.get(PayCube.Dimension.DEPARTMENT));
+                cellRoleKeys[c] = CompensationScenario.roleKey(cell.get(PayCube.Dimension.ROLE));
+                cellDepartments[c] = departmentSlots.get(cellDepartmentKeys[c]);
+                cellGenders[c] = cell.genderClass();
+                cellSalarySums[c] = cell.getSalarySum();
+                departmentStaff[cellDepartments[c]] += cell.getPaidCount();
+                if (cell.genderClass() == EmployeeCodes.GENDER_MALE) {
+                    maleCount += cell.getPaidCount();
+                } else if (cell.genderClass() == EmployeeCodes.GENDER_FEMALE) {
+                    femaleCount += cell.getPaidCount();
+                }
+            }
+        }
+
+        Result evaluate(CompensationScenario scenario) {
+            double[] salaries = new double[departments.size()];
+            double maleSum = 0;
+            double femaleSum = 0;
+            for (int c = 0; c < cells; c++) {
+                double raised = cellSalarySums[c] * (1 + scenario.increment(cellDepartmentKeys[c], cellRoleKeys[c]) / 100);
+                salaries[cellDepartments[c]] += raised;
+                if (cellGenders[c] == EmployeeCodes.GENDER_MALE) {
+                    maleSum += raised;
+                } else if (cellGenders[c] == EmployeeCodes.GENDER_FEMALE) {
+                    femaleSum += raised;
+                }
+            }
+
+            int promotions = 0;
+            int skipped = 0;
+            EmployeeIndex index = dataset.index();
+            for (Map.Entry<String, Double> promotion : scenario.getPromotions().entrySet()) {
+                int row = index.findRow(promotion.getKey());
+                Employee emp = (row >= 0) ? dataset.employees().get(row) : null;
+                Double salary = (emp != null) ? emp.getBasicSalary() : null;
+                if (emp == null || salary == null || salary.isNaN() || salary < 0
+                        || !onPayroll(EmployeeCodes.classifyStatus(emp.getStatus()))) {
+                    skipped++;
+                    continue;
+                }
+                String departmentKey = CompensationScenario.departmentKey(emp.getDepartment());
+                double increment = scenario.increment(departmentKey, CompensationScenario.roleKey(emp.getRole()));
+                double bump = salary * (1 + increment / 100) * (promotion.getValue() / 100);
+                salaries[departmentSlots.get(departmentKey)] += bump;
+                byte gender = EmployeeCodes.classifyGender(emp.getGender());
+                if (gender == EmployeeCodes.GENDER_MALE) {
+                    maleSum += bump;
+                } else if (gender == EmployeeCodes.GENDER_FEMALE) {
+                    femaleSum += bump;
+                }
+                promotions++;
+            }
+
+            double[] ctc = new double[salaries.length];
+            for (int d = 0; d < salaries.length; d++) {
+                ctc[d] = Employee.annualCTC(salaries[d], scenario.getBenefitsMultiplier());
+            }
+            double avgMale = (maleCount > 0) ? maleSum / maleCount : 0;
+            double avgFemale = (femaleCount > 0) ? femaleSum / femaleCount : 0;
+            double parity = (avgMale > 0) ? (avgFemale / avgMale) * 100 : 0.0;
+            return new Result(scenario.getName(), scenario.getBenefitsMultiplier(), ctc, parity, promotions, skipped);
+        }
+    }
+
+    private static boolean onPayroll(byte statusClass) {
+        return statusClass == EmployeeCodes.STATUS_ACTIVE || statusClass == EmployeeCodes.STATUS_PROBATION;
+    }
+}
@@ -0,0 +1,224 @@
+package service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Hand-rolled tokenizer for one CSV line held in a (usually memory-mapped) ByteBuffer.
+// Fields are tracked as [start, end) byte offsets, so splitting a line allocates nothing.
+// The parse helpers take a fast path for the formats startup.csv actually uses and fall
+// back to the JDK parsers for anything unusual, so accepted input and error messages
+// stay identical to Employee.fromCSV.
+final class CsvFields {
+    private static final int MAX_FIELDS = 32;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private byte[] scratch = new byte[256];
+    private ByteBuffer buf;
+    private int count;
+
+    // Mirrors String.split(","): trailing empty fields are dropped.
+    int split(ByteBuffer buf, int from, int to) {
+        this.buf = buf;
+        int n = 0;
+        int fieldStart = from;
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == ',') {
+                if (n < MAX_FIELDS) {
+                    starts[n] = fieldStart;
+                    ends[n] = i;
+                }
+                n++;
+                fieldStart = i + 1;
+            }
+        }
+        if (n < MAX_FIELDS) {
+            starts[n] = fieldStart;
+            ends[n] = to;
+        }
+        n++;
+        n = Math.min(n, MAX_FIELDS);
+        while (n > 0 && starts[n - 1] == ends[n - 1]) {
+            n--;
+        }
+        count = n;
+        return n;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int start(int field) {
+        return starts[field];
+    }
+
+    int end(int field) {
+        return ends[field];
+    }
+
+    int length(int field) {
+        return ends[field] - starts[field];
+    }
+
+    static boolean isBlank(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ((buf.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String string(int field) {
+        int len = length(field);
+        byte[] bytes = copy(field);
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+
+    // Copies the field into a reusable scratch array; valid until the next call.
+    byte[] copy(int field) {
+        int from = starts[field];
+        int len = ends[field] - from;
+        if (len > scratch.length) {
+            scratch = new byte[Math.max(len, scratch.length * 2)];
+        }
+        for (int i = 0; i < len; i++) {
+            scratch[i] = buf.get(from + i);
+        }
+        return scratch;
+    }
+
+    int hash(int field) {
+        int h = 0;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            h = 31 * h + buf.get(i);
+        }
+        return h;
+    }
+
+    boolean equalsBytes(int field, byte[] other) {
+        int from = starts[field];
+        if (ends[field] - from != other.length) {
+            return false;
+        }
+        for (int i = 0; i < other.length; i++) {
+            if (buf.get(from + i) != other[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Fast path: exactly yyyy-MM-dd. Returns Long.MIN_VALUE when the JDK parser must decide.
+    long epochDay(int field) {
+        int p = starts[field];
+        if (ends[field] - p != 10 || buf.get(p + 4) != '-' || buf.get(p + 7) != '-') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(p, 4);
+        int month = digits(p + 5, 2);
+        int day = digits(p + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    LocalDate date(int field) {
+        long epochDay = epochDay(field);
+        if (epochDay == Long.MIN_VALUE) {
+            return LocalDate.parse(string(field));
+        }
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    // Fast path for [+-]digits[.digits] with at most 15 significant digits, which is exactly
+    // representable and therefore rounds the same way as Double.parseDouble.
+    double decimal(int field) {
+        int p = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (p < end && (buf.get(p) == '-' || buf.get(p) == '+')) {
+            negative = buf.get(p) == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        for (; p < end; p++) {
+            byte b = buf.get(p);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenDot) {
+                    scale++;
+                }
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                digits = -1;
+                break;
+            }
+        }
+        if (digits <= 0 || digits > 15 || scale >= POW10.length) {
+            return Double.parseDouble(string(field));
+        }
+        double value = mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private int digits(int from, int len) {
+        int value = 0;
+        for (int i = from; i < from + len; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Same arithmetic as LocalDate.toEpochDay, without constructing the LocalDate.
+    static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+            if (!leap) {
+                total--;
+            }
+        }
+        return total - 719528L;
+    }
+}
@@ -0,0 +1,61 @@
+package service;
+
+import java.util.Arrays;
+
+// Exact distribution of whole-day cycle times. Every day up to MAX_DAYS has its own counter;
+// longer times share one overflow counter, and a percentile that lands there reports the
+// longest time seen.
+final class CycleTimeHistogram {
+    static final int MAX_DAYS = 730;
+
+    private int[] counts = new int[64];
+    private int overflow;
+    private int count;
+    private int max;
+
+    void add(int days) {
+        if (days > MAX_DAYS) {
+            overflow++;
+        } else {
+            if (days >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.min(MAX_DAYS + 1, Math.max(days + 1, counts.length * 2)));
+            }
+            counts[days]++;
+        }
+        count++;
+        max = Math.max(max, days);
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getMax() {
+        return max;
+    }
+
+    // Nearest-rank percentile (0 < q <= 1), or -1 when nothing has been recorded.
+    int percentile(double q) {
+        if (count == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int days = 0; days < counts.length; days++) {
+            seen += counts[days];
+            if (seen >= rank) {
+                return days;
+            }
+        }
+        return max;
+    }
+
+    // Cycle times longer than days, for any days below MAX_DAYS.
+    int countOver(int days) {
+        int over = overflow;
+        for (int d = days + 1; d < counts.length; d++) {
+            over += counts[d];
+        }
+        return over;
+    }
+}
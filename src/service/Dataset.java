@@ -0,0 +1,198 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import model.Employee;
+
+// One loaded, immutable generation of the employee master. Every load produces a new Dataset
+// with a new version; results derived from a dataset (such as the analytics snapshot) are
+// cached on it and therefore never outlive the data they were computed from.
+public final class Dataset {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final List<Employee> employees;
+    private final EmployeeColumns columns;
+    private volatile AnalyticsSnapshot analytics;
+    private volatile EmployeeIndex index;
+    private volatile NameIndex nameIndex;
+    private volatile TenureIndex tenureIndex;
+    private volatile PayCube payCube;
+
+    private Dataset(List<Employee> employees, EmployeeColumns columns) {
+        this.version = VERSIONS.incrementAndGet();
+        this.employees = employees;
+        this.columns = columns;
+    }
+
+    public static Dataset empty() {
+        return new Dataset(Collections.<Employee>emptyList(), null);
+    }
+
+    public static Dataset ofRows(List<Employee> employees) {
+        return new Dataset(Collections.unmodifiableList(employees), null);
+    }
+
+    public static Dataset ofColumns(EmployeeColumns columns) {
+        return new Dataset(columns.asList(), columns);
+    }
+
+    // A new generation with these records put in place: a record whose ID is already loaded
+    // replaces that row (the first one, if the ID is duplicated) and any other is appended.
+    // The records must have distinct IDs.
+    public Dataset withEmployees(List<Employee> records) {
+        EmployeeIndex current = index();
+        IntArrayList rows = new IntArrayList();
+        List<Employee> replacements = new ArrayList<>();
+        List<Employee> added = new ArrayList<>();
+        for (Employee emp : records) {
+            int row = current.findRow(emp.getId());
+            if (row >= 0) {
+                rows.add(row);
+                replacements.add(emp);
+            } else {
+                added.add(emp);
+            }
+        }
+        int[] replacedRows = rows.toArray();
+        Dataset next;
+        if (columns != null) {
+            next = ofColumns(columns.withChanges(replacedRows, replacements.toArray(new Employee[0]), added));
+        } else {
+            List<Employee> copy = new ArrayList<>(employees.size() + added.size());
+            copy.addAll(employees);
+            for (int i = 0; i < replacedRows.length; i++) {
+                copy.set(replacedRows[i], replacements.get(i));
+            }
+            copy.addAll(added);
+            next = ofRows(copy);
+        }
+        next.index = current.derive(next, replacedRows);
+        NameIndex names = nameIndex;
+        if (names != null) {
+            next.nameIndex = names.derive(next, replacedRows);
+        }
+        return next;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return employees.size();
+    }
+
+    public boolean isEmpty() {
+        return employees.isEmpty();
+    }
+
+    public List<Employee> employees() {
+        return employees;
+    }
+
+    // Non-null when the dataset is held in the columnar layout.
+    public EmployeeColumns columns() {
+        return columns;
+    }
+
+    public String id(int row) {
+        return (columns != null) ? columns.id(row) : employees.get(row).getId();
+    }
+
+    public String fullName(int row) {
+        return (columns != null) ? columns.name(row) : employees.get(row).getFullName();
+    }
+
+    public String department(int row) {
+        return (columns != null)
+                ? columns.departmentDictionary().decode(columns.departmentCode(row))
+                : employees.get(row).getDepartment();
+    }
+
+    public String role(int row) {
+        return (columns != null)
+                ? columns.roleDictionary().decode(columns.roleCode(row))
+                : employees.get(row).getRole();
+    }
+
+    public String status(int row) {
+        return (columns != null)
+                ? columns.statusDictionary().decode(columns.statusCode(row))
+                : employees.get(row).getStatus();
+    }
+
+    public long joiningEpochDay(int row) {
+        return (columns != null) ? columns.joiningEpochDay(row) : employees.get(row).getJoiningDate().toEpochDay();
+    }
+
+    public AnalyticsSnapshot analytics(LocalDate today) {
+        AnalyticsSnapshot snapshot = analytics;
+        if (snapshot != null && snapshot.getAsOf().equals(today)) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = analytics;
+            if (snapshot == null || !snapshot.getAsOf().equals(today)) {
+                snapshot = AnalyticsEngine.compute(this, today);
+                analytics = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    public EmployeeIndex index() {
+        EmployeeIndex built = index;
+        if (built != null) {
+            return built;
+        }
+        synchronized (this) {
+            if (index == null) {
+                index = EmployeeIndex.build(this);
+            }
+            return index;
+        }
+    }
+
+    public NameIndex nameIndex() {
+        NameIndex built = nameIndex;
+        if (built != null) {
+            return built;
+        }
+        synchronized (this) {
+            if (nameIndex == null) {
+                nameIndex = NameIndex.build(this);
+            }
+            return nameIndex;
+        }
+    }
+
+    public TenureIndex tenureIndex() {
+        TenureIndex built = tenureIndex;
+        if (built != null) {
+            return built;
+        }
+        synchronized (this) {
+            if (tenureIndex == null) {
+                tenureIndex = TenureIndex.build(this);
+            }
+            return tenureIndex;
+        }
+    }
+
+    public PayCube payCube() {
+        PayCube built = payCube;
+        if (built != null) {
+            return built;
+        }
+        synchronized (this) {
+            if (payCube == null) {
+                payCube = GroupByEngine.compute(this);
+            }
+            return payCube;
+        }
+    }
+}
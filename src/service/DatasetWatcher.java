@@ -0,0 +1,119 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+// Watches one file and runs a reload action on a background thread after it has changed.
+// Directory events from a WatchService wake the thread early; the file's size and
+// modification time are also polled, which covers file systems that deliver no events. A
+// change is only acted on once the file has looked the same for a whole quiet period, so a
+// master that is still being copied into place is not read half-written.
+public class DatasetWatcher implements Closeable {
+    private static final long QUIET_PERIOD_MILLIS = 1000;
+
+    private final Path file;
+    private final Runnable reload;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile String loadedStamp;
+
+    public DatasetWatcher(String filePath, Runnable reload) throws IOException {
+        this.file = Paths.get(filePath).toAbsolutePath();
+        this.reload = reload;
+        this.loadedStamp = stamp();
+        this.watchService = openWatchService(file.getParent());
+        this.thread = new Thread(this::run, "dataset-watcher-" + file.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Takes the file as it is now as already loaded, after the application rewrote it itself.
+    public void acknowledge() {
+        loadedStamp = stamp();
+    }
+
+    // Falls back to plain polling when the directory cannot be watched.
+    private static WatchService openWatchService(Path directory) {
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            return service;
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    // Size and modification time, or null while the file is missing (e.g. mid-replace).
+    private String stamp() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() + "@" + attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void run() {
+        String pendingStamp = null;
+        long pendingSince = 0;
+        while (!closed) {
+            try {
+                awaitQuietPeriod();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            String current = stamp();
+            if (current == null || current.equals(loadedStamp)) {
+                pendingStamp = null;
+            } else if (!current.equals(pendingStamp)) {
+                pendingStamp = current;
+                pendingSince = System.nanoTime();
+            } else if (!closed && System.nanoTime() - pendingSince >= TimeUnit.MILLISECONDS.toNanos(QUIET_PERIOD_MILLIS)) {
+                loadedStamp = current;
+                pendingStamp = null;
+                try {
+                    reload.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[WARN] Reload of " + file + " failed: " + e);
+                }
+            }
+        }
+    }
+
+    private void awaitQuietPeriod() throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(QUIET_PERIOD_MILLIS);
+            return;
+        }
+        WatchKey key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        if (key != null) {
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                System.err.println("[WARN] Failed to stop watching " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package service;
+
+// Small integer classes for the status and gender values the reports branch on.
+// Classifying a dictionary entry once replaces a trim()/equalsIgnoreCase chain per row.
+public final class EmployeeCodes {
+    public static final byte STATUS_ACTIVE = 0;
+    public static final byte STATUS_PROBATION = 1;
+    public static final byte STATUS_NOTICE_PERIOD = 2;
+    public static final byte STATUS_EXITED = 3;
+    public static final byte STATUS_OTHER = 4;
+    public static final byte STATUS_NULL = 5;
+
+    public static final byte GENDER_MALE = 0;
+    public static final byte GENDER_FEMALE = 1;
+    public static final byte GENDER_OTHER = 2;
+    public static final byte GENDER_NULL = 3;
+
+    private EmployeeCodes() {
+    }
+
+    public static byte classifyStatus(String status) {
+        if (status == null) {
+            return STATUS_NULL;
+        }
+        String trimmed = status.trim();
+        if (trimmed.equalsIgnoreCase("Active")) {
+            return STATUS_ACTIVE;
+        } else if (trimmed.equalsIgnoreCase("Probation")) {
+            return STATUS_PROBATION;
+        } else if (trimmed.equalsIgnoreCase("Notice Period")) {
+            return STATUS_NOTICE_PERIOD;
+        } else if (trimmed.equalsIgnoreCase("Exited")) {
+            return STATUS_EXITED;
+        }
+        return STATUS_OTHER;
+    }
+
+    public static byte classifyGender(String gender) {
+        if (gender == null) {
+            return GENDER_NULL;
+        } else if (gender.equalsIgnoreCase("M")) {
+            return GENDER_MALE;
+        } else if (gender.equalsIgnoreCase("F")) {
+            return GENDER_FEMALE;
+        }
+        return GENDER_OTHER;
+    }
+
+    // The headcount report has always matched "Active" without trimming.
+    public static boolean countsForHeadcount(String status) {
+        return status != null && status.equalsIgnoreCase("Active");
+    }
+
+    public static String departmentKey(String department) {
+        return (department != null && !department.trim().isEmpty()) ? department.trim() : "Unassigned";
+    }
+}
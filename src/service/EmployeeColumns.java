@@ -0,0 +1,291 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import model.Employee;
+
+// Struct-of-arrays copy of the employee master. Department and role are dictionary-encoded
+// into int columns, gender and status into byte columns, joining dates are kept as epoch
+// days and salaries as a primitive double column (NaN stands for a missing salary).
+// Only the ID and name, which are unique per row, remain as String references.
+public class EmployeeColumns {
+    static final int MAX_SMALL_DICTIONARY = 256;
+
+    private final int size;
+    private final String[] ids;
+    private final String[] names;
+    private final int[] departments;
+    private final int[] roles;
+    private final byte[] genders;
+    private final byte[] statuses;
+    private final int[] joiningDays;
+    private final double[] salaries;
+
+    private final StringDictionary departmentDictionary;
+    private final StringDictionary roleDictionary;
+    private final StringDictionary genderDictionary;
+    private final StringDictionary statusDictionary;
+
+    private EmployeeColumns(Builder b) {
+        this.size = b.size;
+        this.ids = Arrays.copyOf(b.ids, b.size);
+        this.names = Arrays.copyOf(b.names, b.size);
+        this.departments = Arrays.copyOf(b.departments, b.size);
+        this.roles = Arrays.copyOf(b.roles, b.size);
+        this.genders = Arrays.copyOf(b.genders, b.size);
+        this.statuses = Arrays.copyOf(b.statuses, b.size);
+        this.joiningDays = Arrays.copyOf(b.joiningDays, b.size);
+        this.salaries = Arrays.copyOf(b.salaries, b.size);
+        this.departmentDictionary = b.departmentDictionary;
+        this.roleDictionary = b.roleDictionary;
+        this.genderDictionary = b.genderDictionary;
+        this.statusDictionary = b.statusDictionary;
+    }
+
+    // Adopts already-decoded columns, e.g. from a binary snapshot. The arrays are not copied.
+    EmployeeColumns(int size, String[] ids, String[] names, int[] departments, int[] roles,
+                    byte[] genders, byte[] statuses, int[] joiningDays, double[] salaries,
+                    StringDictionary departmentDictionary, StringDictionary roleDictionary,
+                    StringDictionary genderDictionary, StringDictionary statusDictionary) {
+        this.size = size;
+        this.ids = ids;
+        this.names = names;
+        this.departments = departments;
+        this.roles = roles;
+        this.genders = genders;
+        this.statuses = statuses;
+        this.joiningDays = joiningDays;
+        this.salaries = salaries;
+        this.departmentDictionary = departmentDictionary;
+        this.roleDictionary = roleDictionary;
+        this.genderDictionary = genderDictionary;
+        this.statusDictionary = statusDictionary;
+    }
+
+    public static EmployeeColumns from(List<Employee> employees) {
+        Builder builder = new Builder(employees.size());
+        for (Employee emp : employees) {
+            if (emp != null) {
+                builder.add(emp);
+            }
+        }
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private int size;
+        private String[] ids;
+        private String[] names;
+        private int[] departments;
+        private int[] roles;
+        private byte[] genders;
+        private byte[] statuses;
+        private int[] joiningDays;
+        private double[] salaries;
+
+        private final StringDictionary departmentDictionary = new StringDictionary();
+        private final StringDictionary roleDictionary = new StringDictionary();
+        private final StringDictionary genderDictionary = new StringDictionary(MAX_SMALL_DICTIONARY);
+        private final StringDictionary statusDictionary = new StringDictionary(MAX_SMALL_DICTIONARY);
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new String[capacity];
+            names = new String[capacity];
+            departments = new int[capacity];
+            roles = new int[capacity];
+            genders = new byte[capacity];
+            statuses = new byte[capacity];
+            joiningDays = new int[capacity];
+            salaries = new double[capacity];
+        }
+
+        public Builder add(Employee emp) {
+            ensureCapacity(size + 1);
+            ids[size] = emp.getId();
+            names[size] = emp.getFullName();
+            departments[size] = departmentDictionary.encode(emp.getDepartment());
+            roles[size] = roleDictionary.encode(emp.getRole());
+            genders[size] = (byte) genderDictionary.encode(emp.getGender());
+            statuses[size] = (byte) statusDictionary.encode(emp.getStatus());
+            joiningDays[size] = (int) emp.getJoiningDate().toEpochDay();
+            salaries[size] = (emp.getBasicSalary() != null) ? emp.getBasicSalary() : Double.NaN;
+            size++;
+            return this;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed <= ids.length) {
+                return;
+            }
+            int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            departments = Arrays.copyOf(departments, capacity);
+            roles = Arrays.copyOf(roles, capacity);
+            genders = Arrays.copyOf(genders, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            joiningDays = Arrays.copyOf(joiningDays, capacity);
+            salaries = Arrays.copyOf(salaries, capacity);
+        }
+
+        public EmployeeColumns build() {
+            return new EmployeeColumns(this);
+        }
+    }
+
+    // A copy with the given rows replaced and the added employees appended. Columns and
+    // dictionaries are copied, so this instance, and any report still reading it, is unchanged.
+    EmployeeColumns withChanges(int[] rows, Employee[] replacements, List<Employee> added) {
+        int newSize = size + added.size();
+        EmployeeColumns copy = new EmployeeColumns(newSize, Arrays.copyOf(ids, newSize), Arrays.copyOf(names, newSize),
+                Arrays.copyOf(departments, newSize), Arrays.copyOf(roles, newSize), Arrays.copyOf(genders, newSize),
+                Arrays.copyOf(statuses, newSize), Arrays.copyOf(joiningDays, newSize), Arrays.copyOf(salaries, newSize),
+                departmentDictionary.copy(), roleDictionary.copy(), genderDictionary.copy(), statusDictionary.copy());
+        for (int i = 0; i < rows.length; i++) {
+            copy.put(rows[i], replacements[i]);
+        }
+        for (int i = 0; i < added.size(); i++) {
+            copy.put(size + i, added.get(i));
+        }
+        return copy;
+    }
+
+    private void put(int row, Employee emp) {
+        ids[row] = emp.getId();
+        names[row] = emp.getFullName();
+        departments[row] = departmentDictionary.encode(emp.getDepartment());
+        roles[row] = roleDictionary.encode(emp.getRole());
+        genders[row] = (byte) genderDictionary.encode(emp.getGender());
+        statuses[row] = (byte) statusDictionary.encode(emp.getStatus());
+        joiningDays[row] = (int) emp.getJoiningDate().toEpochDay();
+        salaries[row] = (emp.getBasicSalary() != null) ? emp.getBasicSalary() : Double.NaN;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String id(int row) {
+        return ids[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public int departmentCode(int row) {
+        return departments[row];
+    }
+
+    public int roleCode(int row) {
+        return roles[row];
+    }
+
+    // Raw dictionary code; resolve through genderDictionary() or classify per entry.
+    public int genderCode(int row) {
+        return genders[row] & 0xFF;
+    }
+
+    public int statusCode(int row) {
+        return statuses[row] & 0xFF;
+    }
+
+    public int joiningEpochDay(int row) {
+        return joiningDays[row];
+    }
+
+    public double salary(int row) {
+        return salaries[row];
+    }
+
+    // The column arrays themselves, for the aggregation kernels. Only the first size() entries
+    // are rows; callers must not modify them.
+    int[] departmentColumn() {
+        return departments;
+    }
+
+    byte[] genderColumn() {
+        return genders;
+    }
+
+    byte[] statusColumn() {
+        return statuses;
+    }
+
+    int[] joiningDayColumn() {
+        return joiningDays;
+    }
+
+    double[] salaryColumn() {
+        return salaries;
+    }
+
+    public StringDictionary departmentDictionary() {
+        return departmentDictionary;
+    }
+
+    public StringDictionary roleDictionary() {
+        return roleDictionary;
+    }
+
+    public StringDictionary genderDictionary() {
+        return genderDictionary;
+    }
+
+    public StringDictionary statusDictionary() {
+        return statusDictionary;
+    }
+
+    // Dictionary entries classified once, indexed by raw code.
+    public byte[] statusClasses() {
+        byte[] classes = new byte[statusDictionary.size()];
+        for (int code = 0; code < classes.length; code++) {
+            classes[code] = EmployeeCodes.classifyStatus(statusDictionary.decode(code));
+        }
+        return classes;
+    }
+
+    public byte[] genderClasses() {
+        byte[] classes = new byte[genderDictionary.size()];
+        for (int code = 0; code < classes.length; code++) {
+            classes[code] = EmployeeCodes.classifyGender(genderDictionary.decode(code));
+        }
+        return classes;
+    }
+
+    public Employee employeeAt(int row) {
+        double salary = salaries[row];
+        return new Employee(ids[row], names[row],
+                genderDictionary.decode(genderCode(row)),
+                departmentDictionary.decode(departments[row]),
+                roleDictionary.decode(roles[row]),
+                LocalDate.ofEpochDay(joiningDays[row]),
+                Double.isNaN(salary) ? null : salary,
+                statusDictionary.decode(statusCode(row)));
+    }
+
+    // Read-only List view that materialises an Employee per access, for callers that still
+    // work in terms of model objects.
+    public List<Employee> asList() {
+        return new EmployeeListView();
+    }
+
+    private final class EmployeeListView extends AbstractList<Employee> implements RandomAccess {
+        @Override
+        public Employee get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return employeeAt(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Secondary indexes over one Dataset: an open-addressing hash of employee ID to row, and
+// sorted posting lists of rows per department and per status. Lookups cost O(1) and
+// filters cost time proportional to the rows returned, not to the size of the workforce.
+public final class EmployeeIndex {
+    private static final int EMPTY = 0;
+
+    private final Dataset dataset;
+    private final int[] idTable;
+    private final Map<String, int[]> byDepartment;
+    private final Map<String, int[]> byStatus;
+    private final List<String> duplicateIds;
+
+    private EmployeeIndex(Dataset dataset, int[] idTable, Map<String, int[]> byDepartment,
+                          Map<String, int[]> byStatus, List<String> duplicateIds) {
+        this.dataset = dataset;
+        this.idTable = idTable;
+        this.byDepartment = byDepartment;
+        this.byStatus = byStatus;
+        this.duplicateIds = duplicateIds;
+    }
+
+    public static EmployeeIndex build(Dataset dataset) {
+        int n = dataset.size();
+        int[] idTable = new int[tableSize(n)];
+        int mask = idTable.length - 1;
+        List<String> duplicateIds = new ArrayList<>();
+        Map<String, IntArrayList> departments = new HashMap<>();
+        Map<String, IntArrayList> statuses = new HashMap<>();
+        // Raw column values repeat heavily, so normalise each distinct one only once.
+        Map<String, IntArrayList> rawDepartments = new HashMap<>();
+        Map<String, IntArrayList> rawStatuses = new HashMap<>();
+
+        for (int row = 0; row < n; row++) {
+            String id = dataset.id(row);
+            if (id != null) {
+                int slot = hash(id) & mask;
+                boolean duplicate = false;
+                while (idTable[slot] != EMPTY) {
+                    if (id.equals(dataset.id(idTable[slot] - 1))) {
+                        duplicate = true;
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                if (duplicate) {
+                    duplicateIds.add(id);
+                } else {
+                    idTable[slot] = row + 1;
+                }
+            }
+            postingList(rawDepartments, departments, dataset.department(row)).add(row);
+            postingList(rawStatuses, statuses, dataset.status(row)).add(row);
+        }
+        return new EmployeeIndex(dataset, idTable, freeze(departments), freeze(statuses),
+                Collections.unmodifiableList(duplicateIds));
+    }
+
+    // The index of next, a copy of this index's dataset with the given rows replaced by records
+    // with the same IDs and any rows from oldSize on appended. Costs time proportional to the
+    // rows changed and the posting lists they move between, not to the size of the workforce.
+    EmployeeIndex derive(Dataset next, int[] replacedRows) {
+        int oldSize = dataset.size();
+        if (next.size() * 2 > idTable.length) {
+            return build(next);
+        }
+        int[] nextIds = idTable.clone();
+        int mask = nextIds.length - 1;
+        List<String> nextDuplicates = new ArrayList<>(duplicateIds);
+        Map<String, int[]> departments = new HashMap<>(byDepartment);
+        Map<String, int[]> statuses = new HashMap<>(byStatus);
+
+        for (int row : replacedRows) {
+            move(departments, key(dataset.department(row)), key(next.department(row)), row);
+            move(statuses, key(dataset.status(row)), key(next.status(row)), row);
+        }
+        for (int row = oldSize; row < next.size(); row++) {
+            String id = next.id(row);
+            if (id != null) {
+                int slot = hash(id) & mask;
+                boolean duplicate = false;
+                while (nextIds[slot] != EMPTY) {
+                    if (id.equals(next.id(nextIds[slot] - 1))) {
+                        duplicate = true;
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                if (duplicate) {
+                    nextDuplicates.add(id);
+                } else {
+                    nextIds[slot] = row + 1;
+                }
+            }
+            // Appended rows are numbered above every existing row, so they go at the end.
+            move(departments, null, key(next.department(row)), row);
+            move(statuses, null, key(next.status(row)), row);
+        }
+        return new EmployeeIndex(next, nextIds, Collections.unmodifiableMap(departments),
+                Collections.unmodifiableMap(statuses), Collections.unmodifiableList(nextDuplicates));
+    }
+
+    // Takes row out of the sorted list for from (unless null) and puts it into the list for to.
+    private static void move(Map<String, int[]> lists, String from, String to, int row) {
+        if (to.equals(from)) {
+            return;
+        }
+        if (from != null) {
+            int[] rows = lists.get(from);
+            int pos = java.util.Arrays.binarySearch(rows, row);
+            int[] shorter = new int[rows.length - 1];
+            System.arraycopy(rows, 0, shorter, 0, pos);
+            System.arraycopy(rows, pos + 1, shorter, pos, rows.length - pos - 1);
+            lists.put(from, shorter);
+        }
+        int[] rows = lists.getOrDefault(to, new int[0]);
+        int pos = -java.util.Arrays.binarySearch(rows, row) - 1;
+        int[] longer = new int[rows.length + 1];
+        System.arraycopy(rows, 0, longer, 0, pos);
+        longer[pos] = row;
+        System.arraycopy(rows, pos, longer, pos + 1, rows.length - pos);
+        lists.put(to, longer);
+    }
+
+    private static IntArrayList postingList(Map<String, IntArrayList> raw, Map<String, IntArrayList> lists, String value) {
+        IntArrayList list = raw.get(value);
+        if (list == null) {
+            list = lists.computeIfAbsent(key(value), k -> new IntArrayList());
+            raw.put(value, list);
+        }
+        return list;
+    }
+
+    private static int tableSize(int entries) {
+        int size = 16;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Department and status lookups ignore case and surrounding whitespace.
+    static String key(String value) {
+        return (value == null) ? "" : value.trim().toLowerCase();
+    }
+
+    private static Map<String, int[]> freeze(Map<String, IntArrayList> lists) {
+        Map<String, int[]> frozen = new HashMap<>();
+        for (Map.Entry<String, IntArrayList> entry : lists.entrySet()) {
+            frozen.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    // IDs that appeared more than once; lookups return the first occurrence.
+    public List<String> getDuplicateIds() {
+        return duplicateIds;
+    }
+
+    // Row of the employee with this ID, or -1.
+    public int findRow(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int mask = idTable.length - 1;
+        int slot = hash(id) & mask;
+        while (idTable[slot] != EMPTY) {
+            int row = idTable[slot] - 1;
+            if (id.equals(dataset.id(row))) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int[] rowsByDepartment(String department) {
+        return byDepartment.getOrDefault(key(department), new int[0]);
+    }
+
+    public int[] rowsByStatus(String status) {
+        return byStatus.getOrDefault(key(status), new int[0]);
+    }
+
+    public int[] rowsByDepartmentAndStatus(String department, String status) {
+        return intersect(rowsByDepartment(department), rowsByStatus(status));
+    }
+
+    // Galloping intersection of two sorted row lists: O(small * log(large)).
+    static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            int[] t = a;
+            a = b;
+            b = t;
+        }
+        IntArrayList out = new IntArrayList(a.length);
+        int lo = 0;
+        for (int value : a) {
+            int step = 1;
+            int hi = lo;
+            while (hi < b.length && b[hi] < value) {
+                lo = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int pos = java.util.Arrays.binarySearch(b, lo, Math.min(hi + 1, b.length), value);
+            if (pos >= 0) {
+                out.add(value);
+                lo = pos + 1;
+            } else {
+                lo = -pos - 1;
+            }
+            if (lo >= b.length) {
+                break;
+            }
+        }
+        return out.toArray();
+    }
+}
@@ -0,0 +1,317 @@
+package service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+// Binary image of a parsed employee master, written next to the CSV as <csv>.snap. The header
+// records the size, modification time and CRC-32C of the CSV it was built from; a snapshot is
+// only used while all three still match. The columns follow in the EmployeeColumns layout and
+// a CRC-32C of everything before it closes the file, so a torn or damaged snapshot is
+// detected and the caller falls back to parsing the CSV.
+public final class EmployeeSnapshot {
+    public static final String SUFFIX = ".snap";
+
+    private static final int MAGIC = 0x54435331; // "TCS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final long HASH_WINDOW = 256L * 1024 * 1024;
+
+    private EmployeeSnapshot() {
+    }
+
+    public static Path pathFor(String csvFile) {
+        return Paths.get(csvFile + SUFFIX);
+    }
+
+    // Identity of a CSV file as far as the snapshot is concerned.
+    public static final class Source {
+        final long size;
+        final long modified;
+        final long hash;
+
+        Source(long size, long modified, long hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        boolean sameFile(Source other) {
+            return size == other.size && modified == other.modified;
+        }
+    }
+
+    // Size and modification time only; cheap enough to check on every boot.
+    static Source stat(Path csv) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(csv, BasicFileAttributes.class);
+        return new Source(attributes.size(), attributes.lastModifiedTime().toMillis(), 0);
+    }
+
+    static Source describe(Path csv) throws IOException {
+        Source stat = stat(csv);
+        return new Source(stat.size, stat.modified, contentHash(csv));
+    }
+
+    private static long contentHash(Path csv) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_WINDOW, size - position)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    // Returns the columns stored for csv, or null when there is no snapshot or it was built
+    // from a different version of the file. Throws IOException when the snapshot is corrupt.
+    public static EmployeeColumns read(Path csv, Path snapshot) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("snapshot larger than 2 GB");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("not a snapshot file");
+            }
+            if (buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            Source recorded = new Source(buffer.getLong(), buffer.getLong(), buffer.getLong());
+            if (!recorded.sameFile(stat(csv)) || recorded.hash != contentHash(csv)) {
+                return null;
+            }
+
+            int end = buffer.limit() - Long.BYTES;
+            if (end < buffer.position()) {
+                throw new IOException("snapshot is truncated");
+            }
+            CRC32C crc = new CRC32C();
+            ByteBuffer body = buffer.duplicate();
+            body.position(0).limit(end);
+            crc.update(body);
+            if (crc.getValue() != buffer.getLong(end)) {
+                throw new IOException("checksum mismatch");
+            }
+            buffer.limit(end);
+            return readColumns(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("snapshot is malformed", e);
+        }
+    }
+
+    private static EmployeeColumns readColumns(ByteBuffer buffer) throws IOException {
+        int size = buffer.getInt();
+        if (size < 0) {
+            throw new IOException("negative row count");
+        }
+        StringDictionary departments = readDictionary(buffer, Integer.MAX_VALUE);
+        StringDictionary roles = readDictionary(buffer, Integer.MAX_VALUE);
+        // Gender and status keep the byte-code cap, so later edits are refused as on a CSV load.
+        StringDictionary genders = readDictionary(buffer, EmployeeColumns.MAX_SMALL_DICTIONARY);
+        StringDictionary statuses = readDictionary(buffer, EmployeeColumns.MAX_SMALL_DICTIONARY);
+
+        String[] ids = new String[size];
+        String[] names = new String[size];
+        readStrings(buffer, ids, names);
+        int[] departmentCodes = readCodes(buffer, size, departments.size());
+        int[] roleCodes = readCodes(buffer, size, roles.size());
+        byte[] genderCodes = readSmallCodes(buffer, size, genders.size());
+        byte[] statusCodes = readSmallCodes(buffer, size, statuses.size());
+        int[] joiningDays = new int[size];
+        buffer.asIntBuffer().get(joiningDays);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        double[] salaries = new double[size];
+        buffer.asDoubleBuffer().get(salaries);
+        buffer.position(buffer.position() + size * Double.BYTES);
+        if (buffer.hasRemaining()) {
+            throw new IOException("unexpected trailing data");
+        }
+
+        return new EmployeeColumns(size, ids, names, departmentCodes, roleCodes, genderCodes, statusCodes,
+                joiningDays, salaries, departments, roles, genders, statuses);
+    }
+
+    // IDs and names are stored as one length table followed by one block of UTF-8 bytes, so
+    // they are pulled out of the mapping with two bulk copies instead of one read per field.
+    private static void readStrings(ByteBuffer buffer, String[] ids, String[] names) throws IOException {
+        int size = ids.length;
+        int[] lengths = new int[2 * size];
+        buffer.asIntBuffer().get(lengths);
+        buffer.position(buffer.position() + lengths.length * Integer.BYTES);
+        long total = 0;
+        for (int length : lengths) {
+            total += Math.max(length, 0);
+        }
+        if (total > buffer.remaining()) {
+            throw new IOException("string block is truncated");
+        }
+        byte[] block = new byte[(int) total];
+        buffer.get(block);
+
+        int offset = 0;
+        for (int row = 0; row < size; row++) {
+            int idLength = lengths[2 * row];
+            ids[row] = (idLength < 0) ? null : new String(block, offset, idLength, StandardCharsets.UTF_8);
+            offset += Math.max(idLength, 0);
+            int nameLength = lengths[2 * row + 1];
+            names[row] = (nameLength < 0) ? null : new String(block, offset, nameLength, StandardCharsets.UTF_8);
+            offset += Math.max(nameLength, 0);
+        }
+    }
+
+    private static StringDictionary readDictionary(ByteBuffer buffer, int maxSize) throws IOException {
+        int count = buffer.getInt();
+        if (count > maxSize) {
+            throw new IOException("dictionary has " + count + " entries, more than " + maxSize);
+        }
+        StringDictionary dictionary = new StringDictionary(maxSize);
+        byte[] scratch = new byte[64];
+        for (int code = 0; code < count; code++) {
+            dictionary.encode(readString(buffer, scratch));
+        }
+        return dictionary;
+    }
+
+    private static int[] readCodes(ByteBuffer buffer, int size, int dictionarySize) throws IOException {
+        int[] codes = new int[size];
+        buffer.asIntBuffer().get(codes);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        for (int code : codes) {
+            if (code < 0 || code >= dictionarySize) {
+                throw new IOException("dictionary code out of range");
+            }
+        }
+        return codes;
+    }
+
+    private static byte[] readSmallCodes(ByteBuffer buffer, int size, int dictionarySize) throws IOException {
+        byte[] codes = new byte[size];
+        buffer.get(codes);
+        for (byte code : codes) {
+            if ((code & 0xFF) >= dictionarySize) {
+                throw new IOException("dictionary code out of range");
+            }
+        }
+        return codes;
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = (length <= scratch.length) ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Writes the snapshot to a temporary file and moves it into place, so readers never see a
+    // partially written one.
+    public static void write(Path snapshot, Source source, EmployeeColumns columns) throws IOException {
+        Path temp = Paths.get(snapshot + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(source.size);
+            out.writeLong(source.modified);
+            out.writeLong(source.hash);
+
+            int size = columns.size();
+            out.writeInt(size);
+            writeDictionary(out, columns.departmentDictionary());
+            writeDictionary(out, columns.roleDictionary());
+            writeDictionary(out, columns.genderDictionary());
+            writeDictionary(out, columns.statusDictionary());
+            writeStrings(out, columns);
+            for (int row = 0; row < size; row++) {
+                out.writeInt(columns.departmentCode(row));
+            }
+            for (int row = 0; row < size; row++) {
+                out.writeInt(columns.roleCode(row));
+            }
+            for (int row = 0; row < size; row++) {
+                out.writeByte(columns.genderCode(row));
+            }
+            for (int row = 0; row < size; row++) {
+                out.writeByte(columns.statusCode(row));
+            }
+            for (int row = 0; row < size; row++) {
+                out.writeInt(columns.joiningEpochDay(row));
+            }
+            for (int row = 0; row < size; row++) {
+                out.writeDouble(columns.salary(row));
+            }
+            out.flush();
+            long checksum = crc.getValue();
+            out.writeLong(checksum);
+            out.flush();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, EmployeeColumns columns) throws IOException {
+        int size = columns.size();
+        byte[][] encoded = new byte[2 * size][];
+        for (int row = 0; row < size; row++) {
+            encoded[2 * row] = (columns.id(row) != null) ? columns.id(row).getBytes(StandardCharsets.UTF_8) : null;
+            encoded[2 * row + 1] = (columns.name(row) != null) ? columns.name(row).getBytes(StandardCharsets.UTF_8) : null;
+        }
+        for (byte[] bytes : encoded) {
+            out.writeInt((bytes != null) ? bytes.length : -1);
+        }
+        for (byte[] bytes : encoded) {
+            if (bytes != null) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, StringDictionary dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (int code = 0; code < dictionary.size(); code++) {
+            writeString(out, dictionary.decode(code));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
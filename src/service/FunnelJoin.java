@@ -0,0 +1,591 @@
+package service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Joins the candidate store with rejections.csv on candidate ID to build the recruitment
+// funnel. The hash table is built on whichever side has fewer rows and the other side is
+// streamed past it: rejections.csv is memory-mapped and probed in parallel chunks, the
+// candidate columns are scanned in place. Table keys are 64-bit hashes of the trimmed ID, so
+// the table holds no strings and its size depends only on the build side.
+public final class FunnelJoin {
+    static final int MAX_ORPHAN_SAMPLES = 10;
+
+    private static final int SAMPLE_BYTES = 64 * 1024;
+
+    public enum BuildSide {
+        CANDIDATES, REJECTIONS
+    }
+
+    public static final class RoleFunnel {
+        private final String role;
+        private int applied;
+        private int offered;
+        private int accepted;
+        private int declined;
+        private int[] reasonCounts;
+        private int rejections;
+
+        RoleFunnel(String role, int reasons) {
+            this.role = role;
+            this.reasonCounts = new int[reasons];
+        }
+
+        void add(RoleFunnel other) {
+            applied += other.applied;
+            offered += other.offered;
+            accepted += other.accepted;
+            declined += other.declined;
+            rejections += other.rejections;
+            for (int i = 0; i < reasonCounts.length; i++) {
+                reasonCounts[i] += other.reasonCounts[i];
+            }
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public int getApplied() {
+            return applied;
+        }
+
+        public int getOffered() {
+            return offered;
+        }
+
+        public int getAccepted() {
+            return accepted;
+        }
+
+        // Offers the candidate turned down (status Rejected).
+        public int getDeclined() {
+            return declined;
+        }
+
+        public double getAcceptRate() {
+            return (offered > 0) ? (accepted * 100.0) / offered : 0.0;
+        }
+
+        // Logged rejections for candidates of this role, in total and per reason (same order as Funnel.getReasons()).
+        public int getRejections() {
+            return rejections;
+        }
+
+        public int getReasonCount(int reason) {
+            return reasonCounts[reason];
+        }
+    }
+
+    public static final class Funnel {
+        private final List<RoleFunnel> roles;
+        private final RoleFunnel total;
+        private final List<String> reasons;
+        private final int rejectionsRead;
+        private final int orphanRejections;
+        private final List<String> orphanSamples;
+        private final int rejectedWithoutReason;
+        private final BuildSide buildSide;
+
+        Funnel(List<RoleFunnel> roles, RoleFunnel total, List<String> reasons, int rejectionsRead,
+               int orphanRejections, List<String> orphanSamples, int rejectedWithoutReason, BuildSide buildSide) {
+            this.roles = roles;
+            this.total = total;
+            this.reasons = reasons;
+            this.rejectionsRead = rejectionsRead;
+            this.orphanRejections = orphanRejections;
+            this.orphanSamples = orphanSamples;
+            this.rejectedWithoutReason = rejectedWithoutReason;
+            this.buildSide = buildSide;
+        }
+
+        // Sorted by role name.
+        public List<RoleFunnel> getRoles() {
+            return roles;
+        }
+
+        public RoleFunnel getTotal() {
+            return total;
+        }
+
+        // Rejection reasons, most frequent first.
+        public List<String> getReasons() {
+            return reasons;
+        }
+
+        public int getRejectionsRead() {
+            return rejectionsRead;
+        }
+
+        // Rejections whose ID matches no logged candidate, with the first few IDs in file order.
+        public int getOrphanRejections() {
+            return orphanRejections;
+        }
+
+        public List<String> getOrphanSamples() {
+            return orphanSamples;
+        }
+
+        // Candidates with status Rejected but no rejection reason logged.
+        public int getRejectedWithoutReason() {
+            return rejectedWithoutReason;
+        }
+
+        public BuildSide getBuildSide() {
+            return buildSide;
+        }
+    }
+
+    private FunnelJoin() {
+    }
+
+    public static Funnel compute(CandidateStore store, String rejectionsFile) throws IOException {
+        return compute(store, rejectionsFile, ForkJoinPool.commonPool(), null);
+    }
+
+    // buildSide null picks the smaller side.
+    static Funnel compute(CandidateStore store, String rejectionsFile, ForkJoinPool pool, BuildSide buildSide) throws IOException {
+        try (Metrics.Timer timer = Metrics.time("join.funnel")) {
+            CandidateStore.Columns candidates = store.columns();
+            Join join;
+            try (FileChannel channel = FileChannel.open(Paths.get(rejectionsFile), StandardOpenOption.READ)) {
+                if (buildSide == null) {
+                    buildSide = (estimateRows(channel) < candidates.size()) ? BuildSide.REJECTIONS : BuildSide.CANDIDATES;
+                }
+                join = (buildSide == BuildSide.CANDIDATES)
+                        ? probeRejections(candidates, channel, pool)
+                        : probeCandidates(candidates, channel, pool);
+            } catch (NoSuchFileException e) {
+                join = new Join(candidates.size());
+                buildSide = BuildSide.CANDIDATES;
+            }
+            timer.rows((long) candidates.size() + join.rejectionsRead);
+            return summarise(candidates, join, buildSide);
+        }
+    }
+
+    // What either direction of the join produces: per (reason, role) counts, the orphan
+    // rejections and which candidate IDs had at least one rejection.
+    private static final class Join {
+        final Map<String, int[]> reasonsByRole = new HashMap<>();
+        final List<String> orphanSamples = new ArrayList<>();
+        final long[] rejectedRows;
+        int orphans;
+        int rejectionsRead;
+
+        Join(int candidates) {
+            rejectedRows = new long[(candidates + 63) >>> 6];
+        }
+
+        void count(String reason, int role, int roles) {
+            int[] counts = reasonsByRole.get(reason);
+            if (counts == null) {
+                counts = new int[roles];
+                reasonsByRole.put(reason, counts);
+            }
+            counts[role]++;
+        }
+
+        void merge(Join other) {
+            for (Map.Entry<String, int[]> entry : other.reasonsByRole.entrySet()) {
+                int[] counts = entry.getValue();
+                int[] target = reasonsByRole.computeIfAbsent(entry.getKey(), r -> new int[counts.length]);
+                for (int i = 0; i < counts.length; i++) {
+                    target[i] += counts[i];
+                }
+            }
+            for (String id : other.orphanSamples) {
+                if (orphanSamples.size() < MAX_ORPHAN_SAMPLES) {
+                    orphanSamples.add(id);
+                }
+            }
+            for (int i = 0; i < rejectedRows.length; i++) {
+                rejectedRows[i] |= other.rejectedRows[i];
+            }
+            orphans += other.orphans;
+            rejectionsRead += other.rejectionsRead;
+        }
+
+        void markRejected(int row) {
+            rejectedRows[row >>> 6] |= 1L << row;
+        }
+
+        boolean isRejected(int row) {
+            return (rejectedRows[row >>> 6] & (1L << row)) != 0;
+        }
+    }
+
+    // Build on the candidates, stream the rejections. A candidate ID logged more than once
+    // resolves to its latest row.
+    private static Join probeRejections(CandidateStore.Columns candidates, FileChannel channel, ForkJoinPool pool)
+            throws IOException {
+        IdTable table = new IdTable(candidates.size());
+        for (int row = 0; row < candidates.size(); row++) {
+            table.put(hash(candidates.ids[row]), row);
+        }
+
+        long size = channel.size();
+        long[] bounds = MappedCsv.chunkBoundaries(channel, 0, size, pool.getParallelism());
+        List<ForkJoinTask<Join>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            tasks.add(pool.submit(() -> probeChunk(candidates, table, channel, from, to)));
+        }
+        Join join = new Join(candidates.size());
+        for (ForkJoinTask<Join> task : tasks) {
+            join.merge(MappedCsv.join(task, tasks));
+        }
+        return join;
+    }
+
+    private static Join probeChunk(CandidateStore.Columns candidates, IdTable table, FileChannel channel,
+                                   long from, long to) throws IOException {
+        Join join = new Join(candidates.size());
+        if (to <= from) {
+            return join;
+        }
+        MappedByteBuffer buf = MappedCsv.map(channel, from, to);
+        int limit = buf.limit();
+        CsvFields fields = new CsvFields();
+        ByteStringCache reasons = new ByteStringCache();
+        int roles = candidates.roleNames.length;
+
+        int pos = 0;
+        while (pos < limit) {
+            int newline = MappedCsv.lineEnd(buf, pos, limit);
+            int end = MappedCsv.trimCarriageReturn(buf, pos, newline);
+            // Same rule as the Pareto chart: a rejection needs an ID and a reason.
+            if (fields.split(buf, pos, end) >= 2) {
+                join.rejectionsRead++;
+                int row = table.get(hash(buf, fields.start(0), fields.end(0)));
+                if (row >= 0) {
+                    join.count(reasons.intern(fields, 1), candidates.roleCodes[row], roles);
+                    join.markRejected(row);
+                } else {
+                    join.orphans++;
+                    if (join.orphanSamples.size() < MAX_ORPHAN_SAMPLES) {
+                        join.orphanSamples.add(fields.string(0).trim());
+                    }
+                }
+            }
+            pos = newline + 1;
+        }
+        return join;
+    }
+
+    // Build on the rejections, stream the candidates. All rejections for one ID are chained
+    // off a single table entry; the latest candidate row with that ID claims the chain.
+    private static Join probeCandidates(CandidateStore.Columns candidates, FileChannel channel, ForkJoinPool pool)
+            throws IOException {
+        long size = channel.size();
+        long[] bounds = MappedCsv.chunkBoundaries(channel, 0, size, pool.getParallelism());
+        List<ForkJoinTask<Rejections>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            tasks.add(pool.submit(() -> readChunk(channel, from, to)));
+        }
+        Rejections rejections = new Rejections();
+        for (ForkJoinTask<Rejections> task : tasks) {
+            rejections.append(MappedCsv.join(task, tasks));
+        }
+
+        int n = rejections.size;
+        IdTable table = new IdTable(n);
+        int[] next = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            next[i] = table.put(rejections.hashes[i], i);
+        }
+
+        Join join = new Join(candidates.size());
+        join.rejectionsRead = n;
+        boolean[] claimed = new boolean[n];
+        int roles = candidates.roleNames.length;
+        for (int row = candidates.size() - 1; row >= 0; row--) {
+            int first = table.get(hash(candidates.ids[row]));
+            if (first < 0 || claimed[first]) {
+                continue;
+            }
+            for (int i = first; i >= 0; i = next[i]) {
+                claimed[i] = true;
+                join.count(rejections.reasons[i], candidates.roleCodes[row], roles);
+            }
+            join.markRejected(row);
+        }
+        for (int i = 0; i < n; i++) {
+            if (!claimed[i]) {
+                join.orphans++;
+                if (join.orphanSamples.size() < MAX_ORPHAN_SAMPLES) {
+                    join.orphanSamples.add(readId(channel, rejections.offsets[i]));
+                }
+            }
+        }
+        return join;
+    }
+
+    // The parsed build side when it is rejections.csv: ID hash, interned reason and the line's
+    // file offset, which is only read back to print orphan IDs.
+    private static final class Rejections {
+        long[] hashes = new long[1024];
+        String[] reasons = new String[1024];
+        long[] offsets = new long[1024];
+        int size;
+
+        void add(long hash, String reason, long offset) {
+            if (size == hashes.length) {
+                grow(size * 2);
+            }
+            hashes[size] = hash;
+            reasons[size] = reason;
+            offsets[size] = offset;
+            size++;
+        }
+
+        void append(Rejections other) {
+            if (size + other.size > hashes.length) {
+                grow(Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.hashes, 0, hashes, size, other.size);
+            System.arraycopy(other.reasons, 0, reasons, size, other.size);
+            System.arraycopy(other.offsets, 0, offsets, size, other.size);
+            size += other.size;
+        }
+
+        private void grow(int capacity) {
+            hashes = Arrays.copyOf(hashes, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+    }
+
+    private static Rejections readChunk(FileChannel channel, long from, long to) throws IOException {
+        Rejections chunk = new Rejections();
+        if (to <= from) {
+            return chunk;
+        }
+        MappedByteBuffer buf = MappedCsv.map(channel, from, to);
+        int limit = buf.limit();
+        CsvFields fields = new CsvFields();
+        ByteStringCache reasons = new ByteStringCache();
+
+        int pos = 0;
+        while (pos < limit) {
+            int newline = MappedCsv.lineEnd(buf, pos, limit);
+            int end = MappedCsv.trimCarriageReturn(buf, pos, newline);
+            if (fields.split(buf, pos, end) >= 2) {
+                chunk.add(hash(buf, fields.start(0), fields.end(0)), reasons.intern(fields, 1), from + pos);
+            }
+            pos = newline + 1;
+        }
+        return chunk;
+    }
+
+    private static String readId(FileChannel channel, long offset) throws IOException {
+        ByteBuffer line = ByteBuffer.allocate(256);
+        channel.read(line, offset);
+        String text = new String(line.array(), 0, line.position(), StandardCharsets.UTF_8);
+        int comma = text.indexOf(',');
+        return ((comma >= 0) ? text.substring(0, comma) : text).trim();
+    }
+
+    // Rows in rejections.csv, extrapolated from the line lengths in its first 64 KB.
+    private static long estimateRows(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer sample = ByteBuffer.allocate((int) Math.min(size, SAMPLE_BYTES));
+        while (sample.hasRemaining() && channel.read(sample, sample.position()) > 0) {
+            // Keep reading until the sample is full.
+        }
+        int lines = 0;
+        for (int i = 0; i < sample.position(); i++) {
+            if (sample.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (lines == 0) {
+            return (size > 0) ? 1 : 0;
+        }
+        return size * lines / sample.position();
+    }
+
+    private static Funnel summarise(CandidateStore.Columns candidates, Join join, BuildSide buildSide) {
+        List<Map.Entry<String, int[]>> reasonEntries = new ArrayList<>(join.reasonsByRole.entrySet());
+        long[] reasonTotals = new long[reasonEntries.size()];
+        for (int i = 0; i < reasonTotals.length; i++) {
+            for (int count : reasonEntries.get(i).getValue()) {
+                reasonTotals[i] += count;
+            }
+        }
+        Integer[] order = new Integer[reasonEntries.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> (reasonTotals[a] != reasonTotals[b])
+                ? Long.compare(reasonTotals[b], reasonTotals[a])
+                : reasonEntries.get(a).getKey().compareTo(reasonEntries.get(b).getKey()));
+        List<String> reasons = new ArrayList<>(order.length);
+        for (Integer i : order) {
+            reasons.add(reasonEntries.get(i).getKey().trim());
+        }
+
+        // Roles are grouped by display name, so codes for the same trimmed name share a row.
+        Map<String, RoleFunnel> byRole = new HashMap<>();
+        RoleFunnel[] roleOf = new RoleFunnel[candidates.roleNames.length];
+        for (int code = 0; code < roleOf.length; code++) {
+            String role = candidates.roleNames[code];
+            String name = (role != null && !role.trim().isEmpty()) ? role.trim() : "Unassigned";
+            roleOf[code] = byRole.computeIfAbsent(name, r -> new RoleFunnel(r, order.length));
+            for (int r = 0; r < order.length; r++) {
+                int count = reasonEntries.get(order[r]).getValue()[code];
+                roleOf[code].reasonCounts[r] += count;
+                roleOf[code].rejections += count;
+            }
+        }
+
+        boolean[] acceptedStatus = new boolean[candidates.statusNames.length];
+        boolean[] rejectedStatus = new boolean[candidates.statusNames.length];
+        for (int code = 0; code < acceptedStatus.length; code++) {
+            String status = candidates.statusNames[code];
+            acceptedStatus[code] = status != null && status.trim().equalsIgnoreCase("Accepted");
+            rejectedStatus[code] = status != null && status.trim().equalsIgnoreCase("Rejected");
+        }
+
+        // A candidate has a logged reason when the row its ID resolved to was matched.
+        IdTable latest = new IdTable(candidates.size());
+        for (int row = 0; row < candidates.size(); row++) {
+            latest.put(hash(candidates.ids[row]), row);
+        }
+        int rejectedWithoutReason = 0;
+        for (int row = 0; row < candidates.size(); row++) {
+            RoleFunnel funnel = roleOf[candidates.roleCodes[row]];
+            int status = candidates.statusCodes[row];
+            funnel.applied++;
+            if (candidates.offerDays[row] != CandidateStore.PENDING) {
+                funnel.offered++;
+                if (acceptedStatus[status]) {
+                    funnel.accepted++;
+                } else if (rejectedStatus[status]) {
+                    funnel.declined++;
+                }
+            }
+            if (rejectedStatus[status] && !join.isRejected(latest.get(hash(candidates.ids[row])))) {
+                rejectedWithoutReason++;
+            }
+        }
+
+        List<RoleFunnel> roles = new ArrayList<>(byRole.values());
+        roles.sort((a, b) -> a.getRole().compareToIgnoreCase(b.getRole()));
+        RoleFunnel total = new RoleFunnel("All roles", order.length);
+        for (RoleFunnel funnel : roles) {
+            total.add(funnel);
+        }
+        return new Funnel(Collections.unmodifiableList(roles), total, Collections.unmodifiableList(reasons),
+                join.rejectionsRead, join.orphans, Collections.unmodifiableList(join.orphanSamples),
+                rejectedWithoutReason, buildSide);
+    }
+
+    // 64-bit FNV-1a over the trimmed ID, finished with a murmur-style mix. Two different IDs
+    // collide with negligible probability even for tens of millions of rows.
+    static long hash(String id) {
+        int from = 0;
+        int to = id.length();
+        while (from < to && id.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && id.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // Same value as hash(String) for the field's text; IDs are ASCII in practice, so only
+    // anything else is decoded first.
+    static long hash(ByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') {
+            to--;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b < 0) {
+                byte[] bytes = new byte[to - from];
+                for (int j = 0; j < bytes.length; j++) {
+                    bytes[j] = buf.get(from + j);
+                }
+                return hash(new String(bytes, StandardCharsets.UTF_8));
+            }
+            h = (h ^ b) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Open-addressing map from ID hash to a non-negative int, sized once for the build side.
+    static final class IdTable {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        IdTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+            mask = capacity - 1;
+        }
+
+        // Returns the value previously stored for key, or -1.
+        int put(long key, int value) {
+            int i = (int) key & mask;
+            while (values[i] >= 0) {
+                if (keys[i] == key) {
+                    int previous = values[i];
+                    values[i] = value;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return -1;
+        }
+
+        int get(long key) {
+            int i = (int) key & mask;
+            while (values[i] >= 0) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import model.Employee;
+
+// Builds a PayCube in one parallel pass. The rows are split into contiguous partitions; each
+// partition aggregates into its own table keyed by the four dimension codes packed into a long,
+// so the hot loop does no allocation and shares nothing. Codes too large to pack (more than 256
+// distinct genders or statuses, or 16M departments or roles) fall back to a hash map keyed by
+// the codes themselves. The partial tables are then decoded and merged into cells on the calling
+// thread, in partition order.
+public final class GroupByEngine {
+    private static final int MIN_PARTITION_ROWS = 16_384;
+
+    private GroupByEngine() {
+    }
+
+    public static PayCube compute(Dataset dataset) {
+        return compute(dataset, ForkJoinPool.commonPool());
+    }
+
+    public static PayCube compute(Dataset dataset, ForkJoinPool pool) {
+        try (Metrics.Timer timer = Metrics.time("groupby.compute")) {
+            int n = dataset.size();
+            timer.rows(n);
+            int partitions = Math.max(1, Math.min(pool.getParallelism() * 4, n / MIN_PARTITION_ROWS));
+
+            List<ForkJoinTask<Partial>> tasks = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int from = (int) ((long) n * p / partitions);
+                int to = (int) ((long) n * (p + 1) / partitions);
+                tasks.add(pool.submit(() -> scan(dataset, from, to)));
+            }
+
+            Map<List<String>, PayCube.Cell> cells = new HashMap<>();
+            List<PayCube.Cell> ordered = new ArrayList<>();
+            for (ForkJoinTask<Partial> task : tasks) {
+                task.join().mergeInto(cells, ordered);
+            }
+            return new PayCube(dataset.getVersion(), ordered);
+        }
+    }
+
+    private static Partial scan(Dataset dataset, int from, int to) {
+        EmployeeColumns columns = dataset.columns();
+        if (columns != null) {
+            Partial partial = new Partial(columns.departmentDictionary(), columns.roleDictionary(),
+                    columns.genderDictionary(), columns.statusDictionary());
+            for (int row = from; row < to; row++) {
+                partial.add(columns.departmentCode(row), columns.roleCode(row), columns.genderCode(row),
+                        columns.statusCode(row), columns.salary(row));
+            }
+            return partial;
+        }
+
+        // Row store: the partition builds its own dictionaries. Distinct values are few, so
+        // each lookup is a hash of a string whose hash code is already cached. Spellings of a
+        // known gender or status share one code.
+        Partial partial = new Partial(new StringDictionary(), new StringDictionary(),
+                new StringDictionary(), new StringDictionary());
+        List<Employee> employees = dataset.employees();
+        for (int row = from; row < to; row++) {
+            Employee emp = employees.get(row);
+            if (emp == null) {
+                continue;
+            }
+            Double salary = emp.getBasicSalary();
+            partial.add(partial.departments.encode(emp.getDepartment()), partial.roles.encode(emp.getRole()),
+                    partial.genders.encode(canonicalGender(emp.getGender())),
+                    partial.statuses.encode(canonicalStatus(emp.getStatus())),
+                    (salary != null) ? salary : Double.NaN);
+        }
+        return partial;
+    }
+
+    // One spelling per known class, so the class and label of the cell do not change; anything
+    // else is kept as it is.
+    private static String canonicalGender(String gender) {
+        switch (EmployeeCodes.classifyGender(gender)) {
+            case EmployeeCodes.GENDER_MALE:
+                return "M";
+            case EmployeeCodes.GENDER_FEMALE:
+                return "F";
+            default:
+                return gender;
+        }
+    }
+
+    private static String canonicalStatus(String status) {
+        byte statusClass = EmployeeCodes.classifyStatus(status);
+        return (statusClass == EmployeeCodes.STATUS_OTHER || statusClass == EmployeeCodes.STATUS_NULL)
+                ? status : statusLabel(statusClass, status);
+    }
+
+    // Department and role codes get 24 bits each, gender and status codes 8 bits each.
+    private static boolean packable(int department, int role, int gender, int status) {
+        return (department | role) >>> 24 == 0 && (gender | status) >>> 8 == 0;
+    }
+
+    private static long pack(int department, int role, int gender, int status) {
+        return ((long) department << 40) | ((long) role << 16) | ((long) gender << 8) | status;
+    }
+
+    private static final class Partial {
+        final StringDictionary departments;
+        final StringDictionary roles;
+        final StringDictionary genders;
+        final StringDictionary statuses;
+
+        // Open-addressing table from packed key to slot; slots index the parallel stat arrays.
+        private long[] keys = new long[256];
+        private int[] slotOf = new int[256];
+        private int size;
+        // Slots for codes that do not pack.
+        private final Map<List<Integer>, Integer> wideSlots = new HashMap<>();
+        private int[] slotCodes = new int[64 * 4];
+        private int[] counts = new int[64];
+        private int[] paidCounts = new int[64];
+        private double[] salarySums = new double[64];
+        private QuantileSketch[] sketches = new QuantileSketch[64];
+
+        Partial(StringDictionary departments, StringDictionary roles, StringDictionary genders, StringDictionary statuses) {
+            this.departments = departments;
+            this.roles = roles;
+            this.genders = genders;
+            this.statuses = statuses;
+            Arrays.fill(slotOf, -1);
+        }
+
+        void add(int department, int role, int gender, int status, double salary) {
+            int slot = packable(department, role, gender, status)
+                    ? slot(pack(department, role, gender, status), department, role, gender, status)
+                    : wideSlot(department, role, gender, status);
+            counts[slot]++;
+            if (!Double.isNaN(salary) && salary >= 0) {
+                paidCounts[slot]++;
+                salarySums[slot] += salary;
+                sketches[slot].add(salary);
+            }
+        }
+
+        private int slot(long key, int department, int role, int gender, int status) {
+            int mask = keys.length - 1;
+            int i = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (slotOf[i] >= 0) {
+                if (keys[i] == key) {
+                    return slotOf[i];
+                }
+                i = (i + 1) & mask;
+            }
+            int slot = newSlot(department, role, gender, status);
+            keys[i] = key;
+            slotOf[i] = slot;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return slot;
+        }
+
+        private int wideSlot(int department, int role, int gender, int status) {
+            List<Integer> codes = Arrays.asList(department, role, gender, status);
+            Integer slot = wideSlots.get(codes);
+            if (slot == null) {
+                slot = newSlot(department, role, gender, status);
+                wideSlots.put(codes, slot);
+            }
+            return slot;
+        }
+
+        private int newSlot(int department, int role, int gender, int status) {
+            if (size == counts.length) {
+                slotCodes = Arrays.copyOf(slotCodes, size * 2 * 4);
+                counts = Arrays.copyOf(counts, size * 2);
+                paidCounts = Arrays.copyOf(paidCounts, size * 2);
+                salarySums = Arrays.copyOf(salarySums, size * 2);
+                sketches = Arrays.copyOf(sketches, size * 2);
+            }
+            sketches[size] = new QuantileSketch();
+            slotCodes[size * 4] = department;
+            slotCodes[size * 4 + 1] = role;
+            slotCodes[size * 4 + 2] = gender;
+            slotCodes[size * 4 + 3] = status;
+            return size++;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldSlots = slotOf;
+            keys = new long[oldKeys.length * 2];
+            slotOf = new int[oldKeys.length * 2];
+            Arrays.fill(slotOf, -1);
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldSlots[j] < 0) {
+                    continue;
+                }
+                int i = Long.hashCode(oldKeys[j] * 0x9E3779B97F4A7C15L) & mask;
+                while (slotOf[i] >= 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                slotOf[i] = oldSlots[j];
+            }
+        }
+
+        void mergeInto(Map<List<String>, PayCube.Cell> cells, List<PayCube.Cell> ordered) {
+            for (int slot = 0; slot < size; slot++) {
+                String department = EmployeeCodes.departmentKey(departments.decode(slotCodes[slot * 4]));
+                String role = valueKey(roles.decode(slotCodes[slot * 4 + 1]));
+                String gender = genders.decode(slotCodes[slot * 4 + 2]);
+                String status = statuses.decode(slotCodes[slot * 4 + 3]);
+                byte genderClass = EmployeeCodes.classifyGender(gender);
+                byte statusClass = EmployeeCodes.classifyStatus(status);
+                String genderKey = genderLabel(genderClass, gender);
+                String statusKey = statusLabel(statusClass, status);
+
+                List<String> cellKey = Arrays.asList(department, role, genderKey, statusKey);
+                PayCube.Cell cell = cells.get(cellKey);
+                if (cell == null) {
+                    cell = new PayCube.Cell(department, role, genderKey, statusKey, genderClass, statusClass);
+                    cells.put(cellKey, cell);
+                    ordered.add(cell);
+                }
+                cell.add(counts[slot], paidCounts[slot], salarySums[slot], sketches[slot]);
+            }
+        }
+    }
+
+    static String valueKey(String value) {
+        return (value != null && !value.trim().isEmpty()) ? value.trim() : "Unassigned";
+    }
+
+    private static String genderLabel(byte genderClass, String gender) {
+        switch (genderClass) {
+            case EmployeeCodes.GENDER_MALE:
+                return "M";
+            case EmployeeCodes.GENDER_FEMALE:
+                return "F";
+            case EmployeeCodes.GENDER_NULL:
+                return "Not stated";
+            default:
+                return valueKey(gender);
+        }
+    }
+
+    private static String statusLabel(byte statusClass, String status) {
+        switch (statusClass) {
+            case EmployeeCodes.STATUS_ACTIVE:
+                return "Active";
+            case EmployeeCodes.STATUS_PROBATION:
+                return "Probation";
+            case EmployeeCodes.STATUS_NOTICE_PERIOD:
+                return "Notice Period";
+            case EmployeeCodes.STATUS_EXITED:
+                return "Exited";
+            case EmployeeCodes.STATUS_NULL:
+                return "Not stated";
+            default:
+                return valueKey(status);
+        }
+    }
+}
@@ -1,322 +1,1028 @@
 package service;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import model.Candidate;
 import model.Employee;
 
 public class HRSystem {
-    private List<Employee> employeeList = new ArrayList<>();
+    private static final long PARALLEL_LOAD_THRESHOLD_BYTES = 8L * 1024 * 1024;
+    private static final String CANDIDATES_FILE = "candidates.csv";
+    private static final String REJECTIONS_FILE = "rejections.csv";
+    private static final int MAX_DUPLICATE_WARNINGS = 20;
+    // Journal records that trigger a background checkpoint into a fresh master.
+    private static final int CHECKPOINT_RECORDS = 1000;
+
+    private volatile Dataset dataset = Dataset.empty();
+    private boolean columnarStore;
+    private boolean snapshotEnabled = true;
     private Scanner scanner;
+    private final ParetoTracker paretoTracker = new ParetoTracker(REJECTIONS_FILE);
+    private volatile CandidateStore candidateStore = new CandidateStore();
+    private AppendLog.Durability logDurability = AppendLog.Durability.NONE;
+    private long logSyncIntervalMillis = 1000;
+    private AppendLog candidateLog;
+    private AppendLog rejectionLog;
+    // Persistent ID indexes next to the two logs, opened with them; see idIndex().
+    private IdIndex candidateIndex;
+    private IdIndex rejectionIndex;
+    private volatile DatasetWatcher watcher;
+    // Lock order: masterLock, then editLock. masterLock keeps a reload from reading the master
+    // while a checkpoint replaces it; editLock orders journal appends with the dataset swaps.
+    private final Object masterLock = new Object();
+    private final Object editLock = new Object();
+    private volatile ChangeJournal journal;
+    private ExecutorService checkpointer;
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean();
 
     public HRSystem(Scanner scanner) {
         this.scanner = scanner;
     }
 
-    public void loadData(String filePath) {
+    public boolean loadData(String filePath) {
+        return loadData(filePath, LoadMode.AUTO);
+    }
+
+    public void setColumnarStore(boolean columnarStore) {
+        this.columnarStore = columnarStore;
+    }
+
+    public void setSnapshotEnabled(boolean snapshotEnabled) {
+        this.snapshotEnabled = snapshotEnabled;
+    }
+
+    // Takes effect for logs opened after the call, i.e. before the first candidate or rejection.
+    public void setLogDurability(AppendLog.Durability durability, long syncIntervalMillis) {
+        this.logDurability = durability;
+        this.logSyncIntervalMillis = syncIntervalMillis;
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    ParetoTracker paretoTracker() {
+        return paretoTracker;
+    }
+
+    public CandidateStore getCandidateStore() {
+        return candidateStore;
+    }
+
+    // Reads the candidate history once; candidates logged or imported afterwards are added to
+    // the store as they are written.
+    public void loadCandidates() {
+        candidateStore = CandidateStore.load(CANDIDATES_FILE);
+        if (candidateStore.size() > 0) {
+            System.out.println("Loaded " + candidateStore.size() + " candidates from " + CANDIDATES_FILE + ".");
+        }
+    }
+
+    public AnalyticsSnapshot analytics() {
+        return dataset.analytics(LocalDate.now());
+    }
+
+    // Returns false when the file could not be read at all; skipped rows do not count as failure.
+    public boolean loadData(String filePath, LoadMode mode) {
         if (filePath == null || filePath.trim().isEmpty()) {
             System.err.println("[ERROR] File path cannot be null or empty.");
-            return;
+            return false;
         }
 
         System.out.println("Reading data from: " + filePath);
 
+        ChangeJournal changes;
+        synchronized (masterLock) {
+            Dataset loadedDataset = readDataset(filePath, mode, dataset);
+            if (loadedDataset == null) {
+                return false;
+            }
+            synchronized (editLock) {
+                changes = journalFor(filePath);
+                dataset = changes.replay(loadedDataset);
+            }
+        }
+        if (changes.getPendingRecords() >= CHECKPOINT_RECORDS) {
+            scheduleCheckpoint();
+        }
+        return true;
+    }
+
+    private ChangeJournal journalFor(String filePath) {
+        ChangeJournal current = journal;
+        if (current != null && current.getMasterPath().equals(filePath)) {
+            return current;
+        }
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                System.err.println("[WARN] Failed to close " + current.getPath() + ": " + e.getMessage());
+            }
+        }
+        journal = new ChangeJournal(filePath, logDurability, logSyncIntervalMillis);
+        return journal;
+    }
+
+    // Replaces the loaded master with a fresh read of filePath. The new dataset is built on the
+    // calling thread and published with a single volatile write: reports that already hold the
+    // old dataset finish on it, later ones see the new one, and if the file cannot be read the
+    // old dataset simply stays in place.
+    public boolean reloadData(String filePath) {
+        System.out.println("\n[INFO] " + filePath + " changed. Reloading employee master in the background...");
+        synchronized (masterLock) {
+            Dataset reloaded = readDataset(filePath, LoadMode.AUTO, Dataset.empty());
+            if (reloaded == null) {
+                System.err.println("[WARN] Reload of " + filePath + " failed. Keeping the previously loaded data.");
+                return false;
+            }
+            // An export with no valid rows is far more likely to be broken than a real headcount of zero.
+            if (reloaded.isEmpty() && !dataset.isEmpty()) {
+                System.err.println("[WARN] " + filePath + " has no valid employee rows. Keeping the previously loaded data.");
+                return false;
+            }
+            // Edits since the last checkpoint still apply on top of the new master.
+            synchronized (editLock) {
+                reloaded = journalFor(filePath).replay(reloaded);
+                dataset = reloaded;
+            }
+            System.out.println("[INFO] Employee master reloaded: " + reloaded.size() + " employees.");
+            return true;
+        }
+    }
+
+    // Watches filePath and reloads it whenever it changes, until shutdown().
+    public synchronized void startWatching(String filePath) {
+        if (watcher != null) {
+            return;
+        }
+        try {
+            watcher = new DatasetWatcher(filePath, () -> reloadData(filePath));
+        } catch (IOException e) {
+            System.err.println("[WARN] Cannot watch " + filePath + " for changes: " + e.getMessage());
+        }
+    }
+
+    // Reads filePath on top of the employees in base and returns the resulting dataset without
+    // publishing it, or null when the file could not be read.
+    private Dataset readDataset(String filePath, LoadMode mode, Dataset base) {
+        // Snapshots only describe a master loaded on its own, not one appended to existing data.
+        boolean useSnapshot = snapshotEnabled && base.isEmpty();
+        if (useSnapshot) {
+            Dataset fromSnapshot = loadSnapshot(filePath);
+            if (fromSnapshot != null) {
+                return fromSnapshot;
+            }
+        }
+        EmployeeSnapshot.Source source = useSnapshot ? statSource(filePath) : null;
+
+        List<Employee> employeeList = new ArrayList<>(base.employees());
+
+        if (mode == LoadMode.AUTO) {
+            File file = new File(filePath);
+            mode = (file.length() >= PARALLEL_LOAD_THRESHOLD_BYTES) ? LoadMode.PARALLEL_MAPPED : LoadMode.SEQUENTIAL;
+        }
+        boolean loaded;
+        try (Quarantine quarantine = Quarantine.forFile(filePath)) {
+            loaded = (mode == LoadMode.PARALLEL_MAPPED)
+                    ? loadDataParallel(filePath, employeeList, quarantine)
+                    : loadDataSequential(filePath, employeeList, quarantine);
+        }
+        if (!loaded) {
+            return null;
+        }
+
+        Dataset loadedDataset = buildDataset(employeeList);
+        reportDuplicateIds(loadedDataset.index());
+        indexNames(loadedDataset);
+        if (source != null) {
+            saveSnapshot(filePath, source, loadedDataset);
+        }
+        return loadedDataset;
+    }
+
+    private Dataset loadSnapshot(String filePath) {
+        Path csv = Paths.get(filePath);
+        if (!Files.isRegularFile(csv)) {
+            return null;
+        }
+        Path snapshot = EmployeeSnapshot.pathFor(filePath);
+        try (Metrics.Timer timer = Metrics.time("load.snapshot")) {
+            EmployeeColumns columns = EmployeeSnapshot.read(csv, snapshot);
+            if (columns == null) {
+                return null;
+            }
+            Dataset loadedDataset = columnarStore
+                    ? Dataset.ofColumns(columns)
+                    : Dataset.ofRows(new ArrayList<>(columns.asList()));
+            timer.rows(loadedDataset.size());
+            reportDuplicateIds(loadedDataset.index());
+            indexNames(loadedDataset);
+            System.out.println("Successfully loaded " + loadedDataset.size() + " employees from snapshot " + snapshot + ".");
+            return loadedDataset;
+        } catch (IOException e) {
+            System.err.println("[WARN] Ignoring snapshot " + snapshot + " (" + e.getMessage() + "). Reading CSV instead.");
+            return null;
+        }
+    }
+
+    private static EmployeeSnapshot.Source statSource(String filePath) {
+        try {
+            return EmployeeSnapshot.stat(Paths.get(filePath));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Skipped silently when the CSV changed while it was being parsed; the next load retries.
+    private void saveSnapshot(String filePath, EmployeeSnapshot.Source before, Dataset loadedDataset) {
+        Path snapshot = EmployeeSnapshot.pathFor(filePath);
+        try (Metrics.Timer timer = Metrics.time("snapshot.write")) {
+            timer.rows(loadedDataset.size());
+            EmployeeSnapshot.Source source = EmployeeSnapshot.describe(Paths.get(filePath));
+            if (!source.sameFile(before)) {
+                return;
+            }
+            EmployeeColumns columns = (loadedDataset.columns() != null)
+                    ? loadedDataset.columns()
+                    : EmployeeColumns.from(loadedDataset.employees());
+            EmployeeSnapshot.write(snapshot, source, columns);
+        } catch (IllegalStateException e) {
+            System.err.println("[WARN] Snapshot not written: " + e.getMessage() + ".");
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to write snapshot " + snapshot + ": " + e.getMessage());
+        }
+    }
+
+    private void reportDuplicateIds(EmployeeIndex index) {
+        List<String> duplicates = index.getDuplicateIds();
+        for (int i = 0; i < Math.min(duplicates.size(), MAX_DUPLICATE_WARNINGS); i++) {
+            System.err.println("[WARN] Duplicate employee ID '" + duplicates.get(i) + "'. Lookups will return the first record.");
+        }
+        if (duplicates.size() > MAX_DUPLICATE_WARNINGS) {
+            System.err.println("[WARN] " + (duplicates.size() - MAX_DUPLICATE_WARNINGS) + " more duplicate employee IDs not shown.");
+        }
+    }
+
+    // Built with the data rather than on the first search, which would otherwise pay for it.
+    private static void indexNames(Dataset loadedDataset) {
+        try (Metrics.Timer timer = Metrics.time("index.names")) {
+            timer.rows(loadedDataset.size());
+            loadedDataset.nameIndex();
+        }
+    }
+
+    private Dataset buildDataset(List<Employee> employeeList) {
+        if (columnarStore && !employeeList.isEmpty()) {
+            try {
+                return Dataset.ofColumns(EmployeeColumns.from(employeeList));
+            } catch (IllegalStateException e) {
+                System.err.println("[WARN] Columnar store unavailable (" + e.getMessage() + "). Using row store.");
+            }
+        }
+        return Dataset.ofRows(employeeList);
+    }
+
+    private boolean loadDataParallel(String filePath, List<Employee> employeeList, Quarantine quarantine) {
+        try (Metrics.Timer timer = Metrics.time("load.parallel")) {
+            ParallelEmployeeLoader.Result result = new ParallelEmployeeLoader().load(filePath, quarantine);
+            employeeList.addAll(result.getEmployees());
+            timer.rows(result.getEmployees().size())
+                 .failures(result.getSkipped())
+                 .allocatedElsewhere(result.getWorkerAllocatedBytes());
+            System.out.println("Successfully loaded " + employeeList.size() + " employees.");
+            return true;
+        } catch (NoSuchFileException e) {
+            System.err.println("[ERROR] File not found: " + filePath + ". Please verify the path and try again.");
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to read file: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private boolean loadDataSequential(String filePath, List<Employee> employeeList, Quarantine quarantine) {
+        try (Metrics.Timer timer = Metrics.time("load.sequential")) {
+            int before = employeeList.size();
+            long skipped = readEmployees(filePath, employeeList::add, quarantine);
+            if (skipped < 0) {
+                return false;
+            }
+            timer.rows(employeeList.size() - before).failures(skipped);
+        }
+        System.out.println("Successfully loaded " + employeeList.size() + " employees.");
+        return true;
+    }
+
+    // Parses the master line by line and hands every valid record to the consumer; the rest go
+    // to the quarantine. Returns the number of rows skipped, or -1 when the file could not be read.
+    private static long readEmployees(String filePath, Consumer<Employee> consumer, Quarantine quarantine) {
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
             int lineNumber = 1;
+            long skipped = 0;
 
             br.readLine();
 
             while ((line = br.readLine()) != null) {
                 lineNumber++;
                 if (line.trim().isEmpty()) {
-                    System.err.println("[WARN] Skipping blank line at row " + lineNumber);
+                    quarantine.reject(lineNumber, RowError.BLANK_LINE, null, line);
+                    skipped++;
                     continue;
                 }
 
+                Employee emp;
                 try {
-                    Employee emp = Employee.fromCSV(line);
+                    emp = Employee.fromCSV(line);
                     if (emp == null) {
-                        System.err.println("[WARN] Null employee returned for row " + lineNumber + ". Skipping.");
+                        quarantine.reject(lineNumber, RowError.NULL_RECORD, null, line);
+                        skipped++;
                         continue;
                     }
-                    employeeList.add(emp);
-                } catch (IllegalArgumentException e) {
-                    System.err.println("[WARN] Malformed data at row " + lineNumber + ": " + e.getMessage() + ". Skipping record.");
                 } catch (Exception e) {
-                    System.err.println("[WARN] Unexpected error parsing row " + lineNumber + ": " + e.getMessage() + ". Skipping record.");
+                    RowError cause = RowError.classify(e);
+                    // The JIT drops the message of frequently thrown index exceptions, so describe the row instead.
+                    String detail = (cause == RowError.MISSING_FIELDS)
+                            ? line.split(",").length + " of " + ParallelEmployeeLoader.FIELD_COUNT + " fields"
+                            : e.getMessage();
+                    quarantine.reject(lineNumber, cause, detail, line);
+                    skipped++;
+                    continue;
                 }
+                consumer.accept(emp);
             }
-
-            System.out.println("Successfully loaded " + employeeList.size() + " employees.");
+            return skipped;
 
         } catch (FileNotFoundException e) {
             System.err.println("[ERROR] File not found: " + filePath + ". Please verify the path and try again.");
         } catch (IOException e) {
             System.err.println("[ERROR] Failed to read file: " + e.getMessage());
         }
+        return -1;
     }
 
     public void listAllEmployees() {
-        System.out.println("\n--- EMPLOYEE DIRECTORY ---");
+        listAllEmployees(System.out);
+    }
 
-        if (employeeList == null || employeeList.isEmpty()) {
-            System.out.println("[INFO] No employee records found. Please load data first.");
-            return;
+    public void listAllEmployees(PrintStream out) {
+        try (Metrics.Timer timer = Metrics.time("report.directory")) {
+            out.println("\n--- EMPLOYEE DIRECTORY ---");
+
+            Dataset current = dataset;
+            if (current.isEmpty()) {
+                out.println("[INFO] No employee records found. Please load data first.");
+                return;
+            }
+
+            try {
+                ReportWriter writer = directoryWriter(out, ReportWriter.Format.TEXT);
+                timer.rows(current.size());
+                writeDirectoryRows(writer, current, 0, current.size(), LocalDate.now());
+                writer.finish();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to write employee directory: " + e.getMessage());
+            }
         }
+    }
 
-        System.out.printf("%-10s | %-20s | %-15s | %-10s%n", "ID", "Name", "Department", "Tenure");
-        System.out.println("------------------------------------------------------------------");
+    // Prints one page of the directory (pages are numbered from 1) and returns the page count.
+    public int listEmployeesPage(PrintStream out, int page, int pageSize) {
+        try (Metrics.Timer timer = Metrics.time("report.directory.page")) {
+            Dataset current = dataset;
+            int pages = Math.max(1, (current.size() + pageSize - 1) / pageSize);
+            int from = (Math.min(Math.max(page, 1), pages) - 1) * pageSize;
+            int to = Math.min(from + pageSize, current.size());
+
+            out.println("\n--- EMPLOYEE DIRECTORY (Page " + (from / pageSize + 1) + " of " + pages + ") ---");
+            if (current.isEmpty()) {
+                out.println("[INFO] No employee records found. Please load data first.");
+                return pages;
+            }
 
-        for (Employee emp : employeeList) {
             try {
-                if (emp == null) {
-                    System.err.println("[WARN] Encountered a null employee entry. Skipping.");
-                    continue;
-                }
-                System.out.printf("%-10s | %-20s | %-15s | %d Years%n",
-                        nullSafe(emp.getId()),
-                        nullSafe(emp.getFullName()),
-                        nullSafe(emp.getDepartment()),
-                        emp.getTenureYears());
-            } catch (Exception e) {
-                System.err.println("[WARN] Error displaying employee record: " + e.getMessage() + ". Skipping.");
+                ReportWriter writer = directoryWriter(out, ReportWriter.Format.TEXT);
+                timer.rows(to - from);
+                writeDirectoryRows(writer, current, from, to, LocalDate.now());
+                writer.finish();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to write employee directory: " + e.getMessage());
             }
+            out.println("Showing " + (from + 1) + "-" + to + " of " + current.size() + " employees.");
+            return pages;
         }
     }
 
-    public void generateDepartmentReport() {
-        System.out.println("\n--- Workforce Distribution ---");
+    public boolean exportDirectory(String path, ReportWriter.Format format) {
+        try (Metrics.Timer timer = Metrics.time("export.directory")) {
+            Dataset current = dataset;
+            try (ReportWriter writer = directoryWriter(exportSink(path), format)) {
+                timer.rows(current.size());
+                writeDirectoryRows(writer, current, 0, current.size(), LocalDate.now());
+                writer.finish();
+                System.out.println("Exported " + writer.getRowCount() + " employees to " + path);
+                return true;
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to export employee directory: " + e.getMessage());
+                return false;
+            }
+        }
+    }
 
-        if (employeeList == null || employeeList.isEmpty()) {
-            System.out.println("[INFO] No employee data available to generate department report.");
-            return;
+    private static ReportWriter directoryWriter(Appendable sink, ReportWriter.Format format) throws IOException {
+        ReportWriter writer = (format == ReportWriter.Format.TEXT)
+                ? new ReportWriter(sink, format, new String[] {"ID", "Name", "Department", "Tenure"},
+                        new int[] {10, 20, 15, 10}, new String[] {null, null, null, " Years"})
+                : new ReportWriter(sink, format, new String[] {"id", "name", "department", "tenureYears"},
+                        null, null);
+        writer.header("------------------------------------------------------------------");
+        return writer;
+    }
+
+    // Directory rows from..to as a JSON array, for the report server.
+    static void writeDirectoryJson(Appendable sink, Dataset current, int from, int to, LocalDate today) throws IOException {
+        ReportWriter writer = directoryWriter(sink, ReportWriter.Format.JSON);
+        writeDirectoryRows(writer, current, from, to, today);
+        writer.finish();
+    }
+
+    private static void writeDirectoryRows(ReportWriter writer, Dataset current, int from, int to, LocalDate today) throws IOException {
+        for (int row = from; row < to; row++) {
+            writeDirectoryRow(writer, current.id(row), current.fullName(row), current.department(row),
+                    current.joiningEpochDay(row), today);
         }
+    }
 
-        java.util.HashMap<String, Integer> deptCount = new java.util.HashMap<>();
+    private static void writeDirectoryRow(ReportWriter writer, String id, String name, String department,
+                                          long joined, LocalDate today) throws IOException {
+        writer.beginRow();
+        writer.cell(id);
+        writer.cell(name);
+        writer.cell(department);
+        writer.cell(Tenure.years(joined, today));
+        writer.endRow();
+    }
 
-        for (Employee emp : employeeList) {
-            try {
-                if (emp == null || emp.getStatus() == null) {
-                    System.err.println("[WARN] Skipping record with null employee or status.");
-                    continue;
-                }
+    // The employee with this ID, or null.
+    public Employee getEmployee(String id) {
+        Dataset current = dataset;
+        int row = current.index().findRow(id == null ? null : id.trim());
+        return (row < 0) ? null : current.employees().get(row);
+    }
 
-                if (emp.getStatus().equalsIgnoreCase("Active")) {
-                    String dept = (emp.getDepartment() != null && !emp.getDepartment().trim().isEmpty())
-                            ? emp.getDepartment().trim()
-                            : "Unassigned";
-                    deptCount.put(dept, deptCount.getOrDefault(dept, 0) + 1);
-                }
-            } catch (Exception e) {
-                System.err.println("[WARN] Error processing employee for department report: " + e.getMessage() + ". Skipping.");
+    // Point lookup through the ID index; returns false when no such employee exists.
+    public boolean findEmployee(PrintStream out, String id) {
+        Dataset current = dataset;
+        int row = current.index().findRow(id == null ? null : id.trim());
+        if (row < 0) {
+            out.println("[INFO] No employee found with ID '" + id + "'.");
+            return false;
+        }
+
+        Employee emp = current.employees().get(row);
+        out.println("\n--- EMPLOYEE PROFILE ---");
+        out.println("ID          : " + emp.getId());
+        out.println("Name        : " + emp.getFullName());
+        out.println("Gender      : " + nullSafe(emp.getGender()));
+        out.println("Department  : " + nullSafe(emp.getDepartment()));
+        out.println("Role        : " + nullSafe(emp.getRole()));
+        out.println("Joining Date: " + emp.getJoiningDate());
+        out.println("Status      : " + nullSafe(emp.getStatus()));
+        out.println("Tenure      : " + Tenure.years(current.joiningEpochDay(row), LocalDate.now()) + " Years");
+        return true;
+    }
+
+    // Lists employees matching a department and/or status (null or blank means any), using the
+    // posting lists so the cost follows the number of matches. Returns the number listed.
+    public int listEmployeesFiltered(PrintStream out, String department, String status) {
+        try (Metrics.Timer timer = Metrics.time("lookup.filter")) {
+            boolean byDepartment = department != null && !department.trim().isEmpty();
+            boolean byStatus = status != null && !status.trim().isEmpty();
+            Dataset current = dataset;
+            EmployeeIndex index = current.index();
+
+            int[] rows;
+            String title;
+            if (byDepartment && byStatus) {
+                rows = index.rowsByDepartmentAndStatus(department, status);
+                title = "Department: " + department.trim() + ", Status: " + status.trim();
+            } else if (byDepartment) {
+                rows = index.rowsByDepartment(department);
+                title = "Department: " + department.trim();
+            } else if (byStatus) {
+                rows = index.rowsByStatus(status);
+                title = "Status: " + status.trim();
+            } else {
+                out.println("[INFO] Enter a department, a status, or both.");
+                return 0;
+            }
+
+            timer.rows(rows.length);
+            out.println("\n--- EMPLOYEES (" + title + ") ---");
+            if (rows.length == 0) {
+                out.println("[INFO] No matching employees.");
+                return 0;
             }
+
+            writeEmployeeRows(out, current, rows);
+            out.println("Matched " + rows.length + " of " + current.size() + " employees.");
+            return rows.length;
         }
+    }
 
-        if (deptCount.isEmpty()) {
-            System.out.println("[INFO] No active employees found for department grouping.");
-            return;
+    // Ranked search on name words and IDs: exact matches, then prefixes, then near misses.
+    // Returns the number of matches listed.
+    public int searchEmployees(PrintStream out, String query, int limit) {
+        try (Metrics.Timer timer = Metrics.time("lookup.search")) {
+            if (query == null || query.trim().isEmpty()) {
+                out.println("[INFO] Enter part of a name or an employee ID.");
+                return 0;
+            }
+            Dataset current = dataset;
+            int[] rows = current.nameIndex().search(query, limit);
+            timer.rows(rows.length);
+
+            out.println("\n--- SEARCH RESULTS (" + query.trim() + ") ---");
+            if (rows.length == 0) {
+                out.println("[INFO] No employee name or ID matches '" + query.trim() + "'.");
+                return 0;
+            }
+            writeEmployeeRows(out, current, rows);
+            out.println("Showing the best " + rows.length + " matches.");
+            return rows.length;
         }
+    }
 
-        for (java.util.Map.Entry<String, Integer> entry : deptCount.entrySet()) {
-            System.out.printf("%-15s: %d Employees%n", entry.getKey(), entry.getValue());
+    private static void writeEmployeeRows(PrintStream out, Dataset current, int[] rows) {
+        try {
+            ReportWriter writer = new ReportWriter(out, ReportWriter.Format.TEXT,
+                    new String[] {"ID", "Name", "Department", "Role", "Status", "Tenure"},
+                    new int[] {10, 20, 15, 20, 14, 10}, new String[] {null, null, null, null, null, " Years"});
+            writer.header("--------------------------------------------------------------------------------------------------------");
+            LocalDate today = LocalDate.now();
+            for (int row : rows) {
+                writer.beginRow();
+                writer.cell(current.id(row));
+                writer.cell(current.fullName(row));
+                writer.cell(current.department(row));
+                writer.cell(current.role(row));
+                writer.cell(current.status(row));
+                writer.cell(Tenure.years(current.joiningEpochDay(row), today));
+                writer.endRow();
+            }
+            writer.finish();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to write employee list: " + e.getMessage());
         }
     }
 
-    public void generateAttritionReport() {
-        System.out.println("\n--- Attrition Analysis ---");
+    private static Appendable exportSink(String path) throws IOException {
+        return new java.io.BufferedWriter(new java.io.OutputStreamWriter(
+                new java.io.FileOutputStream(path), java.nio.charset.StandardCharsets.UTF_8), 1 << 16);
+    }
 
-        if (employeeList == null || employeeList.isEmpty()) {
-            System.out.println("[INFO] No employee data available to generate attrition report.");
-            return;
-        }
+    public void generateDepartmentReport() {
+        generateDepartmentReport(System.out);
+    }
 
-        int totalHires = employeeList.size();
-        int exitedCount = 0;
-        int noticePeriodCount = 0;
-        int activeCount = 0;
+    public void generateDepartmentReport(PrintStream out) {
+        generateDepartmentReport(out, analytics());
+    }
 
-        for (Employee emp : employeeList) {
-            try {
-                if (emp == null || emp.getStatus() == null) {
-                    System.err.println("[WARN] Skipping record with null employee or status in attrition report.");
-                    continue;
-                }
+    public void generateDepartmentReport(PrintStream out, AnalyticsSnapshot snapshot) {
+        try (Metrics.Timer timer = Metrics.time("report.headcount")) {
+            timer.rows(snapshot.getTotalHires());
+            out.println("\n--- Workforce Distribution ---");
 
-                String status = emp.getStatus().trim();
+            if (snapshot.getTotalHires() == 0) {
+                out.println("[INFO] No employee data available to generate department report.");
+                return;
+            }
 
-                if (status.equalsIgnoreCase("Exited")) {
-                    exitedCount++;
-                } else if (status.equalsIgnoreCase("Notice Period")) {
-                    noticePeriodCount++;
-                } else if (status.equalsIgnoreCase("Active") || status.equalsIgnoreCase("Probation")) {
-                    activeCount++;
-                } else {
-                    System.err.println("[WARN] Unrecognised status '" + status + "' for employee ID: " + nullSafe(emp.getId()) + ". Excluded from counts.");
-                }
-            } catch (Exception e) {
-                System.err.println("[WARN] Error processing employee for attrition report: " + e.getMessage() + ". Skipping.");
+            java.util.Map<String, Integer> deptCount = snapshot.getHeadcountByDepartment();
+
+            if (deptCount.isEmpty()) {
+                out.println("[INFO] No active employees found for department grouping.");
+                return;
             }
-        }
 
-        double turnoverRate = 0.0;
-        try {
-            if (totalHires > 0) {
-                turnoverRate = ((double) exitedCount / totalHires) * 100;
+            for (java.util.Map.Entry<String, Integer> entry : deptCount.entrySet()) {
+                out.printf("%-15s: %d Employees%n", entry.getKey(), entry.getValue());
             }
-        } catch (ArithmeticException e) {
-            System.err.println("[ERROR] Failed to calculate turnover rate: " + e.getMessage());
         }
+    }
+
+    public void generateAttritionReport() {
+        generateAttritionReport(System.out);
+    }
+
+    public void generateAttritionReport(PrintStream out) {
+        generateAttritionReport(out, analytics());
+    }
 
-        System.out.printf("Total Historical Hires : %d%n", totalHires);
-        System.out.printf("Current Active Staff   : %d%n", activeCount + noticePeriodCount);
-        System.out.printf("Employees Exited       : %d%n", exitedCount);
-        System.out.printf("Flight Risk Headcount  : %d (Serving Notice Period)%n", noticePeriodCount);
-        System.out.println("--------------------------------------------------");
-        System.out.printf("Overall Turnover Rate  : %.1f%%%n", turnoverRate);
+    public void generateAttritionReport(PrintStream out, AnalyticsSnapshot snapshot) {
+        try (Metrics.Timer timer = Metrics.time("report.attrition")) {
+            timer.rows(snapshot.getTotalHires());
+            out.println("\n--- Attrition Analysis ---");
 
-        double controlLimit = 15.0;
-        if (turnoverRate > controlLimit) {
-            System.out.println("⚠️ [WARNING] Turnover exceeds " + controlLimit + "% control limit.");
-            System.out.println("   -> Root Cause Analysis (DMAIC) required for retention process.");
-        } else {
-            System.out.println("✅ [STATUS] Retention process is within acceptable control limits.");
+            if (snapshot.getTotalHires() == 0) {
+                out.println("[INFO] No employee data available to generate attrition report.");
+                return;
+            }
+
+            double turnoverRate = snapshot.getTurnoverRate();
+
+            out.printf("Total Historical Hires : %d%n", snapshot.getTotalHires());
+            out.printf("Current Active Staff   : %d%n", snapshot.getActiveCount() + snapshot.getNoticePeriodCount());
+            out.printf("Employees Exited       : %d%n", snapshot.getExitedCount());
+            out.printf("Flight Risk Headcount  : %d (Serving Notice Period)%n", snapshot.getNoticePeriodCount());
+            out.println("--------------------------------------------------");
+            out.printf("Overall Turnover Rate  : %.1f%%%n", turnoverRate);
+
+            double controlLimit = 15.0;
+            if (turnoverRate > controlLimit) {
+                out.println("⚠️ [WARNING] Turnover exceeds " + controlLimit + "% control limit.");
+                out.println("   -> Root Cause Analysis (DMAIC) required for retention process.");
+            } else {
+                out.println("✅ [STATUS] Retention process is within acceptable control limits.");
+            }
         }
     }
 
     public void generatePayParityReport() {
-        System.out.println("\n--- DE&I Analytics: Pay Parity Report ---");
+        generatePayParityReport(System.out);
+    }
 
-        if (employeeList == null || employeeList.isEmpty()) {
-            System.out.println("[INFO] No employee data available to generate pay parity report.");
-            return;
+    public void generatePayParityReport(PrintStream out) {
+        generatePayParityReport(out, analytics());
+    }
+
+    public void generatePayParityReport(PrintStream out, AnalyticsSnapshot snapshot) {
+        try (Metrics.Timer timer = Metrics.time("report.parity")) {
+            timer.rows(snapshot.getTotalHires());
+            out.println("\n--- DE&I Analytics: Pay Parity Report ---");
+
+            if (snapshot.getTotalHires() == 0) {
+                out.println("[INFO] No employee data available to generate pay parity report.");
+                return;
+            }
+
+            double parityRatio = snapshot.getParityRatio();
+            if (snapshot.getAvgMaleSalary() <= 0) {
+                out.println("[INFO] No male salary data available; parity ratio cannot be computed.");
+            }
+
+            out.printf("Male Workforce   : %d employees | Avg Salary: ₹%,.2f%n", snapshot.getMaleCount(), snapshot.getAvgMaleSalary());
+            out.printf("Female Workforce : %d employees | Avg Salary: ₹%,.2f%n", snapshot.getFemaleCount(), snapshot.getAvgFemaleSalary());
+            out.printf("Male Salary      : p10 ₹%,.0f | Median ₹%,.0f | p90 ₹%,.0f%n", snapshot.getMaleSalaryQuantile(0.1),
+                    snapshot.getMaleSalaryQuantile(0.5), snapshot.getMaleSalaryQuantile(0.9));
+            out.printf("Female Salary    : p10 ₹%,.0f | Median ₹%,.0f | p90 ₹%,.0f%n", snapshot.getFemaleSalaryQuantile(0.1),
+                    snapshot.getFemaleSalaryQuantile(0.5), snapshot.getFemaleSalaryQuantile(0.9));
+            out.println("---------------------------------------------------------");
+            out.printf("Org-Wide Parity Ratio: %.1f%%%n", parityRatio);
+            out.printf("Median Parity Ratio  : %.1f%%%n", snapshot.getMedianParityRatio());
+
+            if (parityRatio >= 98.0 && parityRatio <= 102.0) {
+                out.println("✅ [EQUITABLE] Pay is balanced across genders.");
+            } else if (parityRatio > 0 && parityRatio < 98.0) {
+                out.println("⚠️ [BIAS ALERT] Women earn roughly " + Math.round(parityRatio) + " cents for every ₹1 earned by men.");
+                out.println("   -> Recommendation: Conduct a role-by-role compensation audit.");
+            } else if (parityRatio > 102.0) {
+                out.println("⚠️ [BIAS ALERT] Men earn less on average than female counterparts.");
+            }
         }
+    }
+
+    public void generateGratuityReport() {
+        generateGratuityReport(System.out);
+    }
 
-        double totalMaleSalary = 0;
-        double totalFemaleSalary = 0;
-        int maleCount = 0;
-        int femaleCount = 0;
+    public void generateGratuityReport(PrintStream out) {
+        try (Metrics.Timer timer = Metrics.time("report.gratuity")) {
+            out.println("\n--- COMPLIANCE & REWARDS: 5-YEAR TENURE FLAG ---");
 
-        for (Employee emp : employeeList) {
+            Dataset current = dataset;
+            if (current.isEmpty()) {
+                out.println("[INFO] No employee data available to generate gratuity report.");
+                return;
+            }
+
+            AnalyticsSnapshot snapshot = current.analytics(LocalDate.now());
+
+            int eligibleCount = snapshot.getGratuityEligibleCount();
+            timer.rows(eligibleCount);
             try {
-                if (emp == null || emp.getStatus() == null || emp.getGender() == null) {
-                    System.err.println("[WARN] Skipping record with null employee, status, or gender.");
-                    continue;
-                }
+                ReportWriter writer = gratuityWriter(out, ReportWriter.Format.TEXT);
+                writeGratuityRows(writer, current, snapshot, 0, snapshot.getGratuityEligibleCount());
+                writer.finish();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to write gratuity report: " + e.getMessage());
+            }
 
-                String status = emp.getStatus().trim();
-                if (status.equalsIgnoreCase("Active") || status.equalsIgnoreCase("Probation") || status.equalsIgnoreCase("Notice Period")) {
+            gratuityFooter(out, eligibleCount);
+        }
+    }
 
-                    double salary = emp.getBasicSalary();
-                    if (salary < 0) {
-                        System.err.println("[WARN] Negative salary detected for employee ID: " + nullSafe(emp.getId()) + ". Skipping.");
-                        continue;
-                    }
+    private static void gratuityFooter(PrintStream out, int eligibleCount) {
+        out.println("-------------------------------------------------------------------");
+        out.println("Total Eligible Employees: " + eligibleCount);
+
+        if (eligibleCount > 0) {
+            out.println("✅ [ACTION REQUIRED] Notify Finance for gratuity provisioning.");
+            out.println("✅ [ACTION REQUIRED] Trigger 5-Year Service Award workflows.");
+        } else {
+            out.println("No employees are currently eligible for the 5-year milestone.");
+        }
+    }
+
+    public boolean exportGratuity(String path, ReportWriter.Format format) {
+        try (Metrics.Timer timer = Metrics.time("export.gratuity")) {
+            Dataset current = dataset;
+            AnalyticsSnapshot snapshot = current.analytics(LocalDate.now());
+            timer.rows(snapshot.getGratuityEligibleCount());
+            try (ReportWriter writer = gratuityWriter(exportSink(path), format)) {
+                writeGratuityRows(writer, current, snapshot, 0, snapshot.getGratuityEligibleCount());
+                writer.finish();
+                System.out.println("Exported " + writer.getRowCount() + " gratuity-eligible employees to " + path);
+                return true;
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to export gratuity report: " + e.getMessage());
+                return false;
+            }
+        }
+    }
 
-                    if (emp.getGender().equalsIgnoreCase("M")) {
-                        totalMaleSalary += salary;
-                        maleCount++;
-                    } else if (emp.getGender().equalsIgnoreCase("F")) {
-                        totalFemaleSalary += salary;
-                        femaleCount++;
-                    } else {
-                        System.err.println("[WARN] Unrecognised gender value '" + emp.getGender() + "' for employee ID: " + nullSafe(emp.getId()) + ". Excluded from parity calculation.");
+    // Out-of-core alternative to loadData followed by the report methods. The master is read
+    // once and every record goes straight into the aggregators (and into the directory and
+    // gratuity lists, if requested) without being kept, so memory is bounded by the number of
+    // departments and status values rather than employees. Edits still in the journal are
+    // applied to each record as it is read, and added employees follow the master, as after a
+    // replay. outputs maps the report names directory, headcount, attrition, parity and gratuity
+    // to their destinations; listFormat applies to the two lists. The output matches the
+    // in-memory reports.
+    public boolean streamReports(String filePath, Map<String, PrintStream> outputs, ReportWriter.Format listFormat) {
+        System.out.println("Streaming data from: " + filePath);
+
+        ChangeJournal.Pending edits;
+        synchronized (editLock) {
+            edits = journalFor(filePath).pending();
+        }
+        LocalDate today = LocalDate.now();
+        Map<String, Byte> statusClasses = new HashMap<>();
+        int[] employees = new int[1];
+        try (Metrics.Timer timer = Metrics.time("stream.reports");
+             Quarantine quarantine = Quarantine.forFile(filePath);
+             Quarantine issues = Quarantine.consoleOnly("Analytics")) {
+            AnalyticsEngine.Accumulator acc = new AnalyticsEngine.Accumulator(today, false, issues);
+            StreamedList directory = outputs.containsKey("directory")
+                    ? new StreamedList(outputs.get("directory"), listFormat, true) : null;
+            StreamedList gratuity = outputs.containsKey("gratuity")
+                    ? new StreamedList(outputs.get("gratuity"), listFormat, false) : null;
+
+            Consumer<Employee> visit = emp -> {
+                int row = employees[0]++;
+                long joined = emp.getJoiningDate().toEpochDay();
+                try {
+                    if (directory != null) {
+                        writeDirectoryRow(directory.writer(), emp.getId(), emp.getFullName(), emp.getDepartment(), joined, today);
+                    }
+                    int eligibleBefore = acc.getGratuityCount();
+                    acc.accept(emp, row, statusClasses);
+                    if (gratuity != null) {
+                        ReportWriter writer = gratuity.writer();
+                        if (acc.getGratuityCount() != eligibleBefore) {
+                            writeGratuityRow(writer, emp.getId(), emp.getFullName(), emp.getDepartment(), joined, today);
+                        }
                     }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            } catch (Exception e) {
-                System.err.println("[WARN] Error processing employee for pay parity report: " + e.getMessage() + ". Skipping.");
+            };
+            long skipped = readEmployees(filePath, emp -> visit.accept(edits.apply(emp)), quarantine);
+            if (skipped < 0) {
+                return false;
+            }
+            for (Employee added : edits.added()) {
+                visit.accept(added);
+            }
+            timer.rows(employees[0]).failures(skipped);
+
+            AnalyticsSnapshot snapshot = acc.toSnapshot(0, employees[0]);
+            if (directory != null) {
+                directory.finish(snapshot);
+            }
+            if (outputs.containsKey("headcount")) {
+                generateDepartmentReport(outputs.get("headcount"), snapshot);
+            }
+            if (outputs.containsKey("attrition")) {
+                generateAttritionReport(outputs.get("attrition"), snapshot);
+            }
+            if (outputs.containsKey("parity")) {
+                generatePayParityReport(outputs.get("parity"), snapshot);
             }
+            if (gratuity != null) {
+                gratuity.finish(snapshot);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("[ERROR] Failed to write streamed reports: " + e.getMessage());
+            return false;
         }
 
-        double avgMaleSalary = (maleCount > 0) ? (totalMaleSalary / maleCount) : 0;
-        double avgFemaleSalary = (femaleCount > 0) ? (totalFemaleSalary / femaleCount) : 0;
+        System.out.println("Successfully streamed " + employees[0] + " employees.");
+        return true;
+    }
 
-        double parityRatio = 0.0;
-        try {
-            if (avgMaleSalary > 0) {
-                parityRatio = (avgFemaleSalary / avgMaleSalary) * 100;
+    // A directory or gratuity list written while the master is streamed. As text it mirrors the
+    // console report, whose table only starts once there is at least one employee.
+    private static final class StreamedList {
+        private final PrintStream out;
+        private final ReportWriter.Format format;
+        private final boolean directory;
+        private ReportWriter writer;
+
+        StreamedList(PrintStream out, ReportWriter.Format format, boolean directory) throws IOException {
+            this.out = out;
+            this.format = format;
+            this.directory = directory;
+            if (format == ReportWriter.Format.TEXT) {
+                out.println(directory ? "\n--- EMPLOYEE DIRECTORY ---" : "\n--- COMPLIANCE & REWARDS: 5-YEAR TENURE FLAG ---");
             } else {
-                System.out.println("[INFO] No male salary data available; parity ratio cannot be computed.");
+                writer();
             }
-        } catch (ArithmeticException e) {
-            System.err.println("[ERROR] Failed to calculate parity ratio: " + e.getMessage());
         }
 
-        System.out.printf("Male Workforce   : %d employees | Avg Salary: ₹%,.2f%n", maleCount, avgMaleSalary);
-        System.out.printf("Female Workforce : %d employees | Avg Salary: ₹%,.2f%n", femaleCount, avgFemaleSalary);
-        System.out.println("---------------------------------------------------------");
-        System.out.printf("Org-Wide Parity Ratio: %.1f%%%n", parityRatio);
+        ReportWriter writer() throws IOException {
+            if (writer == null) {
+                writer = directory ? directoryWriter(out, format) : gratuityWriter(out, format);
+            }
+            return writer;
+        }
 
-        if (parityRatio >= 98.0 && parityRatio <= 102.0) {
-            System.out.println("✅ [EQUITABLE] Pay is balanced across genders.");
-        } else if (parityRatio > 0 && parityRatio < 98.0) {
-            System.out.println("⚠️ [BIAS ALERT] Women earn roughly " + Math.round(parityRatio) + " cents for every ₹1 earned by men.");
-            System.out.println("   -> Recommendation: Conduct a role-by-role compensation audit.");
-        } else if (parityRatio > 102.0) {
-            System.out.println("⚠️ [BIAS ALERT] Men earn less on average than female counterparts.");
+        void finish(AnalyticsSnapshot snapshot) throws IOException {
+            if (writer == null) {
+                out.println(directory
+                        ? "[INFO] No employee records found. Please load data first."
+                        : "[INFO] No employee data available to generate gratuity report.");
+                return;
+            }
+            writer.finish();
+            if (!directory && format == ReportWriter.Format.TEXT) {
+                gratuityFooter(out, snapshot.getGratuityEligibleCount());
+            }
         }
     }
 
-    public void generateGratuityReport() {
-        System.out.println("\n--- COMPLIANCE & REWARDS: 5-YEAR TENURE FLAG ---");
+    // The console table keeps its historical layout; exports carry the department and the
+    // actual joining date as separate fields.
+    private static ReportWriter gratuityWriter(Appendable sink, ReportWriter.Format format) throws IOException {
+        ReportWriter writer = (format == ReportWriter.Format.TEXT)
+                ? new ReportWriter(sink, format, new String[] {"ID", "Name", "Joining Date", "Tenure (Yrs)"},
+                        new int[] {10, 20, 15, 12}, new String[] {null, null, null, " Years"})
+                : new ReportWriter(sink, format, new String[] {"id", "name", "department", "joiningDate", "tenureYears"},
+                        null, null);
+        writer.header("-------------------------------------------------------------------");
+        return writer;
+    }
 
-        if (employeeList == null || employeeList.isEmpty()) {
-            System.out.println("[INFO] No employee data available to generate gratuity report.");
-            return;
+    // Eligible employees from..to-1, in the order of the full report.
+    static void writeGratuityJson(Appendable sink, Dataset current, AnalyticsSnapshot snapshot, int from, int to) throws IOException {
+        ReportWriter writer = gratuityWriter(sink, ReportWriter.Format.JSON);
+        writeGratuityRows(writer, current, snapshot, from, to);
+        writer.finish();
+    }
+
+    private static void writeGratuityRows(ReportWriter writer, Dataset current, AnalyticsSnapshot snapshot, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            int row = snapshot.gratuityEligibleRow(i);
+            writeGratuityRow(writer, current.id(row), current.fullName(row), current.department(row),
+                    current.joiningEpochDay(row), snapshot.getAsOf());
         }
+    }
+
+    private static void writeGratuityRow(ReportWriter writer, String id, String name, String department,
+                                         long joined, LocalDate asOf) throws IOException {
+        writer.beginRow();
+        writer.cell(id);
+        writer.cell(name);
+        writer.cell(department);
+        if (writer.getFormat() != ReportWriter.Format.TEXT) {
+            writer.cell(LocalDate.ofEpochDay(joined).toString());
+        }
+        writer.cell(Tenure.years(joined, asOf));
+        writer.endRow();
+    }
 
-        System.out.printf("%-10s | %-20s | %-15s | %-12s%n", "ID", "Name", "Joining Date", "Tenure (Yrs)");
-        System.out.println("-------------------------------------------------------------------");
+    // Employees on the rolls who have served at least the given years as of a date.
+    public int generateTenureMilestoneReport(PrintStream out, int years, LocalDate asOf) {
+        try (Metrics.Timer timer = Metrics.time("report.milestones")) {
+            out.println("\n--- TENURE MILESTONE: " + years + "+ YEARS AS OF " + asOf + " ---");
 
-        int eligibleCount = 0;
+            Dataset current = dataset;
+            if (current.isEmpty()) {
+                out.println("[INFO] No employee data available to generate milestone report.");
+                return 0;
+            }
 
-        for (Employee emp : employeeList) {
+            int[] rows = current.tenureIndex().crossed(years, asOf, true);
+            timer.rows(rows.length);
             try {
-                if (emp == null || emp.getStatus() == null) {
-                    System.err.println("[WARN] Skipping record with null employee or status in gratuity report.");
-                    continue;
+                ReportWriter writer = new ReportWriter(out, ReportWriter.Format.TEXT,
+                        new String[] {"ID", "Name", "Department", "Joining Date", "Tenure (Yrs)"},
+                        new int[] {10, 20, 15, 12, 12}, new String[] {null, null, null, null, " Years"});
+                writer.header("-------------------------------------------------------------------------------");
+                for (int row : rows) {
+                    long joined = current.joiningEpochDay(row);
+                    writer.beginRow();
+                    writer.cell(current.id(row));
+                    writer.cell(current.fullName(row));
+                    writer.cell(current.department(row));
+                    writer.cell(LocalDate.ofEpochDay(joined).toString());
+                    writer.cell(Tenure.years(joined, asOf));
+                    writer.endRow();
                 }
+                writer.finish();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to write milestone report: " + e.getMessage());
+            }
+            out.println("-------------------------------------------------------------------------------");
+            out.println("Total Employees with " + years + "+ Years: " + rows.length);
+            return rows.length;
+        }
+    }
 
-                String status = emp.getStatus().trim();
-
-                if (status.equalsIgnoreCase("Active") || status.equalsIgnoreCase("Notice Period")) {
-                    long tenureYears = emp.getTenureYears();
+    // Employees on the rolls who reach each milestone after asOf and within the next windowDays.
+    public void generateUpcomingMilestonesReport(PrintStream out, int[] milestones, int windowDays, LocalDate asOf) {
+        try (Metrics.Timer timer = Metrics.time("report.upcoming")) {
+            LocalDate until = asOf.plusDays(windowDays);
+            out.println("\n--- UPCOMING TENURE MILESTONES (" + asOf.plusDays(1) + " to " + until + ") ---");
 
-                    if (tenureYears < 0) {
-                        System.err.println("[WARN] Negative tenure calculated for employee ID: " + nullSafe(emp.getId()) + ". Skipping.");
-                        continue;
-                    }
+            Dataset current = dataset;
+            if (current.isEmpty()) {
+                out.println("[INFO] No employee data available to generate milestone report.");
+                return;
+            }
 
-                    if (tenureYears >= 5) {
-                        System.out.printf("%-10s | %-20s | %-15s | %d Years%n",
-                                nullSafe(emp.getId()),
-                                nullSafe(emp.getFullName()),
-                                nullSafe(emp.getDepartment()),
-                                tenureYears);
-                        eligibleCount++;
+            TenureIndex index = current.tenureIndex();
+            int[] counts = new int[milestones.length];
+            try {
+                ReportWriter writer = new ReportWriter(out, ReportWriter.Format.TEXT,
+                        new String[] {"ID", "Name", "Department", "Milestone", "Due On"},
+                        new int[] {10, 20, 15, 10, 10}, new String[] {null, null, null, null, null});
+                writer.header("-------------------------------------------------------------------------------");
+                for (int m = 0; m < milestones.length; m++) {
+                    int[] rows = index.crossing(milestones[m], asOf, until, true);
+                    counts[m] = rows.length;
+                    for (int row : rows) {
+                        writer.beginRow();
+                        writer.cell(current.id(row));
+                        writer.cell(current.fullName(row));
+                        writer.cell(current.department(row));
+                        writer.cell(milestones[m] + " Years");
+                        writer.cell(TenureIndex.milestoneDate(current.joiningEpochDay(row), milestones[m]).toString());
+                        writer.endRow();
                     }
                 }
-            } catch (Exception e) {
-                System.err.println("[WARN] Error processing employee for gratuity report: " + e.getMessage() + ". Skipping.");
+                writer.finish();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to write milestone report: " + e.getMessage());
             }
-        }
-
-        System.out.println("-------------------------------------------------------------------");
-        System.out.println("Total Eligible Employees: " + eligibleCount);
 
-        if (eligibleCount > 0) {
-            System.out.println("✅ [ACTION REQUIRED] Notify Finance for gratuity provisioning.");
-            System.out.println("✅ [ACTION REQUIRED] Trigger 5-Year Service Award workflows.");
-        } else {
-            System.out.println("No employees are currently eligible for the 5-year milestone.");
+            out.println("-------------------------------------------------------------------------------");
+            int total = 0;
+            for (int m = 0; m < milestones.length; m++) {
+                out.printf("%2d-Year Milestone : %d employee(s)%n", milestones[m], counts[m]);
+                total += counts[m];
+            }
+            timer.rows(total);
+            if (total > 0) {
+                out.println("✅ [PLAN AHEAD] Share this list with Finance for gratuity provisioning.");
+            } else {
+                out.println("No employees reach a milestone in this window.");
+            }
         }
     }
 
@@ -329,6 +1035,12 @@ public class HRSystem {
         try {
             System.out.print("Enter Candidate ID: "); 
             String id = scanner.nextLine();
+            String existing = findLogged(idIndex(true), id);
+            if (existing != null) {
+                System.out.println("Candidate " + id.trim() + " is already logged: " + existing);
+                System.out.println("Nothing was saved.");
+                return;
+            }
 
             System.out.print("Enter Full Name: ");
             String fullName = scanner.nextLine();
@@ -346,17 +1058,21 @@ public class HRSystem {
             String offerStatus = scanner.nextLine();
 
             Candidate newCandidate = new Candidate(id, fullName, role, LocalDate.parse(dateInput), LocalDate.parse(offerDateInput), offerStatus);
+            if (newCandidate.getCycleTimeDays() < 0 && newCandidate.getOfferDate() != null) {
+                System.err.println("Invalid Input. Offer date cannot be before the application date.");
+                return;
+            }
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter("candidates.csv", true))) {
-                writer.write(newCandidate.toCSVString());
-                writer.newLine();
+            try {
+                append(candidateLog(), newCandidate.toCSVString());
+                candidateStore.add(newCandidate);
 
                 System.out.println("\n Candidate Sucessfully saved to DB");
 
                 long CycleTime = newCandidate.getCycleTimeDays();
                 if (CycleTime != - 1) {
                     System.out.println("Time to hire: " + CycleTime + "Days");
-                    if (CycleTime > 45) {
+                    if (CycleTime > CandidateStore.CYCLE_TIME_LIMIT_DAYS) {
                         System.out.println("Process bottleneck detected");
                     }
                 }
@@ -372,6 +1088,12 @@ public class HRSystem {
         System.out.println("\n===Log Candidate Rejection===");
         System.out.print("Enter Candidate ID: ");
         String id = scanner.nextLine();
+        String existing = findLogged(idIndex(false), id);
+        if (existing != null) {
+            System.out.println("A rejection is already logged for " + id.trim() + ": " + existing);
+            System.out.println("Nothing was saved.");
+            return;
+        }
 
         System.out.println("Select Rejection Reason:");
         System.out.println("[1] Salary Expectations Too High");
@@ -382,6 +1104,19 @@ public class HRSystem {
         System.out.print("Choice (1-5): ");
         String reasonChoice = scanner.nextLine();
 
+        String reason = rejectionReason(reasonChoice);
+
+        try {
+            append(rejectionLog(), id + "," + reason + "," + LocalDate.now());
+            System.out.println("\nRejection reason logged successfully.");
+        } catch (IOException e) {
+            System.err.println("Error logging rejection: " + e.getMessage());
+        }
+
+        generateParetoChart();
+    }
+
+    private static String rejectionReason(String reasonChoice) {
         String reason = "Other";
         switch (reasonChoice) {
             case "1": reason = "Salary Expectations Too High"; break;
@@ -390,56 +1125,831 @@ public class HRSystem {
             case "4": reason = "Candidate Ghosted / Withdrew"; break;
             default: reason = "Other"; break;
         }
+        return reason;
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("rejections.csv", true))) {
-             writer.write(id + "," + reason + "," + LocalDate.now());
-            writer.newLine();
-            System.out.println("\nRejection reason logged successfully.");
-        } catch (IOException e) {
-            System.err.println("Error logging rejection: " + e.getMessage());
+    public void bulkImport() {
+        System.out.println("\n--- BULK IMPORT: ATS EXPORT ---");
+        System.out.println("[1] Candidates (ID,Name,Role,ApplicationDate,OfferDate|PENDING,Status)");
+        System.out.println("[2] Rejections (ID,Reason or 1-5[,Date])");
+        System.out.print("Choice (1-2): ");
+        String choice = scanner.nextLine();
+        System.out.print("Path to export file: ");
+        String path = scanner.nextLine().trim();
+
+        if (choice.equals("1")) {
+            importCandidates(path);
+        } else if (choice.equals("2")) {
+            importRejections(path);
+            generateParetoChart();
+        } else {
+            System.out.println("Invalid choice. Nothing imported.");
         }
-
-        generateParetoChart();
     }
 
-    private void generateParetoChart() {
-        System.out.println("\n--- PARETO ANALYSIS: PIPELINE BOTTLENECKS ---");
-        java.util.HashMap<String, Integer> defectCounts = new java.util.HashMap<>();
-        int totalDefects = 0;
+    // Appends every valid row of the export to candidates.csv in a single group commit. Rows
+    // whose ID is already logged, or repeated within the export, are skipped.
+    public int importCandidates(String exportPath) {
+        List<Candidate> candidates = new ArrayList<>();
+        List<String> records = new ArrayList<>();
+        IdIndex index = idIndex(true);
+        HashSet<String> seen = new HashSet<>();
+        int duplicates = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(exportPath))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    Candidate candidate = Candidate.fromCSV(line);
+                    if (candidate.getCycleTimeDays() < 0 && candidate.getOfferDate() != null) {
+                        System.err.println("[WARN] Skipping candidate at row " + lineNumber + ": offer date before application date.");
+                        continue;
+                    }
+                    String duplicate = duplicateReason(candidate.getCandidateId(), index, seen);
+                    if (duplicate != null) {
+                        if (++duplicates <= MAX_DUPLICATE_WARNINGS) {
+                            System.err.println("[WARN] Skipping candidate at row " + lineNumber + ": " + duplicate + ".");
+                        }
+                        continue;
+                    }
+                    candidates.add(candidate);
+                    records.add(candidate.toCSVString());
+                } catch (Exception e) {
+                    if (lineNumber > 1) {
+                        System.err.println("[WARN] Skipping invalid candidate at row " + lineNumber + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to read export: " + e.getMessage());
+            return 0;
+        }
+        reportSkippedDuplicates("candidate", duplicates);
+        int imported = appendImported("candidates", records, true);
+        if (imported > 0) {
+            for (Candidate candidate : candidates) {
+                candidateStore.add(candidate);
+            }
+        }
+        return imported;
+    }
 
-        // --- FILE I/O: READING THE LOG ---
-        try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("rejections.csv"))) {
+    // Accepts either a reason code (1-5) or the reason text; a missing date defaults to today.
+    // A candidate ID that already has a rejection logged, or repeats within the export, is skipped.
+    public int importRejections(String exportPath) {
+        List<String> records = new ArrayList<>();
+        IdIndex index = idIndex(false);
+        HashSet<String> seen = new HashSet<>();
+        int duplicates = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(exportPath))) {
             String line;
+            int lineNumber = 0;
             while ((line = br.readLine()) != null) {
+                lineNumber++;
                 String[] parts = line.split(",");
-                if (parts.length >= 2) {
-                    String reason = parts[1];
-                    // Tally up the reasons using HashMap
-                    defectCounts.put(reason, defectCounts.getOrDefault(reason, 0) + 1);
-                    totalDefects++;
+                if (parts.length < 2 || parts[0].trim().isEmpty()) {
+                    if (lineNumber > 1 && !line.trim().isEmpty()) {
+                        System.err.println("[WARN] Skipping invalid rejection at row " + lineNumber + ".");
+                    }
+                    continue;
+                }
+                try {
+                    String reason = parts[1].trim().matches("[1-5]") ? rejectionReason(parts[1].trim()) : parts[1].trim();
+                    LocalDate date = (parts.length >= 3) ? LocalDate.parse(parts[2].trim()) : LocalDate.now();
+                    String duplicate = duplicateReason(parts[0], index, seen);
+                    if (duplicate != null) {
+                        if (++duplicates <= MAX_DUPLICATE_WARNINGS) {
+                            System.err.println("[WARN] Skipping rejection at row " + lineNumber + ": " + duplicate + ".");
+                        }
+                        continue;
+                    }
+                    records.add(parts[0].trim() + "," + reason + "," + date);
+                } catch (Exception e) {
+                    if (lineNumber > 1) {
+                        System.err.println("[WARN] Skipping invalid rejection at row " + lineNumber + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to read export: " + e.getMessage());
+            return 0;
+        }
+        reportSkippedDuplicates("rejection", duplicates);
+        return appendImported("rejections", records, false);
+    }
+
+    private int appendImported(String kind, List<String> records, boolean candidates) {
+        if (records.isEmpty()) {
+            System.out.println("No valid " + kind + " found in export.");
+            return 0;
+        }
+        try {
+            AppendLog target = candidates ? candidateLog() : rejectionLog();
+            join(target.appendAll(records));
+            System.out.println("Imported " + records.size() + " " + kind + ".");
+            return records.size();
+        } catch (IOException e) {
+            System.err.println("Error importing " + kind + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private synchronized AppendLog candidateLog() throws IOException {
+        if (candidateLog == null) {
+            candidateLog = new AppendLog(CANDIDATES_FILE, logDurability, logSyncIntervalMillis);
+        }
+        return candidateLog;
+    }
+
+    private synchronized AppendLog rejectionLog() throws IOException {
+        if (rejectionLog == null) {
+            rejectionLog = new AppendLog(REJECTIONS_FILE, logDurability, logSyncIntervalMillis);
+        }
+        return rejectionLog;
+    }
+
+    // The ID index of the candidate or rejection log. When it cannot be opened the warning is
+    // shown and null returned, and entries are then logged without the duplicate check.
+    private synchronized IdIndex idIndex(boolean candidates) {
+        IdIndex index = candidates ? candidateIndex : rejectionIndex;
+        if (index == null) {
+            try {
+                AppendLog log = candidates ? candidateLog() : rejectionLog();
+                index = new IdIndex(log.getPath().toString());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[WARN] Duplicate check unavailable for " + (candidates ? CANDIDATES_FILE : REJECTIONS_FILE)
+                        + ": " + e.getMessage());
+                return null;
+            }
+            if (candidates) {
+                candidateIndex = index;
+            } else {
+                rejectionIndex = index;
+            }
+        }
+        return index;
+    }
+
+    // The line already logged for this ID, or null.
+    private static String findLogged(IdIndex index, String id) {
+        if (index == null) {
+            return null;
+        }
+        try {
+            return index.find(id);
+        } catch (IOException e) {
+            System.err.println("[WARN] Duplicate check failed for " + id.trim() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Why an imported row with this ID is skipped, or null to import it.
+    private static String duplicateReason(String id, IdIndex index, HashSet<String> seen) {
+        String key = id.trim();
+        if (!seen.add(key)) {
+            return key + " appears earlier in the export";
+        }
+        if (findLogged(index, key) != null) {
+            return key + " is already logged";
+        }
+        return null;
+    }
+
+    private static void reportSkippedDuplicates(String kind, int skipped) {
+        if (skipped > MAX_DUPLICATE_WARNINGS) {
+            System.err.println("[WARN] " + (skipped - MAX_DUPLICATE_WARNINGS) + " more duplicate " + kind + " IDs skipped and not shown.");
+        }
+    }
+
+    private static long append(AppendLog log, String record) throws IOException {
+        return join(log.append(record));
+    }
+
+    private static long join(CompletableFuture<Long> pending) throws IOException {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Onboards a new employee. Like the other edits, the change is first written to the
+    // journal next to the master and then applied to the loaded data; it reaches the master
+    // file itself at the next checkpoint. Returns false, with the reason printed, when the
+    // record is invalid or cannot be written.
+    public boolean addEmployee(Employee employee) {
+        synchronized (editLock) {
+            ChangeJournal changes = editableJournal();
+            if (changes == null || !isValidRecord(employee)) {
+                return false;
+            }
+            if (dataset.index().findRow(employee.getId()) >= 0) {
+                System.err.println("[ERROR] Employee ID '" + employee.getId() + "' already exists.");
+                return false;
+            }
+            return recordEdit(changes, ChangeJournal.addRecord(employee), employee);
+        }
+    }
+
+    // Replaces the record of an existing employee, matched by ID.
+    public boolean updateEmployee(Employee employee) {
+        synchronized (editLock) {
+            ChangeJournal changes = editableJournal();
+            if (changes == null || !isValidRecord(employee)) {
+                return false;
+            }
+            if (dataset.index().findRow(employee.getId()) < 0) {
+                System.err.println("[ERROR] No employee found with ID '" + employee.getId() + "'.");
+                return false;
+            }
+            return recordEdit(changes, ChangeJournal.updateRecord(employee), employee);
+        }
+    }
+
+    // Moves an employee to Notice Period, or straight to Exited.
+    public boolean terminateEmployee(String id, boolean servingNotice) {
+        synchronized (editLock) {
+            ChangeJournal changes = editableJournal();
+            if (changes == null) {
+                return false;
+            }
+            Employee current = getEmployee(id);
+            if (current == null) {
+                System.err.println("[ERROR] No employee found with ID '" + id + "'.");
+                return false;
+            }
+            String status = servingNotice ? "Notice Period" : "Exited";
+            if (status.equalsIgnoreCase(nullSafe(current.getStatus()).trim())) {
+                System.out.println("[INFO] " + current.getId() + " is already marked " + status + ".");
+                return false;
+            }
+            Employee updated = ChangeJournal.withStatus(current, status);
+            return recordEdit(changes, ChangeJournal.terminateRecord(current.getId(), status), updated);
+        }
+    }
+
+    private ChangeJournal editableJournal() {
+        ChangeJournal changes = journal;
+        if (changes == null) {
+            System.err.println("[ERROR] Load the employee master before editing records.");
+        }
+        return changes;
+    }
+
+    // The master is a plain comma-separated file, so no field may contain a comma or newline.
+    private static boolean isValidRecord(Employee employee) {
+        String[] fields = {employee.getId(), employee.getFullName(), employee.getGender(), employee.getDepartment(),
+                employee.getRole(), employee.getStatus()};
+        for (String field : fields) {
+            if (field == null || field.trim().isEmpty()) {
+                System.err.println("[ERROR] Every field is required.");
+                return false;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                System.err.println("[ERROR] Fields cannot contain commas or line breaks: '" + field + "'.");
+                return false;
+            }
+        }
+        if (employee.getJoiningDate() == null) {
+            System.err.println("[ERROR] Joining date is required.");
+            return false;
+        }
+        if (employee.getBasicSalary() == null || !(employee.getBasicSalary() >= 0)) {
+            System.err.println("[ERROR] Basic salary must be zero or more.");
+            return false;
+        }
+        return true;
+    }
+
+    // The next dataset is built before the journal is written, so an edit the data cannot take
+    // (e.g. a full columnar dictionary) never reaches the journal and fails replay later.
+    private boolean recordEdit(ChangeJournal changes, String record, Employee employee) {
+        Dataset next;
+        try {
+            next = dataset.withEmployees(Collections.singletonList(employee));
+        } catch (RuntimeException e) {
+            System.err.println("[ERROR] Cannot apply the change: " + e.getMessage() + ". Nothing was changed.");
+            return false;
+        }
+        try (Metrics.Timer timer = Metrics.time("edit.employee")) {
+            timer.rows(1);
+            changes.append(record);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to write " + changes.getPath() + ": " + e.getMessage() + ". Nothing was changed.");
+            return false;
+        }
+        dataset = next;
+        if (changes.getPendingRecords() >= CHECKPOINT_RECORDS) {
+            scheduleCheckpoint();
+        }
+        return true;
+    }
+
+    // Folds the journal into a fresh copy of the employee master. Edits made meanwhile go to a
+    // new journal and are not held up. If the master cannot be rewritten, the journal records
+    // are kept and the next checkpoint or startup picks them up again.
+    public boolean checkpointJournal() {
+        ChangeJournal changes = journal;
+        if (changes == null) {
+            return false;
+        }
+        synchronized (masterLock) {
+            try (Metrics.Timer timer = Metrics.time("journal.checkpoint")) {
+                synchronized (editLock) {
+                    if (!changes.rotate()) {
+                        return true;
+                    }
+                }
+                int records = changes.compact();
+                // The loaded dataset already holds these edits; the rewrite is not a change to reload.
+                DatasetWatcher current = watcher;
+                if (current != null) {
+                    current.acknowledge();
+                }
+                timer.rows(records);
+                System.out.println("\n[INFO] Checkpointed " + records + " journal records into " + changes.getMasterPath() + ".");
+                return true;
+            } catch (IOException e) {
+                System.err.println("[WARN] Checkpoint of " + changes.getPath() + " failed: " + e.getMessage() + ". The journal is kept.");
+                return false;
+            }
+        }
+    }
+
+    private void scheduleCheckpoint() {
+        if (!checkpointQueued.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            if (checkpointer == null) {
+                checkpointer = Executors.newSingleThreadExecutor(task -> {
+                    Thread thread = new Thread(task, "journal-checkpoint");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            checkpointer.execute(() -> {
+                checkpointQueued.set(false);
+                checkpointJournal();
+            });
+        }
+    }
+
+    // Flushes and closes the append logs. Call once on exit.
+    public synchronized void shutdown() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        if (checkpointer != null) {
+            // Let a checkpoint that is under way finish rather than leave it for the next start.
+            checkpointer.shutdown();
+            try {
+                checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            checkpointer = null;
+        }
+        ChangeJournal changes = journal;
+        if (changes != null) {
+            try {
+                changes.close();
+            } catch (IOException e) {
+                System.err.println("[WARN] Failed to close " + changes.getPath() + ": " + e.getMessage());
+            }
+        }
+        for (AppendLog log : new AppendLog[] {candidateLog, rejectionLog}) {
+            if (log == null) {
+                continue;
+            }
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("[WARN] Failed to close " + log.getPath() + ": " + e.getMessage());
+            }
+        }
+        candidateLog = null;
+        rejectionLog = null;
+        for (IdIndex index : new IdIndex[] {candidateIndex, rejectionIndex}) {
+            if (index == null) {
+                continue;
+            }
+            try {
+                index.close();
+            } catch (IOException e) {
+                System.err.println("[WARN] Failed to close " + index.getPath() + ": " + e.getMessage());
+            }
+        }
+        candidateIndex = null;
+        rejectionIndex = null;
+    }
+
+    // Pay parity drill-down: the whole org by department, one department by role (role null or
+    // blank), or one role within a department by gender and status. Returns false when nothing
+    // matches the department and role given.
+    public boolean generatePayDrillDown(PrintStream out, String department, String role) {
+        boolean byDepartment = department != null && !department.trim().isEmpty();
+        boolean byRole = byDepartment && role != null && !role.trim().isEmpty();
+        String title = byRole ? department.trim() + " > " + role.trim() : byDepartment ? department.trim() : "ORGANISATION";
+        out.println("\n--- PAY PARITY DRILL-DOWN: " + title + " ---");
+
+        Dataset current = dataset;
+        if (current.isEmpty()) {
+            out.println("[INFO] No employee data available to generate pay parity report.");
+            return false;
+        }
+
+        try (Metrics.Timer timer = Metrics.time("report.drilldown")) {
+            PayCube cube;
+            try {
+                cube = current.payCube();
+            } catch (RuntimeException e) {
+                System.err.println("[ERROR] Failed to group salaries for the drill-down: " + e.getMessage());
+                return false;
+            }
+            Map<PayCube.Dimension, String> filter = PayCube.filter();
+            if (byDepartment) {
+                filter.put(PayCube.Dimension.DEPARTMENT, department);
+            }
+            if (byRole) {
+                filter.put(PayCube.Dimension.ROLE, role);
+            }
+            List<PayCube.Group> total = cube.rollup(filter);
+            if (total.isEmpty()) {
+                out.println("[INFO] No employees found for " + title + ".");
+                return false;
+            }
+            timer.rows(total.get(0).getCount());
+
+            if (byRole) {
+                out.printf("%-12s %-15s %8s %13s %13s %13s %13s%n", "Gender", "Status", "Count",
+                        "Avg Salary", "p10", "Median", "p90");
+                out.println("------------------------------------------------------------------------------------------------");
+                for (PayCube.Group group : cube.rollup(filter, PayCube.Dimension.GENDER, PayCube.Dimension.STATUS)) {
+                    int staff = group.getStaffCount();
+                    out.printf("%-12s %-15s %8d %13s %13s %13s %13s%n", group.getKey().get(0), group.getKey().get(1),
+                            group.getCount(), formatSalary(group.getMeanSalary(), staff),
+                            formatSalary(group.getSalaryQuantile(0.1), staff), formatSalary(group.getSalaryQuantile(0.5), staff),
+                            formatSalary(group.getSalaryQuantile(0.9), staff));
+                }
+                out.println("------------------------------------------------------------------------------------------------");
+                printParityHeader(out, "");
+            } else {
+                printParityHeader(out, byDepartment ? "Role" : "Department");
+                out.println("------------------------------------------------------------------------------------------------------");
+                for (PayCube.Group group : cube.rollup(filter, byDepartment ? PayCube.Dimension.ROLE : PayCube.Dimension.DEPARTMENT)) {
+                    printParityRow(out, group.getKey().get(0), group);
                 }
+                out.println("------------------------------------------------------------------------------------------------------");
+            }
+            printParityRow(out, "Total", total.get(0));
+            out.println("(Pay figures cover Active, Probation and Notice Period staff. Parity compares female to male");
+            out.println(" average pay, Med Parity female to male median pay; quantiles are within 1% of the exact value.)");
+
+            double parity = total.get(0).getParityRatio();
+            if (parity > 0 && (parity < 98.0 || parity > 102.0)) {
+                out.println("⚠️ [BIAS ALERT] Parity for " + title + " is outside the 98-102% band.");
+            }
+            return true;
+        }
+    }
+
+    private static void printParityHeader(PrintStream out, String name) {
+        out.printf("%-22s %7s %13s %13s %13s %13s %8s %10s%n", name,
+                "Staff", "Avg Salary", "p10", "Median", "p90", "Parity", "Med Parity");
+    }
+
+    private static void printParityRow(PrintStream out, String name, PayCube.Group group) {
+        int staff = group.getStaffCount();
+        out.printf("%-22s %7d %13s %13s %13s %13s %8s %10s%n", name, staff,
+                formatSalary(group.getMeanSalary(), staff),
+                formatSalary(group.getSalaryQuantile(0.1), staff),
+                formatSalary(group.getSalaryQuantile(0.5), staff),
+                formatSalary(group.getSalaryQuantile(0.9), staff),
+                formatPercent(group.getParityRatio()), formatPercent(group.getMedianParityRatio()));
+    }
+
+    private static String formatPercent(double ratio) {
+        return (ratio > 0) ? String.format("%.1f%%", ratio) : "n/a";
+    }
+
+    private static String formatSalary(double amount, int count) {
+        return (count > 0) ? String.format("₹%,.0f", amount) : "-";
+    }
+
+    // Compensation what-if: every scenario in the file against the Active and Probation staff,
+    // one summary line each. With departmentsPath the CTC of every department under every
+    // scenario is also written there, as JSON if the name ends in .json and as CSV otherwise.
+    public CompensationSimulator.Batch runCompensationScenarios(PrintStream out, String scenarioPath, String departmentsPath) {
+        List<CompensationScenario> scenarios;
+        try {
+            scenarios = CompensationScenario.readAll(scenarioPath);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to read scenarios: " + e.getMessage());
+            return null;
+        }
+        out.println("\n--- COMPENSATION WHAT-IF: " + scenarios.size() + " scenarios ---");
+
+        Dataset current = dataset;
+        if (current.isEmpty()) {
+            out.println("[INFO] No employee data available to simulate compensation changes.");
+            return null;
+        }
+        if (scenarios.isEmpty()) {
+            out.println("[INFO] No scenarios found in " + scenarioPath + ".");
+            return null;
+        }
+
+        CompensationSimulator.Batch batch;
+        try {
+            batch = CompensationSimulator.simulate(current, scenarios);
+        } catch (RuntimeException e) {
+            System.err.println("[ERROR] Failed to simulate compensation scenarios: " + e.getMessage());
+            return null;
+        }
+        AnalyticsSnapshot snapshot = current.analytics(LocalDate.now());
+        out.printf("Staff on payroll : %,d Active/Probation employees | Annual CTC ₹%,.0f%n",
+                batch.getStaff(), batch.getCurrent().getAnnualCtc());
+        out.printf("Parity report    : %s org-wide | Turnover %.1f%% | %d in notice period%n",
+                formatPercent(snapshot.getParityRatio()), snapshot.getTurnoverRate(), snapshot.getNoticePeriodCount());
+        out.printf("%-28s %8s %18s %17s %8s %8s %7s%n", "Scenario", "Benefits", "Annual CTC", "Delta", "Delta %", "Parity", "Promos");
+        out.println("--------------------------------------------------------------------------------------------------------");
+        printScenarioRow(out, batch, batch.getCurrent());
+        int skipped = 0;
+        int outsideBand = 0;
+        for (CompensationSimulator.Result result : batch.getResults()) {
+            printScenarioRow(out, batch, result);
+            skipped += result.getSkippedPromotions();
+            double parity = result.getParityRatio();
+            if (parity > 0 && (parity < 98.0 || parity > 102.0)) {
+                outsideBand++;
             }
-        } catch (java.io.IOException e) {
-            System.out.println("No historical rejection data found yet. Start logging!");
+        }
+        out.println("--------------------------------------------------------------------------------------------------------");
+        out.println("(Parity compares female to male average basic pay of Active and Probation staff; the parity");
+        out.println(" report above also counts Notice Period staff.)");
+        if (outsideBand > 0) {
+            out.println("⚠️ [BIAS ALERT] " + outsideBand + " of " + batch.getResults().size()
+                    + " scenarios leave parity outside the 98-102% band.");
+        }
+        if (skipped > 0) {
+            System.err.println("[WARN] " + skipped + " promotion rules name employees who are not Active or Probation staff with a salary. Ignored.");
+        }
+        if (departmentsPath != null && !departmentsPath.trim().isEmpty()) {
+            exportScenarioDepartments(batch, departmentsPath.trim());
+        }
+        return batch;
+    }
+
+    private static void printScenarioRow(PrintStream out, CompensationSimulator.Batch batch, CompensationSimulator.Result result) {
+        double delta = batch.getDelta(result);
+        double base = batch.getCurrent().getAnnualCtc();
+        out.printf("%-28.28s %7.2fx %18s %17s %8s %8s %7d%n", result.getName(), result.getBenefitsMultiplier(),
+                String.format("₹%,.0f", result.getAnnualCtc()), String.format("%s₹%,.0f", delta < 0 ? "-" : "+", Math.abs(delta)),
+                (base > 0) ? String.format("%+.1f%%", delta / base * 100) : "n/a",
+                formatPercent(result.getParityRatio()), result.getPromotions());
+    }
+
+    private static void exportScenarioDepartments(CompensationSimulator.Batch batch, String path) {
+        ReportWriter.Format format = path.toLowerCase().endsWith(".json") ? ReportWriter.Format.JSON : ReportWriter.Format.CSV;
+        try (ReportWriter writer = new ReportWriter(exportSink(path), format,
+                new String[] {"scenario", "department", "staff", "currentCtc", "annualCtc", "delta"}, null, null)) {
+            writer.header(null);
+            List<String> departments = batch.getDepartments();
+            CompensationSimulator.Result current = batch.getCurrent();
+            for (CompensationSimulator.Result result : batch.getResults()) {
+                for (int d = 0; d < departments.size(); d++) {
+                    writer.beginRow();
+                    writer.cell(result.getName());
+                    writer.cell(departments.get(d));
+                    writer.cell(batch.getDepartmentStaff(d));
+                    writer.cell(Math.round(current.getDepartmentCtc(d)));
+                    writer.cell(Math.round(result.getDepartmentCtc(d)));
+                    writer.cell(Math.round(result.getDepartmentCtc(d) - current.getDepartmentCtc(d)));
+                    writer.endRow();
+                }
+            }
+            writer.finish();
+            System.out.println("Exported per-department CTC for " + batch.getResults().size() + " scenarios to " + path);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to export scenario results: " + e.getMessage());
+        }
+    }
+
+    public void generateCycleTimeReport() {
+        generateCycleTimeReport(System.out);
+    }
+
+    // Time from application to offer, from the candidate store's running histograms.
+    public void generateCycleTimeReport(PrintStream out) {
+        out.println("\n--- HIRING CYCLE TIME REPORT ---");
+        CandidateStore store = candidateStore;
+        if (store.size() == 0) {
+            out.println("[INFO] No candidates logged yet.");
             return;
         }
 
-        if (totalDefects == 0) return;
+        try (Metrics.Timer timer = Metrics.time("report.cycletime")) {
+            timer.rows(store.size());
+            CandidateStore.CycleTimes overall = store.overall();
+            int limit = CandidateStore.CYCLE_TIME_LIMIT_DAYS;
+            out.printf("Candidates: %d | Offers made: %d | Awaiting offer: %d%n", store.size(), overall.getOffers(), overall.getPending());
+            out.println("Target: offer within " + limit + " days of application.\n");
+
+            String overLimit = "Over " + limit + "d";
+            out.printf("%-24s %7s %8s %6s %6s %6s %9s%n", "Role", "Offers", "Pending", "p50", "p90", "Max", overLimit);
+            out.println("--------------------------------------------------------------------------");
+            List<String> breaches = new ArrayList<>();
+            for (CandidateStore.CycleTimes role : store.byRole()) {
+                printCycleTimeRow(out, role);
+                if (role.breachesLimit()) {
+                    breaches.add(role.getLabel());
+                }
+            }
+            out.println("--------------------------------------------------------------------------");
+            printCycleTimeRow(out, overall);
+
+            out.printf("%n%-24s %7s %6s %6s %6s %9s%n", "Offer Month (last 12)", "Offers", "p50", "p90", "Max", overLimit);
+            out.println("----------------------------------------------------------------");
+            for (CandidateStore.CycleTimes month : store.byMonth(12)) {
+                out.printf("%-24s %7d %6s %6s %6s %8.1f%%%n", month.getLabel(), month.getOffers(),
+                        formatDays(month.getMedianDays()), formatDays(month.getP90Days()),
+                        formatDays(month.getMaxDays()), month.getOverLimitRate());
+            }
+            out.println("(p50/p90/Max in days from application to offer.)");
 
-        
-        java.util.List<java.util.Map.Entry<String, Integer>> sortedList = new java.util.ArrayList<>(defectCounts.entrySet());
-        sortedList.sort((a, b) -> b.getValue().compareTo(a.getValue())); 
+            if (breaches.isEmpty()) {
+                out.println("✅ [STATUS] Every role makes 90% of its offers within " + limit + " days.");
+            } else {
+                out.println("⚠️ [BOTTLENECK] " + breaches.size() + " role(s) take longer than " + limit
+                        + " days for more than 10% of offers: " + String.join(", ", breaches) + ".");
+            }
+        }
+    }
 
-        System.out.println("Total Defects Analyzed: " + totalDefects);
-        System.out.println("--------------------------------------------------");
+    private static void printCycleTimeRow(PrintStream out, CandidateStore.CycleTimes row) {
+        out.printf("%-24s %7d %8d %6s %6s %6s %8.1f%%%s%n", row.getLabel(), row.getOffers(), row.getPending(),
+                formatDays(row.getMedianDays()), formatDays(row.getP90Days()),
+                (row.getOffers() > 0) ? formatDays(row.getMaxDays()) : "-", row.getOverLimitRate(),
+                row.breachesLimit() ? "  ⚠️" : "");
+    }
+
+    private static String formatDays(int days) {
+        return (days >= 0) ? Integer.toString(days) : "-";
+    }
+
+    public void generateFunnelReport() {
+        generateFunnelReport(System.out, REJECTIONS_FILE);
+    }
+
+    // Applied -> offered -> accepted/declined per role, joined with the logged rejection reasons.
+    public void generateFunnelReport(PrintStream out, String rejectionsFile) {
+        out.println("\n--- RECRUITMENT FUNNEL BY ROLE ---");
+        CandidateStore store = candidateStore;
+        if (store.size() == 0) {
+            out.println("[INFO] No candidates logged yet.");
+            return;
+        }
+
+        FunnelJoin.Funnel funnel;
+        try {
+            funnel = FunnelJoin.compute(store, rejectionsFile);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to read " + rejectionsFile + ": " + e.getMessage());
+            return;
+        }
+
+        try (Metrics.Timer timer = Metrics.time("report.funnel")) {
+            timer.rows(store.size());
+            out.printf("%-24s %8s %8s %9s %9s %9s %11s%n", "Role", "Applied", "Offered", "Accepted", "Declined", "Accept %", "Rejections");
+            out.println("------------------------------------------------------------------------------------------");
+            for (FunnelJoin.RoleFunnel role : funnel.getRoles()) {
+                printFunnelRow(out, role);
+            }
+            out.println("------------------------------------------------------------------------------------------");
+            printFunnelRow(out, funnel.getTotal());
+            out.println("(Accept % = accepted / offered. Rejections = reasons logged in " + rejectionsFile + ".)");
+
+            List<String> reasons = funnel.getReasons();
+            if (!reasons.isEmpty()) {
+                int columns = Math.min(5, reasons.size());
+                out.println("\nRejection reasons by role:");
+                out.printf("%-24s", "Role");
+                for (int r = 0; r < columns; r++) {
+                    out.printf(" %7s", "R" + (r + 1));
+                }
+                out.println((reasons.size() > columns) ? String.format(" %7s", "Rest") : "");
+                out.println("------------------------------------------------------------------------------------------");
+                for (FunnelJoin.RoleFunnel role : funnel.getRoles()) {
+                    if (role.getRejections() > 0) {
+                        printReasonRow(out, role, reasons.size(), columns);
+                    }
+                }
+                out.println("------------------------------------------------------------------------------------------");
+                printReasonRow(out, funnel.getTotal(), reasons.size(), columns);
+                for (int r = 0; r < columns; r++) {
+                    out.println("R" + (r + 1) + " = " + reasons.get(r));
+                }
+            }
+
+            if (funnel.getOrphanRejections() > 0) {
+                out.println("⚠️ [DATA GAP] " + funnel.getOrphanRejections() + " of " + funnel.getRejectionsRead()
+                        + " rejections name a candidate ID that was never logged (e.g. " + String.join(", ", funnel.getOrphanSamples()) + ").");
+            }
+            if (funnel.getRejectedWithoutReason() > 0) {
+                out.println("⚠️ [DATA GAP] " + funnel.getRejectedWithoutReason() + " candidates are marked Rejected but have no rejection reason logged.");
+            }
+            if (funnel.getOrphanRejections() == 0 && funnel.getRejectedWithoutReason() == 0) {
+                out.println("✅ [STATUS] Every rejection matches a logged candidate.");
+            }
+        }
+    }
+
+    private static void printFunnelRow(PrintStream out, FunnelJoin.RoleFunnel role) {
+        out.printf("%-24s %8d %8d %9d %9d %8.1f%% %11d%n", role.getRole(), role.getApplied(), role.getOffered(),
+                role.getAccepted(), role.getDeclined(), role.getAcceptRate(), role.getRejections());
+    }
+
+    private static void printReasonRow(PrintStream out, FunnelJoin.RoleFunnel role, int reasons, int columns) {
+        out.printf("%-24s", role.getRole());
+        int rest = role.getRejections();
+        for (int r = 0; r < columns; r++) {
+            out.printf(" %7d", role.getReasonCount(r));
+            rest -= role.getReasonCount(r);
+        }
+        out.println((reasons > columns) ? String.format(" %7d", rest) : "");
+    }
+
+    public void generateDiagnosticsReport() {
+        generateDiagnosticsReport(System.out);
+    }
+
+    // Timings, row rates and allocation collected since startup, plus the state of the JVM.
+    public void generateDiagnosticsReport(PrintStream out) {
+        out.println("\n--- SYSTEM DIAGNOSTICS ---");
+
+        Dataset current = dataset;
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        out.printf("Employee Master : %d employees (version %d, %s store)%n",
+                current.size(), current.getVersion(), (current.columns() != null) ? "columnar" : "row");
+        out.printf("Column Kernels  : %s%n", Kernels.preferred().getName());
+        out.printf("Heap            : %,.1f MB used of %,.1f MB max%n", usedHeap / 1048576.0, runtime.maxMemory() / 1048576.0);
+        long collections = 0;
+        long collectionMillis = 0;
+        for (java.lang.management.GarbageCollectorMXBean gc : java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, gc.getCollectionCount());
+            collectionMillis += Math.max(0, gc.getCollectionTime());
+        }
+        out.printf("GC              : %d collections, %d ms total%n", collections, collectionMillis);
+        out.println("--------------------------------------------------");
+        Metrics.report(out);
+        out.println("--------------------------------------------------");
+        out.println("💡 Run with -XX:StartFlightRecording=filename=talentcompass.jfr to record these as JFR events.");
+    }
+
+    private void generateParetoChart() {
+        generateParetoChart(System.out, paretoTracker);
+    }
+
+    public void generateParetoChart(PrintStream out, ParetoTracker tracker) {
+        try (Metrics.Timer timer = Metrics.time("report.pareto")) {
+            out.println("\n--- PARETO ANALYSIS: PIPELINE BOTTLENECKS ---");
+            int totalDefects;
+            java.util.List<java.util.Map.Entry<String, Integer>> sortedList;
+
+            // --- FILE I/O: READING ONLY THE NEW TAIL OF THE LOG ---
+            try {
+                tracker.refresh();
+                totalDefects = tracker.getTotal();
+                timer.rows(totalDefects);
+                sortedList = tracker.ranked();
+            } catch (java.io.IOException e) {
+                out.println("No historical rejection data found yet. Start logging!");
+                return;
+            }
+
+            if (totalDefects == 0) return;
+
+            out.println("Total Defects Analyzed: " + totalDefects);
+            out.println("--------------------------------------------------");
         
-        for (java.util.Map.Entry<String, Integer> entry : sortedList) {
-            double percentage = ((double) entry.getValue() / totalDefects) * 100;
-            // %-20s ensures the columns line up perfectly
-            System.out.printf("%-20s | Count: %-2d | %5.1f%%%n", entry.getKey(), entry.getValue(), percentage);
+            for (java.util.Map.Entry<String, Integer> entry : sortedList) {
+                double percentage = ((double) entry.getValue() / totalDefects) * 100;
+                // %-20s ensures the columns line up perfectly
+                out.printf("%-20s | Count: %-2d | %5.1f%%%n", entry.getKey(), entry.getValue(), percentage);
+            }
+            out.println("--------------------------------------------------");
+            out.println("💡 FOCUS AREA: Address the top category to eliminate the largest source of waste.");
         }
-        System.out.println("--------------------------------------------------");
-        System.out.println("💡 FOCUS AREA: Address the top category to eliminate the largest source of waste.");
     }
 
     
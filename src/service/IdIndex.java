@@ -0,0 +1,393 @@
+package service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Persistent open-addressing hash index over an append-only CSV log (candidates.csv,
+// rejections.csv), from the ID in the first field to the byte offset of the first line with that
+// ID. It lives in a memory-mapped <log>.idx: a header, then slots of the 64-bit ID hash
+// (FunnelJoin.hash) and offset + 1, with 0 marking an empty slot. A hit is confirmed by reading
+// the line back from the log, so a lookup is one short probe plus one read whatever the log size.
+//
+// The header records how many bytes of the log are covered. Lines appended since, by this
+// process or any other, are indexed on the next lookup. Before a slot changes the header is
+// marked dirty and synced, and it is marked clean again only after the slots are synced, so an
+// index left dirty by a crash, or one that no longer matches its log, is rebuilt from the log.
+public final class IdIndex implements Closeable {
+    private static final String SUFFIX = ".idx";
+    private static final int MAGIC = 0x54434958; // "TCIX"
+    private static final int VERSION = 1;
+    private static final int CLEAN = 0;
+    private static final int DIRTY = 1;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_CAPACITY = 1024;
+    // Keeps the mapping under 2 GB; at half load that is 32M IDs.
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final int READ_BYTES = 64 * 1024;
+
+    // Header layout.
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int CAPACITY_AT = 8;
+    private static final int ENTRIES_AT = 12;
+    private static final int COVERED_AT = 16;
+    private static final int FINGERPRINT_AT = 24;
+    private static final int STATE_AT = 32;
+    private static final int DUPLICATES_AT = 36;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final FileChannel log;
+    private final FileChannel file;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int mask;
+    private int entries;
+    private int duplicates;
+    private long covered;
+    // Log size at the last scan; it can be past covered when the last line is incomplete.
+    private long seen = -1;
+    private boolean dirty;
+
+    // The log must exist. A missing index is built from it; an invalid one is rebuilt.
+    public IdIndex(String logFile) throws IOException {
+        this.logPath = Paths.get(logFile);
+        this.indexPath = Paths.get(logFile + SUFFIX);
+        this.log = FileChannel.open(logPath, StandardOpenOption.READ);
+        try {
+            this.file = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        try {
+            String problem = (file.size() > 0) ? open() : null;
+            if (file.size() == 0 || problem != null) {
+                if (problem != null) {
+                    System.err.println("[WARN] Rebuilding " + indexPath + ": " + problem + ".");
+                }
+                rebuild();
+            } else {
+                catchUp();
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return indexPath;
+    }
+
+    // The first line logged with this ID (without its line break), or null. Leading and trailing
+    // blanks of the ID are ignored, as in the funnel join.
+    public synchronized String find(String id) throws IOException {
+        catchUp();
+        String key = id.trim();
+        if (key.isEmpty()) {
+            return null;
+        }
+        long hash = FunnelJoin.hash(key);
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            long stored = map.getLong(at + 8);
+            if (stored == 0) {
+                return null;
+            }
+            if (map.getLong(at) == hash) {
+                String line = readLine(stored - 1);
+                if (key.equals(idOf(line))) {
+                    return line;
+                }
+            }
+        }
+    }
+
+    // Distinct IDs indexed so far.
+    public synchronized int size() {
+        return entries;
+    }
+
+    // Lines seen in the log whose ID was already logged further up.
+    public synchronized int getDuplicates() {
+        return duplicates;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            file.close();
+        } finally {
+            log.close();
+        }
+    }
+
+    // Maps an existing index file, or says why it cannot be used.
+    private String open() throws IOException {
+        if (file.size() < HEADER_BYTES) {
+            return "file is truncated";
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && file.read(header, header.position()) > 0) {
+            // Reads the whole header.
+        }
+        if (header.getInt(MAGIC_AT) != MAGIC || header.getInt(VERSION_AT) != VERSION) {
+            return "unknown format";
+        }
+        int savedCapacity = header.getInt(CAPACITY_AT);
+        if (savedCapacity < MIN_CAPACITY || savedCapacity > MAX_CAPACITY || Integer.bitCount(savedCapacity) != 1
+                || file.size() != HEADER_BYTES + (long) savedCapacity * SLOT_BYTES) {
+            return "file size does not match its header";
+        }
+        if (header.getInt(STATE_AT) != CLEAN) {
+            return "it was not closed cleanly";
+        }
+        long savedCovered = header.getLong(COVERED_AT);
+        if (savedCovered > log.size() || ParetoTracker.fingerprint(log, savedCovered) != header.getLong(FINGERPRINT_AT)) {
+            return logPath + " was truncated or replaced";
+        }
+        capacity = savedCapacity;
+        mask = capacity - 1;
+        entries = header.getInt(ENTRIES_AT);
+        duplicates = header.getInt(DUPLICATES_AT);
+        covered = savedCovered;
+        map = file.map(FileChannel.MapMode.READ_WRITE, 0, file.size());
+        return null;
+    }
+
+    // Keeps the table size of a usable file, so the file is never truncated while it is mapped.
+    private void rebuild() throws IOException {
+        long slots = (file.size() - HEADER_BYTES) / SLOT_BYTES;
+        if (file.size() == HEADER_BYTES + slots * SLOT_BYTES && slots >= MIN_CAPACITY && slots <= MAX_CAPACITY
+                && Long.bitCount(slots) == 1) {
+            capacity = (int) slots;
+        } else {
+            file.truncate(0);
+            capacity = MIN_CAPACITY;
+        }
+        mask = capacity - 1;
+        entries = 0;
+        duplicates = 0;
+        covered = 0;
+        map = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        markDirty();
+        for (int at = HEADER_BYTES; at < map.capacity(); at += 8) {
+            map.putLong(at, 0);
+        }
+        seen = log.size();
+        scan(seen);
+        commit();
+        if (duplicates > 0) {
+            System.err.println("[WARN] " + logPath + " already repeats " + duplicates
+                    + " earlier IDs; lookups return the first line logged for each ID.");
+        }
+    }
+
+    // Indexes the complete lines appended since the last call. The first bytes of the log are
+    // only compared again when its size has changed.
+    private void catchUp() throws IOException {
+        long size = log.size();
+        if (size == seen) {
+            return;
+        }
+        if (size < covered || (covered > 0 && ParetoTracker.fingerprint(log, covered) != map.getLong(FINGERPRINT_AT))) {
+            System.err.println("[WARN] " + logPath + " was truncated or replaced. Rebuilding " + indexPath + ".");
+            rebuild();
+            return;
+        }
+        long before = covered;
+        scan(size);
+        seen = size;
+        if (covered != before) {
+            commit();
+        }
+    }
+
+    // Reads the log from covered to size. covered only moves past lines that end in a newline;
+    // a line still being written is picked up by a later call.
+    private void scan(long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BYTES);
+        byte[] field = new byte[64];
+        int fieldLength = 0;
+        boolean inField = true;
+        long lineStart = covered;
+        long position = covered;
+        while (position < size) {
+            buffer.clear();
+            int read = log.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    if (!blank(field, fieldLength)) {
+                        insert(field, fieldLength, lineStart);
+                    }
+                    lineStart = position + i + 1;
+                    covered = lineStart;
+                    fieldLength = 0;
+                    inField = true;
+                } else if (inField) {
+                    if (b == ',') {
+                        inField = false;
+                    } else {
+                        if (fieldLength == field.length) {
+                            field = Arrays.copyOf(field, fieldLength * 2);
+                        }
+                        field[fieldLength++] = b;
+                    }
+                }
+            }
+            position += read;
+        }
+    }
+
+    // Equal hashes are taken as the same ID, as in the funnel join; find still compares the ID
+    // itself before answering.
+    private void insert(byte[] field, int length, long offset) throws IOException {
+        long hash = FunnelJoin.hash(ByteBuffer.wrap(field), 0, length);
+        int slot = (int) hash & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            long stored = map.getLong(at + 8);
+            if (stored == 0) {
+                break;
+            }
+            if (map.getLong(at) == hash) {
+                duplicates++;
+                return;
+            }
+        }
+        markDirty();
+        put(slot, hash, offset);
+        entries++;
+        if (entries * 2L > capacity) {
+            grow();
+        }
+    }
+
+    private void put(int slot, long hash, long offset) {
+        int at = HEADER_BYTES + slot * SLOT_BYTES;
+        map.putLong(at, hash);
+        map.putLong(at + 8, offset + 1);
+    }
+
+    // Doubles the table in place; the file is already marked dirty, so a crash half way through
+    // leads to a rebuild.
+    private void grow() throws IOException {
+        if (capacity == MAX_CAPACITY) {
+            throw new IOException(indexPath + " is full");
+        }
+        long[] hashes = new long[entries];
+        long[] offsets = new long[entries];
+        int n = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = HEADER_BYTES + slot * SLOT_BYTES;
+            long stored = map.getLong(at + 8);
+            if (stored != 0) {
+                hashes[n] = map.getLong(at);
+                offsets[n] = stored - 1;
+                n++;
+                map.putLong(at, 0);
+                map.putLong(at + 8, 0);
+            }
+        }
+        capacity *= 2;
+        mask = capacity - 1;
+        map = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        for (int i = 0; i < n; i++) {
+            int slot = (int) hashes[i] & mask;
+            while (map.getLong(HEADER_BYTES + slot * SLOT_BYTES + 8) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            put(slot, hashes[i], offsets[i]);
+        }
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            writeHeader(DIRTY, 0);
+            map.force();
+            dirty = true;
+        }
+    }
+
+    private void commit() throws IOException {
+        long fingerprint = ParetoTracker.fingerprint(log, covered);
+        if (dirty) {
+            map.force();
+        }
+        writeHeader(CLEAN, fingerprint);
+        if (dirty) {
+            map.force();
+            dirty = false;
+        }
+    }
+
+    private void writeHeader(int state, long fingerprint) {
+        map.putInt(MAGIC_AT, MAGIC);
+        map.putInt(VERSION_AT, VERSION);
+        map.putInt(CAPACITY_AT, capacity);
+        map.putInt(ENTRIES_AT, entries);
+        map.putLong(COVERED_AT, covered);
+        map.putLong(FINGERPRINT_AT, fingerprint);
+        map.putInt(STATE_AT, state);
+        map.putInt(DUPLICATES_AT, duplicates);
+    }
+
+    // The log line starting at offset, without its line break.
+    private String readLine(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        long position = offset;
+        while (true) {
+            buffer.clear();
+            int read = log.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            int end = 0;
+            while (end < read && buffer.get(end) != '\n') {
+                end++;
+            }
+            line.write(buffer.array(), 0, end);
+            if (end < read) {
+                break;
+            }
+            position += read;
+        }
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String idOf(String line) {
+        int comma = line.indexOf(',');
+        return ((comma >= 0) ? line.substring(0, comma) : line).trim();
+    }
+
+    private static boolean blank(byte[] field, int length) {
+        for (int i = 0; i < length; i++) {
+            if ((field[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package service;
+
+// Chooses the AggregationKernels once per JVM. VectorKernels is loaded by name so the rest of
+// the project still compiles for Java 11: it is used when its class was compiled (vector/, with
+// --add-modules jdk.incubator.vector on JDK 16 or later) and the JVM was started with the same
+// flag. Otherwise, or with -Dtalentcompass.kernels=scalar, the scalar loops are used.
+public final class Kernels {
+    private static final AggregationKernels PREFERRED = load();
+
+    private Kernels() {
+    }
+
+    public static AggregationKernels preferred() {
+        return PREFERRED;
+    }
+
+    public static AggregationKernels scalar() {
+        return ScalarKernels.INSTANCE;
+    }
+
+    private static AggregationKernels load() {
+        if ("scalar".equalsIgnoreCase(System.getProperty("talentcompass.kernels"))) {
+            return ScalarKernels.INSTANCE;
+        }
+        try {
+            return (AggregationKernels) Class.forName("service.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // Not compiled, an older JDK, or the incubator module was not added.
+            return ScalarKernels.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package service;
+
+public enum LoadMode {
+    AUTO,
+    SEQUENTIAL,
+    PARALLEL_MAPPED
+}
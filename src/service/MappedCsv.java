@@ -0,0 +1,96 @@
+package service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+// Helpers for splitting a CSV file into newline-aligned byte ranges that can be
+// memory-mapped and parsed independently, and for collecting the chunk results.
+final class MappedCsv {
+    private static final long MAX_CHUNK_BYTES = 512L * 1024 * 1024;
+    private static final long MIN_CHUNK_BYTES = 1024L * 1024;
+
+    private MappedCsv() {
+    }
+
+    // Returns the position just after the next '\n' at or after pos, or size if there is none.
+    static long skipLine(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    // Boundaries b[0] = from, b[n] = size; every inner boundary starts a fresh line.
+    static long[] chunkBoundaries(FileChannel channel, long from, long size, int parallelism) throws IOException {
+        long bytes = size - from;
+        int chunks = (int) Math.max(1, Math.min((long) parallelism * 4, bytes / MIN_CHUNK_BYTES));
+        chunks = (int) Math.max(chunks, (bytes + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+        long[] raw = new long[chunks + 1];
+        raw[0] = from;
+        int n = 1;
+        for (int i = 1; i < chunks; i++) {
+            long nominal = from + (bytes * i) / chunks;
+            long aligned = skipLine(channel, Math.max(nominal - 1, raw[n - 1]), size);
+            if (aligned > raw[n - 1] && aligned < size) {
+                raw[n++] = aligned;
+            }
+        }
+        raw[n++] = size;
+        long[] boundaries = new long[n];
+        System.arraycopy(raw, 0, boundaries, 0, n);
+        return boundaries;
+    }
+
+    static MappedByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    // Index of the '\n' that ends the line starting at lineStart, or limit for the last line.
+    static int lineEnd(ByteBuffer buf, int lineStart, int limit) {
+        int i = lineStart;
+        while (i < limit && buf.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    // Drops a trailing '\r' so CRLF files read the same as they do through BufferedReader.
+    static int trimCarriageReturn(ByteBuffer buf, int lineStart, int lineEnd) {
+        return (lineEnd > lineStart && buf.get(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd;
+    }
+
+    // join() hands a worker's IOException back wrapped in an unchecked exception; it is
+    // unwrapped here so a failed read reaches the caller like one on the sequential path.
+    // The other chunk tasks are cancelled, since their results are no longer needed.
+    static <T> T join(ForkJoinTask<T> task, List<? extends ForkJoinTask<?>> tasks) throws IOException {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            for (ForkJoinTask<?> other : tasks) {
+                other.cancel(false);
+            }
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package service;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Process-wide counters and latency histograms for the load, report and logging paths.
+// Operations are timed with
+//
+//   try (Metrics.Timer timer = Metrics.time("report.headcount")) { ... timer.rows(n); }
+//
+// which records the duration, the rows processed and the bytes allocated by the calling
+// thread, and emits a talentcompass.Operation Flight Recorder event. Start the JVM with
+// -XX:StartFlightRecording to capture those events alongside the JDK's own.
+public final class Metrics {
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+    private static final LongAdder[] PARSE_FAILURES = new LongAdder[RowError.values().length];
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    static {
+        for (int i = 0; i < PARSE_FAILURES.length; i++) {
+            PARSE_FAILURES[i] = new LongAdder();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static void increment(String counter) {
+        add(counter, 1);
+    }
+
+    public static void add(String counter, long delta) {
+        COUNTERS.computeIfAbsent(counter, name -> new LongAdder()).add(delta);
+    }
+
+    public static long count(String counter) {
+        LongAdder adder = COUNTERS.get(counter);
+        return (adder != null) ? adder.sum() : 0;
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public static void parseFailure(RowError cause) {
+        PARSE_FAILURES[cause.ordinal()].increment();
+    }
+
+    public static long parseFailures(RowError cause) {
+        return PARSE_FAILURES[cause.ordinal()].sum();
+    }
+
+    public static Timer time(String operation) {
+        return new Timer(OPERATIONS.computeIfAbsent(operation, Operation::new));
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 when the JVM does not track it.
+    public static long threadAllocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        try {
+            if (!threads.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!threads.isThreadAllocatedMemoryEnabled()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+            return threads;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    // One timed section. Not thread-safe; use one per invocation.
+    public static final class Timer implements AutoCloseable {
+        private final Operation operation;
+        private final OperationEvent event = new OperationEvent();
+        private final long start;
+        private final long allocatedAtStart;
+        private long rows;
+        private long failures;
+        private long extraAllocated;
+        private boolean closed;
+
+        private Timer(Operation operation) {
+            this.operation = operation;
+            this.event.begin();
+            this.allocatedAtStart = threadAllocatedBytes();
+            this.start = System.nanoTime();
+        }
+
+        public Timer rows(long rows) {
+            this.rows = rows;
+            return this;
+        }
+
+        public Timer failures(long failures) {
+            this.failures = failures;
+            return this;
+        }
+
+        // Allocation done on behalf of this operation by other threads, e.g. parser workers.
+        public Timer allocatedElsewhere(long bytes) {
+            this.extraAllocated += Math.max(0, bytes);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long elapsed = System.nanoTime() - start;
+            long allocated = (allocatedAtStart < 0) ? -1 : threadAllocatedBytes() - allocatedAtStart + extraAllocated;
+            operation.record(elapsed, rows, failures, allocated);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.name;
+                event.rows = rows;
+                event.failures = failures;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class Operation {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder allocated = new LongAdder();
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, long rowCount, long failureCount, long allocatedBytes) {
+            latency.record(nanos);
+            rows.add(rowCount);
+            failures.add(failureCount);
+            if (allocatedBytes > 0) {
+                allocated.add(allocatedBytes);
+            }
+        }
+    }
+
+    public static void report(PrintStream out) {
+        Map<String, Operation> operations = new TreeMap<>(OPERATIONS);
+        out.println("Operations (wall time; allocation on the measuring threads)");
+        if (operations.isEmpty()) {
+            out.println("  none recorded yet");
+        } else {
+            out.printf("  %-22s %6s %10s %10s %10s %14s %12s%n", "Operation", "Calls", "Mean ms", "p99 ms", "Max ms", "Rows/s", "MB/call");
+            for (Operation op : operations.values()) {
+                LatencyHistogram latency = op.latency;
+                long calls = latency.getCount();
+                double seconds = latency.getTotalNanos() / 1e9;
+                long rows = op.rows.sum();
+                out.printf("  %-22s %6d %10.2f %10.2f %10.2f %14s %12.2f%n",
+                        op.name, calls, latency.getMeanNanos() / 1e6, latency.percentile(0.99) / 1e6, latency.getMaxNanos() / 1e6,
+                        (rows > 0 && seconds > 0) ? String.format("%,.0f", rows / seconds) : "-",
+                        (calls > 0) ? op.allocated.sum() / (double) calls / (1024 * 1024) : 0.0);
+            }
+        }
+
+        out.println("\nParse failures by cause");
+        long totalFailures = 0;
+        for (RowError cause : RowError.values()) {
+            long n = parseFailures(cause);
+            if (n > 0) {
+                out.printf("  %-22s %,10d%n", cause.getDescription(), n);
+                totalFailures += n;
+            }
+        }
+        if (totalFailures == 0) {
+            out.println("  none");
+        }
+
+        Map<String, LatencyHistogram> histograms = new TreeMap<>(HISTOGRAMS);
+        out.println("\nLatencies");
+        if (histograms.isEmpty()) {
+            out.println("  none recorded yet");
+        } else {
+            out.printf("  %-22s %8s %10s %10s %10s%n", "Name", "Count", "p50 ms", "p99 ms", "Max ms");
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                LatencyHistogram h = entry.getValue();
+                out.printf("  %-22s %8d %10.3f %10.3f %10.3f%n", entry.getKey(), h.getCount(),
+                        h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.getMaxNanos() / 1e6);
+            }
+        }
+
+        Map<String, LongAdder> counters = new TreeMap<>(COUNTERS);
+        if (!counters.isEmpty()) {
+            out.println("\nCounters");
+            for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+                out.printf("  %-22s %,10d%n", entry.getKey(), entry.getValue().sum());
+            }
+        }
+    }
+
+    @Name("talentcompass.Operation")
+    @Label("TalentCompass Operation")
+    @Category("TalentCompass")
+    @Description("A load, analytics pass or report run")
+    static final class OperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Skipped Rows")
+        long failures;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("talentcompass.LogCommit")
+    @Label("TalentCompass Log Commit")
+    @Category("TalentCompass")
+    @Description("One group commit of the candidate or rejection log")
+    static final class LogCommitEvent extends Event {
+        @Label("Log")
+        String log;
+
+        @Label("Records")
+        int records;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+
+        @Label("Synced")
+        boolean synced;
+    }
+}
@@ -0,0 +1,816 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ranked search over employee names and IDs for the directory. Every word of every name goes
+// into a sorted term dictionary with a posting list of the rows that contain it, so a prefix
+// query is a binary search for the range of terms that start with it: the same walk as a trie,
+// kept in flat arrays. Typing mistakes are caught through trigram posting lists over the terms;
+// terms that share enough trigrams with the query are checked with a bounded edit distance.
+// IDs are matched by prefix through the rows sorted by ID.
+//
+// Results rank exact matches first, then prefix matches (shortest completion first), then
+// approximate ones (fewest edits first), ties in file order, and only the best k are kept.
+// Edits are not merged into the arrays: the rows they touch are indexed again in a small
+// overlay and hidden from the base, until the overlay is big enough to rebuild everything.
+public final class NameIndex {
+    private static final int MAX_OVERLAY_ROWS = 4096;
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int APPROXIMATE = 2;
+    private static final int MAX_SECONDARY = (1 << 24) - 1;
+
+    private final Dataset dataset;
+    private final Segment base;
+    private final Segment overlay;
+
+    private NameIndex(Dataset dataset, Segment base, Segment overlay) {
+        this.dataset = dataset;
+        this.base = base;
+        this.overlay = overlay;
+    }
+
+    public static NameIndex build(Dataset dataset) {
+        return new NameIndex(dataset, Segment.build(dataset, null), null);
+    }
+
+    // The index of next, a copy of this index's dataset with the given rows replaced and any
+    // rows from the old size on appended.
+    NameIndex derive(Dataset next, int[] replacedRows) {
+        IntArrayList changed = new IntArrayList();
+        int[] previous = (overlay != null) ? overlay.rows : new int[0];
+        int[] replaced = replacedRows.clone();
+        Arrays.sort(replaced);
+        int i = 0;
+        int j = 0;
+        while (i < previous.length || j < replaced.length) {
+            int row;
+            if (j == replaced.length || (i < previous.length && previous[i] <= replaced[j])) {
+                row = previous[i++];
+            } else {
+                row = replaced[j++];
+            }
+            if (changed.isEmpty() || changed.get(changed.size() - 1) != row) {
+                changed.add(row);
+            }
+        }
+        for (int row = dataset.size(); row < next.size(); row++) {
+            if (changed.isEmpty() || changed.get(changed.size() - 1) < row) {
+                changed.add(row);
+            }
+        }
+        if (changed.size() > MAX_OVERLAY_ROWS) {
+            return build(next);
+        }
+        return new NameIndex(next, base, Segment.build(next, changed.toArray()));
+    }
+
+    // Rows of the best matches for query, best first; at most limit of them.
+    public int[] search(String query, int limit) {
+        String raw = (query == null) ? "" : query.trim();
+        String[] tokens = tokenize(raw);
+        if (limit < 1 || (tokens.length == 0 && raw.isEmpty())) {
+            return new int[0];
+        }
+        // IDs are matched as typed, so one with a dash or a slash in it still matches.
+        String id = (raw.isEmpty() || raw.indexOf(' ') >= 0) ? null : raw;
+        TopK top = new TopK(limit);
+        int[] hidden = (overlay != null) ? overlay.rows : null;
+        base.collect(dataset, id, tokens, top, hidden);
+        if (overlay != null) {
+            overlay.collect(dataset, id, tokens, top, null);
+        }
+        // Near misses rank below every exact and prefix match, so they are only looked for
+        // when those have not filled the list.
+        if (tokens.length > 0 && !(top.isFull() && top.worstTier() < APPROXIMATE)) {
+            base.collectApproximate(tokens, top, hidden);
+            if (overlay != null) {
+                overlay.collectApproximate(tokens, top, null);
+            }
+        }
+        return top.rows();
+    }
+
+    // Lower-case words of text: runs of letters and digits.
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        List<String> words = null;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (words == null) {
+                    words = new ArrayList<>(4);
+                }
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return (words == null) ? new String[0] : words.toArray(new String[0]);
+    }
+
+    // Edits allowed for an approximate match: none for short words, where almost anything
+    // would be close, then one, then two. One edit changes at most four of a word's trigrams,
+    // so at these lengths a match always shares at least one trigram with the query.
+    private static int maxEdits(String token) {
+        return (token.length() < 5) ? 0 : (token.length() < 9) ? 1 : 2;
+    }
+
+    private static long score(int tier, int secondary) {
+        return ((long) tier << 24) | Math.min(secondary, MAX_SECONDARY);
+    }
+
+    // The indexed form of one set of rows: all of them, or the rows of an overlay.
+    private static final class Segment {
+        // Row at each position, ascending; null when position and row are the same.
+        final int[] rows;
+        final String[] terms;
+        // Rows containing term t are termRows[termStart[t]] up to termRows[termStart[t + 1]].
+        final int[] termStart;
+        final int[] termRows;
+        // Terms of the row at position p are rowTerms[rowStart[p]] up to rowTerms[rowStart[p + 1]].
+        final int[] rowStart;
+        final int[] rowTerms;
+        // Rows with an ID, ordered by ID ignoring case.
+        final int[] idOrder;
+        // Sorted trigram keys; terms containing gram g are gramTerms[gramStart[g]] up to gramTerms[gramStart[g + 1]].
+        final long[] grams;
+        final int[] gramStart;
+        final int[] gramTerms;
+
+        private Segment(int[] rows, String[] terms, int[] termStart, int[] termRows, int[] rowStart, int[] rowTerms,
+                        int[] idOrder, long[] grams, int[] gramStart, int[] gramTerms) {
+            this.rows = rows;
+            this.terms = terms;
+            this.termStart = termStart;
+            this.termRows = termRows;
+            this.rowStart = rowStart;
+            this.rowTerms = rowTerms;
+            this.idOrder = idOrder;
+            this.grams = grams;
+            this.gramStart = gramStart;
+            this.gramTerms = gramTerms;
+        }
+
+        static Segment build(Dataset dataset, int[] rows) {
+            int n = (rows == null) ? dataset.size() : rows.length;
+            Map<String, IntArrayList> postings = new HashMap<>();
+            String[] ids = new String[n];
+            int withId = 0;
+            for (int p = 0; p < n; p++) {
+                int row = (rows == null) ? p : rows[p];
+                for (String word : tokenize(dataset.fullName(row))) {
+                    IntArrayList list = postings.computeIfAbsent(word, w -> new IntArrayList(4));
+                    if (list.isEmpty() || list.get(list.size() - 1) != row) {
+                        list.add(row);
+                    }
+                }
+                ids[p] = dataset.id(row);
+                if (ids[p] != null) {
+                    withId++;
+                }
+            }
+
+            String[] terms = postings.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            int[] termStart = new int[terms.length + 1];
+            for (int t = 0; t < terms.length; t++) {
+                termStart[t + 1] = termStart[t] + postings.get(terms[t]).size();
+            }
+            int[] termRows = new int[termStart[terms.length]];
+            int[] rowStart = new int[n + 1];
+            for (int t = 0; t < terms.length; t++) {
+                IntArrayList list = postings.get(terms[t]);
+                for (int i = 0; i < list.size(); i++) {
+                    termRows[termStart[t] + i] = list.get(i);
+                    rowStart[position(rows, list.get(i)) + 1]++;
+                }
+            }
+            for (int p = 0; p < n; p++) {
+                rowStart[p + 1] += rowStart[p];
+            }
+            int[] rowTerms = new int[termRows.length];
+            int[] filled = Arrays.copyOf(rowStart, n);
+            for (int t = 0; t < terms.length; t++) {
+                for (int i = termStart[t]; i < termStart[t + 1]; i++) {
+                    rowTerms[filled[position(rows, termRows[i])]++] = t;
+                }
+            }
+
+            int[] order = new int[withId];
+            for (int p = 0, i = 0; p < n; p++) {
+                if (ids[p] != null) {
+                    order[i++] = p;
+                }
+            }
+            sortById(order, ids);
+            int[] idOrder = new int[withId];
+            for (int i = 0; i < withId; i++) {
+                idOrder[i] = (rows == null) ? order[i] : rows[order[i]];
+            }
+
+            // Trigrams of each term with two spaces in front, so the first letters count too.
+            Map<Long, IntArrayList> gramLists = new HashMap<>();
+            for (int t = 0; t < terms.length; t++) {
+                String term = terms[t];
+                for (int i = 0; i < term.length(); i++) {
+                    IntArrayList list = gramLists.computeIfAbsent(gram(term, i), g -> new IntArrayList(4));
+                    if (list.isEmpty() || list.get(list.size() - 1) != t) {
+                        list.add(t);
+                    }
+                }
+            }
+            long[] grams = new long[gramLists.size()];
+            int g = 0;
+            for (Long key : gramLists.keySet()) {
+                grams[g++] = key;
+            }
+            Arrays.sort(grams);
+            int[] gramStart = new int[grams.length + 1];
+            for (g = 0; g < grams.length; g++) {
+                gramStart[g + 1] = gramStart[g] + gramLists.get(grams[g]).size();
+            }
+            int[] gramTerms = new int[gramStart[grams.length]];
+            for (g = 0; g < grams.length; g++) {
+                IntArrayList list = gramLists.get(grams[g]);
+                for (int i = 0; i < list.size(); i++) {
+                    gramTerms[gramStart[g] + i] = list.get(i);
+                }
+            }
+            return new Segment(rows, terms, termStart, termRows, rowStart, rowTerms, idOrder, grams, gramStart, gramTerms);
+        }
+
+        private static int position(int[] rows, int row) {
+            return (rows == null) ? row : Arrays.binarySearch(rows, row);
+        }
+
+        // The trigram ending at index i of term, as if the term started with two spaces.
+        private static long gram(String term, int i) {
+            char a = (i >= 2) ? term.charAt(i - 2) : ' ';
+            char b = (i >= 1) ? term.charAt(i - 1) : ' ';
+            return ((long) a << 32) | ((long) b << 16) | term.charAt(i);
+        }
+
+        // Bottom-up merge sort of positions by ID, ignoring case. Exports are usually already in
+        // ID order, so runs that are already in order are not merged.
+        private static void sortById(int[] order, String[] ids) {
+            int[] buffer = new int[order.length];
+            for (int width = 1; width < order.length; width <<= 1) {
+                for (int lo = 0; lo < order.length - width; lo += width << 1) {
+                    int mid = lo + width;
+                    int hi = Math.min(mid + width, order.length);
+                    if (ids[order[mid - 1]].compareToIgnoreCase(ids[order[mid]]) <= 0) {
+                        continue;
+                    }
+                    int i = lo;
+                    int j = mid;
+                    for (int k = lo; k < hi; k++) {
+                        if (j >= hi || (i < mid && ids[order[i]].compareToIgnoreCase(ids[order[j]]) <= 0)) {
+                            buffer[k] = order[i++];
+                        } else {
+                            buffer[k] = order[j++];
+                        }
+                    }
+                    System.arraycopy(buffer, lo, order, lo, hi - lo);
+                }
+            }
+        }
+
+        void collect(Dataset dataset, String id, String[] tokens, TopK top, int[] hidden) {
+            if (id != null) {
+                collectIds(dataset, id, top, hidden);
+            }
+            if (tokens.length == 1) {
+                collectWord(tokens[0], top, hidden);
+            } else if (tokens.length > 1) {
+                collectWords(tokens, top, hidden, false);
+            }
+        }
+
+        // Rows where some token only matches a word approximately.
+        void collectApproximate(String[] tokens, TopK top, int[] hidden) {
+            if (tokens.length > 1) {
+                collectWords(tokens, top, hidden, true);
+                return;
+            }
+            if (maxEdits(tokens[0]) > 0) {
+                approximateTerms(tokens[0], top, hidden);
+            }
+        }
+
+        // IDs starting with id, in ID order.
+        private void collectIds(Dataset dataset, String id, TopK top, int[] hidden) {
+            int lo = 0;
+            int hi = idOrder.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (dataset.id(idOrder[mid]).compareToIgnoreCase(id) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            for (int i = lo; i < idOrder.length; i++) {
+                int row = idOrder[i];
+                String candidate = dataset.id(row);
+                if (!candidate.regionMatches(true, 0, id, 0, id.length())) {
+                    break;
+                }
+                if (isHidden(hidden, row)) {
+                    continue;
+                }
+                int tier = (candidate.length() == id.length()) ? EXACT : PREFIX;
+                if (!top.offer(score(tier, i - lo), row)) {
+                    break;
+                }
+            }
+        }
+
+        private void collectWord(String token, TopK top, int[] hidden) {
+            int lo = lowerBound(token);
+            int hi = prefixEnd(lo, token);
+            for (int t = lo; t < hi; t++) {
+                int tier = (terms[t].length() == token.length()) ? EXACT : PREFIX;
+                offerPostings(t, score(tier, terms[t].length() - token.length()), top, hidden);
+            }
+        }
+
+        // Rows of term t in file order, so the first one the collector turns down ends the list.
+        private void offerPostings(int t, long score, TopK top, int[] hidden) {
+            for (int i = termStart[t]; i < termStart[t + 1]; i++) {
+                int row = termRows[i];
+                if (isHidden(hidden, row)) {
+                    continue;
+                }
+                if (!top.offer(score, row)) {
+                    return;
+                }
+            }
+        }
+
+        // Every token has to match some word of the name: by prefix only, or, with approximate
+        // set, also by a near miss. Candidate rows come from the token with the fewest postings,
+        // or, for near misses, from the postings of the approximate terms alone when those are
+        // fewer, since a row that only matches by prefix was collected in the first pass. Each
+        // candidate is scored against every token through its own list of terms.
+        private void collectWords(String[] tokens, TopK top, int[] hidden, boolean approximate) {
+            int m = tokens.length;
+            int[] lo = new int[m];
+            int[] hi = new int[m];
+            int[][] near = new int[m][];
+            int driver = -1;
+            long driverVolume = Long.MAX_VALUE;
+            long nearVolume = 0;
+            for (int k = 0; k < m; k++) {
+                lo[k] = lowerBound(tokens[k]);
+                hi[k] = prefixEnd(lo[k], tokens[k]);
+                long volume = termStart[hi[k]] - termStart[lo[k]];
+                if (approximate && maxEdits(tokens[k]) > 0) {
+                    near[k] = approximateTerms(tokens[k], null, null).toArray();
+                    for (int match : near[k]) {
+                        long postings = termStart[(match >>> 2) + 1] - termStart[match >>> 2];
+                        volume += postings;
+                        nearVolume += postings;
+                    }
+                }
+                if (volume == 0) {
+                    return;
+                }
+                if (volume < driverVolume) {
+                    driver = k;
+                    driverVolume = volume;
+                }
+            }
+
+            if (!approximate || driverVolume <= nearVolume) {
+                for (int t = lo[driver]; t < hi[driver]; t++) {
+                    scoreRows(t, match(tokens[driver], lo[driver], hi[driver], near[driver], t), tokens, lo, hi, near, approximate, top, hidden);
+                }
+                for (int i = 0; near[driver] != null && i < near[driver].length; i++) {
+                    int t = near[driver][i] >>> 2;
+                    scoreRows(t, score(APPROXIMATE, near[driver][i] & 3), tokens, lo, hi, near, approximate, top, hidden);
+                }
+                return;
+            }
+            for (int k = 0; k < m; k++) {
+                for (int i = 0; near[k] != null && i < near[k].length; i++) {
+                    // Some other word may match this token better, but any near miss costs an edit.
+                    scoreRows(near[k][i] >>> 2, score(APPROXIMATE, 1), tokens, lo, hi, near, approximate, top, hidden);
+                }
+            }
+        }
+
+        // Scores the rows containing term t. No row reached through t scores better than floor,
+        // or it is also reached through a term that gives a lower floor, so rows, which come in
+        // file order, can stop as soon as the collector would turn floor down.
+        private void scoreRows(int t, long floor, String[] tokens, int[] lo, int[] hi, int[][] near,
+                               boolean approximate, TopK top, int[] hidden) {
+            for (int i = termStart[t]; i < termStart[t + 1]; i++) {
+                int row = termRows[i];
+                if (top.isFull() && TopK.key(floor, row) >= top.worst()) {
+                    return;
+                }
+                if (isHidden(hidden, row)) {
+                    continue;
+                }
+                int p = position(rows, row);
+                int tier = 0;
+                int secondary = 0;
+                for (int k = 0; k < tokens.length && tier >= 0; k++) {
+                    long best = -1;
+                    for (int r = rowStart[p]; r < rowStart[p + 1]; r++) {
+                        long s = match(tokens[k], lo[k], hi[k], near[k], rowTerms[r]);
+                        if (s >= 0 && (best < 0 || s < best)) {
+                            best = s;
+                        }
+                    }
+                    if (best < 0) {
+                        tier = -1;
+                    } else {
+                        tier = Math.max(tier, (int) (best >>> 24));
+                        secondary += (int) (best & MAX_SECONDARY);
+                    }
+                }
+                // Rows matched by prefix alone were collected in the first pass.
+                if (tier >= 0 && (!approximate || tier == APPROXIMATE)) {
+                    top.offer(score(tier, secondary), row);
+                }
+            }
+        }
+
+        // Score of term t for a token that matches the terms lo..hi by prefix, or the given
+        // approximate terms; -1 when t is not one of them.
+        private long match(String token, int lo, int hi, int[] approximate, int t) {
+            if (t >= lo && t < hi) {
+                return score((terms[t].length() == token.length()) ? EXACT : PREFIX, terms[t].length() - token.length());
+            }
+            // The approximate terms share the token's first letter, so most terms fall outside them.
+            if (approximate != null && approximate.length > 0 && t >= (approximate[0] >>> 2)
+                    && t <= (approximate[approximate.length - 1] >>> 2)) {
+                int a = 0;
+                int b = approximate.length;
+                while (a < b) {
+                    int mid = (a + b) >>> 1;
+                    if ((approximate[mid] >>> 2) < t) {
+                        a = mid + 1;
+                    } else {
+                        b = mid;
+                    }
+                }
+                if (a < approximate.length && (approximate[a] >>> 2) == t) {
+                    return score(APPROXIMATE, approximate[a] & 3);
+                }
+            }
+            return -1;
+        }
+
+        // Terms within maxEdits(token) edits of a prefix of token, excluding those that simply
+        // start with it, in term order, each packed as term << 2 | edits. As in most search
+        // boxes the first letter has to be right, which confines the candidates to one range
+        // of terms; cheap filters narrow them further and the rest are checked in full.
+        // Given a collector, the rows of each match are offered to it instead, and terms whose
+        // first row could not get in even at one edit are not checked at all.
+        private IntArrayList approximateTerms(String token, TopK top, int[] hidden) {
+            int maxEdits = maxEdits(token);
+            int first = firstLetterStart(token.charAt(0));
+            int last = firstLetterStart((char) (token.charAt(0) + 1));
+            int[] candidates = (maxEdits == 1)
+                    ? oneEditCandidates(token, first, last)
+                    : sharedGramCandidates(token, maxEdits, first, last);
+            IntArrayList matches = new IntArrayList();
+            int[][] dp = new int[3][token.length() + maxEdits + 1];
+            for (int i = 0; i < candidates.length; i++) {
+                int t = candidates[i];
+                if ((i > 0 && t == candidates[i - 1]) || terms[t].startsWith(token)) {
+                    continue;
+                }
+                if (top != null && top.isFull()
+                        && TopK.key(score(APPROXIMATE, 1), termRows[termStart[t]]) >= top.worst()) {
+                    continue;
+                }
+                int edits = prefixDistance(token, terms[t], maxEdits, dp);
+                if (edits > maxEdits) {
+                    continue;
+                }
+                if (top != null) {
+                    offerPostings(t, score(APPROXIMATE, edits), top, hidden);
+                } else {
+                    matches.add(t << 2 | edits);
+                }
+            }
+            return matches;
+        }
+
+        // One edit leaves either the first half of the token or the second half intact. In the
+        // first case the term starts with the first half (or, for a swap across the halves,
+        // with the same letters and the next one swapped); in the second it contains every
+        // trigram of the second half. Sorted, possibly with repeats.
+        private int[] oneEditCandidates(String token, int first, int last) {
+            int half = token.length() / 2;
+            IntArrayList out = new IntArrayList();
+            addPrefixRange(out, token.substring(0, half));
+            char[] swapped = token.substring(0, half + 1).toCharArray();
+            swapped[half] = token.charAt(half - 1);
+            swapped[half - 1] = token.charAt(half);
+            addPrefixRange(out, new String(swapped));
+
+            int lists = token.length() - half - 2;
+            int[] from = new int[lists];
+            int[] to = new int[lists];
+            int shortest = 0;
+            for (int l = 0; l < lists; l++) {
+                int g = Arrays.binarySearch(grams, gram(token, half + 2 + l));
+                if (g < 0) {
+                    lists = 0;
+                    break;
+                }
+                from[l] = lowerBound(gramTerms, gramStart[g], gramStart[g + 1], first);
+                to[l] = lowerBound(gramTerms, from[l], gramStart[g + 1], last);
+                if (to[l] - from[l] < to[shortest] - from[shortest]) {
+                    shortest = l;
+                }
+            }
+            for (int i = (lists > 0) ? from[shortest] : 0; lists > 0 && i < to[shortest]; i++) {
+                int t = gramTerms[i];
+                boolean all = true;
+                for (int l = 0; l < lists && all; l++) {
+                    all = l == shortest || Arrays.binarySearch(gramTerms, from[l], to[l], t) >= 0;
+                }
+                if (all) {
+                    out.add(t);
+                }
+            }
+            int[] candidates = out.toArray();
+            Arrays.sort(candidates);
+            return candidates;
+        }
+
+        private void addPrefixRange(IntArrayList out, String prefix) {
+            int lo = lowerBound(prefix);
+            int hi = prefixEnd(lo, prefix);
+            for (int t = lo; t < hi; t++) {
+                out.add(t);
+            }
+        }
+
+        // Terms sharing enough of the token's trigrams, found by merging the trigram lists. One
+        // edit (a swap, at worst) changes at most four trigrams; a word that repeats its
+        // trigrams can be close without sharing any, so then every term is a candidate.
+        private int[] sharedGramCandidates(String token, int maxEdits, int first, int last) {
+            long[] tokenGrams = new long[token.length()];
+            for (int i = 0; i < token.length(); i++) {
+                tokenGrams[i] = gram(token, i);
+            }
+            Arrays.sort(tokenGrams);
+            int lists = 0;
+            int distinct = 0;
+            int[] from = new int[tokenGrams.length];
+            int[] to = new int[tokenGrams.length];
+            for (int i = 0; i < tokenGrams.length; i++) {
+                if (i > 0 && tokenGrams[i] == tokenGrams[i - 1]) {
+                    continue;
+                }
+                distinct++;
+                int g = Arrays.binarySearch(grams, tokenGrams[i]);
+                if (g >= 0) {
+                    from[lists] = lowerBound(gramTerms, gramStart[g], gramStart[g + 1], first);
+                    to[lists] = lowerBound(gramTerms, from[lists], gramStart[g + 1], last);
+                    lists++;
+                }
+            }
+            int needed = distinct - 4 * maxEdits;
+            IntArrayList out = new IntArrayList();
+            if (needed < 1) {
+                for (int t = first; t < last; t++) {
+                    out.add(t);
+                }
+                return out.toArray();
+            }
+            while (true) {
+                int t = Integer.MAX_VALUE;
+                for (int l = 0; l < lists; l++) {
+                    if (from[l] < to[l]) {
+                        t = Math.min(t, gramTerms[from[l]]);
+                    }
+                }
+                if (t == Integer.MAX_VALUE) {
+                    return out.toArray();
+                }
+                int shared = 0;
+                for (int l = 0; l < lists; l++) {
+                    if (from[l] < to[l] && gramTerms[from[l]] == t) {
+                        shared++;
+                        from[l]++;
+                    }
+                }
+                if (shared >= needed) {
+                    out.add(t);
+                }
+            }
+        }
+
+        // Fewest edits (insertions, deletions, substitutions or swaps of neighbours) that turn
+        // token into some prefix of term, or max + 1 if that is more than max. Only the band of
+        // cells within max of the diagonal can stay within max, so only those are computed.
+        private static int prefixDistance(String token, String term, int max, int[][] dp) {
+            int over = max + 1;
+            int columns = Math.min(term.length(), token.length() + max);
+            int[] before = dp[0];
+            int[] previous = dp[1];
+            int[] current = dp[2];
+            for (int j = 0; j <= columns; j++) {
+                previous[j] = Math.min(j, over);
+            }
+            for (int i = 1; i <= token.length(); i++) {
+                char c = token.charAt(i - 1);
+                int from = Math.max(1, i - max);
+                int to = Math.min(columns, i + max);
+                current[0] = Math.min(i, over);
+                if (from > 1) {
+                    current[from - 1] = over;
+                }
+                int rowMin = current[0];
+                for (int j = from; j <= to; j++) {
+                    int cost = (c == term.charAt(j - 1)) ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    if (i > 1 && j > 1 && c == term.charAt(j - 2) && token.charAt(i - 2) == term.charAt(j - 1)) {
+                        value = Math.min(value, before[j - 2] + 1);
+                    }
+                    current[j] = Math.min(value, over);
+                    rowMin = Math.min(rowMin, current[j]);
+                }
+                if (to < columns) {
+                    current[to + 1] = over;
+                }
+                if (rowMin > max) {
+                    return over;
+                }
+                int[] recycled = before;
+                before = previous;
+                previous = current;
+                current = recycled;
+            }
+            int best = over;
+            for (int j = Math.max(0, token.length() - max); j <= columns; j++) {
+                best = Math.min(best, previous[j]);
+            }
+            return best;
+        }
+
+        // First term whose first letter is not less than c.
+        private int firstLetterStart(char c) {
+            int lo = 0;
+            int hi = terms.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (terms[mid].charAt(0) < c) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // First index from lo up to hi whose value is not less than value.
+        private static int lowerBound(int[] sorted, int lo, int hi, int value) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // First term not less than prefix.
+        private int lowerBound(String prefix) {
+            int lo = 0;
+            int hi = terms.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (terms[mid].compareTo(prefix) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // First term from lo on that does not start with prefix; the ones that do are contiguous.
+        private int prefixEnd(int lo, String prefix) {
+            int hi = terms.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (terms[mid].startsWith(prefix)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static boolean isHidden(int[] hidden, int row) {
+            return hidden != null && Arrays.binarySearch(hidden, row) >= 0;
+        }
+    }
+
+    // The k best (score, row) pairs seen so far, as a max-heap of packed keys so the worst one
+    // is at the root. A row offered twice keeps its better score.
+    private static final class TopK {
+        private final long[] heap;
+        private int size;
+
+        TopK(int k) {
+            heap = new long[k];
+        }
+
+        static long key(long score, int row) {
+            return (score << 32) | row;
+        }
+
+        boolean isFull() {
+            return size == heap.length;
+        }
+
+        long worst() {
+            return heap[0];
+        }
+
+        int worstTier() {
+            return (int) (heap[0] >>> 56);
+        }
+
+        // Returns false when the pair is no better than the k kept already, so a caller going
+        // through pairs in increasing order can stop.
+        boolean offer(long score, int row) {
+            long key = key(score, row);
+            if (size == heap.length && key >= heap[0]) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if ((int) heap[i] == row) {
+                    if (key < heap[i]) {
+                        heap[i] = key;
+                        siftDown(i);
+                    }
+                    return true;
+                }
+            }
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && heap[(i - 1) >>> 1] < key) {
+                    heap[i] = heap[(i - 1) >>> 1];
+                    i = (i - 1) >>> 1;
+                }
+                heap[i] = key;
+            } else {
+                heap[0] = key;
+                siftDown(0);
+            }
+            return true;
+        }
+
+        private void siftDown(int i) {
+            long key = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (heap[child] <= key) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = key;
+        }
+
+        int[] rows() {
+            long[] sorted = Arrays.copyOf(heap, size);
+            Arrays.sort(sorted);
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = (int) sorted[i];
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import model.Employee;
+
+// Memory-maps the employee master, splits it into newline-aligned chunks and parses them
+// in parallel on the common fork-join pool. Chunk results are merged in file order, so the
+// employee list and the quarantined rows come out exactly as the sequential reader produces them.
+public class ParallelEmployeeLoader {
+    static final int FIELD_COUNT = 8;
+
+    public static final class Result {
+        private final List<Employee> employees;
+        private final long skipped;
+        private final long workerAllocatedBytes;
+
+        Result(List<Employee> employees, long skipped, long workerAllocatedBytes) {
+            this.employees = employees;
+            this.skipped = skipped;
+            this.workerAllocatedBytes = workerAllocatedBytes;
+        }
+
+        public List<Employee> getEmployees() {
+            return employees;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        // Bytes allocated by the pool threads while parsing, or 0 when the JVM does not track it.
+        public long getWorkerAllocatedBytes() {
+            return workerAllocatedBytes;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public ParallelEmployeeLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelEmployeeLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Skipped rows are handed to the quarantine on the calling thread, in file order.
+    public Result load(String filePath, Quarantine quarantine) throws IOException {
+        Path path = Paths.get(filePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = MappedCsv.skipLine(channel, 0, size);
+            long[] bounds = MappedCsv.chunkBoundaries(channel, dataStart, size, pool.getParallelism());
+
+            List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                tasks.add(pool.submit(() -> parseChunk(channel, from, to)));
+            }
+
+            List<Employee> employees = new ArrayList<>();
+            long skipped = 0;
+            int linesBefore = 1;
+            long allocated = 0;
+            for (ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = MappedCsv.join(task, tasks);
+                allocated += chunk.allocated;
+                employees.addAll(chunk.employees);
+                for (int i = 0; i < chunk.rejectedLines.size(); i++) {
+                    quarantine.reject(linesBefore + chunk.rejectedLines.get(i), chunk.rejectedCauses.get(i),
+                            chunk.rejectedDetails.get(i), chunk.rejectedRecords.get(i));
+                }
+                skipped += chunk.rejectedLines.size();
+                linesBefore += chunk.lines;
+            }
+            return new Result(employees, skipped, allocated);
+        }
+    }
+
+    private static Chunk parseChunk(FileChannel channel, long from, long to) throws IOException {
+        Chunk chunk = new Chunk();
+        if (to <= from) {
+            return chunk;
+        }
+        long allocatedBefore = Metrics.threadAllocatedBytes();
+        MappedByteBuffer buf = MappedCsv.map(channel, from, to);
+        int limit = buf.limit();
+        CsvFields fields = new CsvFields();
+        ByteStringCache dictionary = new ByteStringCache();
+        LocalDate[] dateCache = new LocalDate[4096];
+        long[] dateKeys = new long[4096];
+
+        int pos = 0;
+        while (pos < limit) {
+            int newline = MappedCsv.lineEnd(buf, pos, limit);
+            int end = MappedCsv.trimCarriageReturn(buf, pos, newline);
+            chunk.lines++;
+            parseLine(buf, pos, end, fields, dictionary, dateCache, dateKeys, chunk);
+            pos = newline + 1;
+        }
+        if (allocatedBefore >= 0) {
+            chunk.allocated = Metrics.threadAllocatedBytes() - allocatedBefore;
+        }
+        return chunk;
+    }
+
+    private static void parseLine(MappedByteBuffer buf, int start, int end, CsvFields fields,
+                                  ByteStringCache dictionary, LocalDate[] dateCache, long[] dateKeys,
+                                  Chunk chunk) {
+        if (CsvFields.isBlank(buf, start, end)) {
+            chunk.reject(RowError.BLANK_LINE, null, buf, start, end);
+            return;
+        }
+
+        int count = fields.split(buf, start, end);
+        if (count < FIELD_COUNT) {
+            chunk.reject(RowError.MISSING_FIELDS, count + " of " + FIELD_COUNT + " fields", buf, start, end);
+            return;
+        }
+
+        try {
+            LocalDate joiningDate = cachedDate(fields, 5, dateCache, dateKeys);
+            double salary = fields.decimal(6);
+            chunk.employees.add(new Employee(
+                    fields.string(0),
+                    fields.string(1),
+                    dictionary.intern(fields, 2),
+                    dictionary.intern(fields, 3),
+                    dictionary.intern(fields, 4),
+                    joiningDate,
+                    salary,
+                    dictionary.intern(fields, 7)));
+        } catch (RuntimeException e) {
+            chunk.reject(RowError.classify(e), e.getMessage(), buf, start, end);
+        }
+    }
+
+    private static LocalDate cachedDate(CsvFields fields, int field, LocalDate[] cache, long[] keys) {
+        long epochDay = fields.epochDay(field);
+        if (epochDay == Long.MIN_VALUE) {
+            return fields.date(field);
+        }
+        int slot = (int) (epochDay & (cache.length - 1));
+        LocalDate cached = cache[slot];
+        if (cached == null || keys[slot] != epochDay) {
+            cached = LocalDate.ofEpochDay(epochDay);
+            cache[slot] = cached;
+            keys[slot] = epochDay;
+        }
+        return cached;
+    }
+
+    private static final class Chunk {
+        final List<Employee> employees = new ArrayList<>();
+        final List<Integer> rejectedLines = new ArrayList<>();
+        final List<RowError> rejectedCauses = new ArrayList<>();
+        final List<String> rejectedDetails = new ArrayList<>();
+        final List<String> rejectedRecords = new ArrayList<>();
+        int lines;
+        long allocated;
+
+        void reject(RowError cause, String detail, MappedByteBuffer buf, int start, int end) {
+            byte[] record = new byte[end - start];
+            for (int i = 0; i < record.length; i++) {
+                record[i] = buf.get(start + i);
+            }
+            rejectedLines.add(lines);
+            rejectedCauses.add(cause);
+            rejectedDetails.add(detail);
+            rejectedRecords.add(new String(record, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Keeps the rejection reason counts for rejections.csv in memory, together with the byte
+// offset of the log that has already been counted. Each refresh reads only the bytes
+// appended since the last one (by this process or any other), and the counts plus offset
+// are checkpointed next to the log so a restart does not re-read the history either.
+public class ParetoTracker {
+    private static final String CHECKPOINT_SUFFIX = ".pareto";
+    private static final int FINGERPRINT_BYTES = 1024;
+
+    private final Path logPath;
+    private final Path checkpointPath;
+    private final HashMap<String, Integer> counts = new HashMap<>();
+    private int total;
+    private long offset;
+    private long fingerprint;
+    private String pendingReason;
+
+    public ParetoTracker(String logFile) {
+        this.logPath = Paths.get(logFile);
+        this.checkpointPath = Paths.get(logFile + CHECKPOINT_SUFFIX);
+        loadCheckpoint();
+    }
+
+    // Counts everything appended since the last refresh. Throws NoSuchFileException when
+    // there is no log yet.
+    public synchronized void refresh() throws IOException {
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset || (offset > 0 && fingerprint(channel, offset) != fingerprint)) {
+                System.err.println("[WARN] " + logPath + " was truncated or replaced. Rebuilding Pareto counts.");
+                reset();
+            }
+
+            long before = offset;
+            readTail(channel, size);
+            if (offset != before) {
+                fingerprint = fingerprint(channel, offset);
+                saveCheckpoint();
+            }
+        }
+    }
+
+    public synchronized int getTotal() {
+        return total + (pendingReason != null ? 1 : 0);
+    }
+
+    // Reasons ranked by count, highest first.
+    public synchronized List<Map.Entry<String, Integer>> ranked() {
+        HashMap<String, Integer> view = counts;
+        if (pendingReason != null) {
+            view = new HashMap<>(counts);
+            view.merge(pendingReason, 1, Integer::sum);
+        }
+        List<Map.Entry<String, Integer>> sortedList = new ArrayList<>(view.entrySet());
+        sortedList.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+        return sortedList;
+    }
+
+    private void readTail(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        long position = offset;
+        pendingReason = null;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    count(decode(line));
+                    line.reset();
+                    offset = position + i + 1;
+                } else {
+                    line.write(b);
+                }
+            }
+            position += read;
+        }
+        // A last line without its newline is still shown, but only committed once it is complete.
+        if (line.size() > 0) {
+            pendingReason = reasonOf(decode(line));
+        }
+    }
+
+    private void count(String line) {
+        String reason = reasonOf(line);
+        if (reason != null) {
+            counts.merge(reason, 1, Integer::sum);
+            total++;
+        }
+    }
+
+    private static String reasonOf(String line) {
+        String[] parts = line.split(",");
+        return (parts.length >= 2) ? parts[1] : null;
+    }
+
+    private static String decode(ByteArrayOutputStream line) {
+        byte[] bytes = line.toByteArray();
+        int len = bytes.length;
+        if (len > 0 && bytes[len - 1] == '\r') {
+            len--;
+        }
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+
+    // CRC of the first bytes of the log, to notice a file that was replaced rather than appended to.
+    static long fingerprint(FileChannel channel, long upTo) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(upTo, FINGERPRINT_BYTES));
+        while (head.hasRemaining()) {
+            if (channel.read(head, head.position()) <= 0) {
+                break;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head.array(), 0, head.position());
+        return crc.getValue();
+    }
+
+    private void reset() {
+        counts.clear();
+        total = 0;
+        offset = 0;
+        fingerprint = 0;
+        pendingReason = null;
+    }
+
+    private void loadCheckpoint() {
+        try (BufferedReader reader = Files.newBufferedReader(checkpointPath, StandardCharsets.UTF_8)) {
+            String[] header = reader.readLine().split(",");
+            long savedOffset = Long.parseLong(header[0]);
+            long savedFingerprint = Long.parseLong(header[1]);
+            HashMap<String, Integer> savedCounts = new HashMap<>();
+            int savedTotal = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                int count = Integer.parseInt(line.substring(0, comma));
+                savedCounts.put(line.substring(comma + 1), count);
+                savedTotal += count;
+            }
+            counts.putAll(savedCounts);
+            total = savedTotal;
+            offset = savedOffset;
+            fingerprint = savedFingerprint;
+        } catch (NoSuchFileException e) {
+            // First run: the whole log is read on the first refresh.
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[WARN] Ignoring unreadable Pareto checkpoint " + checkpointPath + ": " + e.getMessage());
+            reset();
+        }
+    }
+
+    private void saveCheckpoint() {
+        Path temp = Paths.get(checkpointPath + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(offset + "," + fingerprint);
+                writer.newLine();
+                for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                    writer.write(entry.getValue() + "," + entry.getKey());
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("[WARN] Could not save Pareto checkpoint: " + e.getMessage());
+        }
+    }
+}
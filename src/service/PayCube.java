@@ -0,0 +1,224 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Headcount, salary totals and a salary QuantileSketch for every department x role x gender x
+// status combination of one Dataset, as built by GroupByEngine. Coarser views (one department's
+// roles, the whole org by department, ...) are roll-ups of these cells, so drilling down never
+// rescans the employees.
+public final class PayCube {
+    public enum Dimension {
+        DEPARTMENT, ROLE, GENDER, STATUS
+    }
+
+    public static final class Cell {
+        private final String[] values;
+        private final byte genderClass;
+        private final byte statusClass;
+        private int count;
+        private int paidCount;
+        private double salarySum;
+        private final QuantileSketch salaries = new QuantileSketch();
+
+        Cell(String department, String role, String gender, String status, byte genderClass, byte statusClass) {
+            this.values = new String[] {department, role, gender, status};
+            this.genderClass = genderClass;
+            this.statusClass = statusClass;
+        }
+
+        void add(int count, int paidCount, double salarySum, QuantileSketch salaries) {
+            this.count += count;
+            this.paidCount += paidCount;
+            this.salarySum += salarySum;
+            this.salaries.merge(salaries);
+        }
+
+        public String get(Dimension dimension) {
+            return values[dimension.ordinal()];
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        // Employees in the cell with a usable (present, non-negative) salary.
+        public int getPaidCount() {
+            return paidCount;
+        }
+
+        public double getSalarySum() {
+            return salarySum;
+        }
+
+        public double getMeanSalary() {
+            return (paidCount > 0) ? salarySum / paidCount : 0;
+        }
+
+        public double getSalaryQuantile(double q) {
+            return salaries.quantile(q);
+        }
+
+        byte genderClass() {
+            return genderClass;
+        }
+
+        byte statusClass() {
+            return statusClass;
+        }
+    }
+
+    // One row of a roll-up. Pay figures cover current staff (Active, Probation and Notice
+    // Period), the same population as the org-wide parity report.
+    public static final class Group {
+        private final List<String> key;
+        private int count;
+        private int staffCount;
+        private int paidCount;
+        private double salarySum;
+        private int maleCount;
+        private double maleSalarySum;
+        private int femaleCount;
+        private double femaleSalarySum;
+        private final QuantileSketch salaries = new QuantileSketch();
+        private final QuantileSketch maleSalaries = new QuantileSketch();
+        private final QuantileSketch femaleSalaries = new QuantileSketch();
+
+        Group(List<String> key) {
+            this.key = key;
+        }
+
+        void add(Cell cell) {
+            count += cell.count;
+            if (!onStaff(cell.statusClass)) {
+                return;
+            }
+            staffCount += cell.count;
+            paidCount += cell.paidCount;
+            salarySum += cell.salarySum;
+            salaries.merge(cell.salaries);
+            if (cell.genderClass == EmployeeCodes.GENDER_MALE) {
+                maleCount += cell.paidCount;
+                maleSalarySum += cell.salarySum;
+                maleSalaries.merge(cell.salaries);
+            } else if (cell.genderClass == EmployeeCodes.GENDER_FEMALE) {
+                femaleCount += cell.paidCount;
+                femaleSalarySum += cell.salarySum;
+                femaleSalaries.merge(cell.salaries);
+            }
+        }
+
+        public List<String> getKey() {
+            return key;
+        }
+
+        // Everyone in the group, including exited employees.
+        public int getCount() {
+            return count;
+        }
+
+        public int getStaffCount() {
+            return staffCount;
+        }
+
+        public double getMeanSalary() {
+            return (paidCount > 0) ? salarySum / paidCount : 0;
+        }
+
+        public int getMaleCount() {
+            return maleCount;
+        }
+
+        public int getFemaleCount() {
+            return femaleCount;
+        }
+
+        public double getAvgMaleSalary() {
+            return (maleCount > 0) ? maleSalarySum / maleCount : 0;
+        }
+
+        public double getAvgFemaleSalary() {
+            return (femaleCount > 0) ? femaleSalarySum / femaleCount : 0;
+        }
+
+        public double getParityRatio() {
+            double avgMaleSalary = getAvgMaleSalary();
+            return (avgMaleSalary > 0) ? (getAvgFemaleSalary() / avgMaleSalary) * 100 : 0.0;
+        }
+
+        public double getSalaryQuantile(double q) {
+            return salaries.quantile(q);
+        }
+
+        public double getMedianParityRatio() {
+            double maleMedian = maleSalaries.median();
+            return (maleMedian > 0) ? (femaleSalaries.median() / maleMedian) * 100 : 0.0;
+        }
+    }
+
+    private final long datasetVersion;
+    private final List<Cell> cells;
+
+    PayCube(long datasetVersion, List<Cell> cells) {
+        this.datasetVersion = datasetVersion;
+        this.cells = Collections.unmodifiableList(cells);
+    }
+
+    static boolean onStaff(byte statusClass) {
+        return statusClass == EmployeeCodes.STATUS_ACTIVE
+                || statusClass == EmployeeCodes.STATUS_PROBATION
+                || statusClass == EmployeeCodes.STATUS_NOTICE_PERIOD;
+    }
+
+    public long getDatasetVersion() {
+        return datasetVersion;
+    }
+
+    public List<Cell> cells() {
+        return cells;
+    }
+
+    public static Map<Dimension, String> filter() {
+        return new EnumMap<>(Dimension.class);
+    }
+
+    // Groups the cells matching every (dimension, value) pair in filter by the given dimensions,
+    // sorted by key. With no dimensions the result is a single total row.
+    public List<Group> rollup(Map<Dimension, String> filter, Dimension... by) {
+        Map<List<String>, Group> groups = new TreeMap<>(PayCube::compareKeys);
+        for (Cell cell : cells) {
+            if (!matches(cell, filter)) {
+                continue;
+            }
+            List<String> key = new ArrayList<>(by.length);
+            for (Dimension dimension : by) {
+                key.add(cell.get(dimension));
+            }
+            groups.computeIfAbsent(key, Group::new).add(cell);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static boolean matches(Cell cell, Map<Dimension, String> filter) {
+        for (Map.Entry<Dimension, String> entry : filter.entrySet()) {
+            if (!cell.get(entry.getKey()).equalsIgnoreCase(entry.getValue().trim())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareKeys(List<String> a, List<String> b) {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int c = a.get(i).compareToIgnoreCase(b.get(i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+}
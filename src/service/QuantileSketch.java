@@ -0,0 +1,114 @@
+package service;
+
+// Mergeable quantile sketch for non-negative amounts, in the style of DDSketch: values are
+// counted in logarithmic buckets whose bounds grow by a factor of (1 + a) / (1 - a), so any
+// quantile is returned within a relative error of a = 1% of the true value. Buckets are held
+// in one dense array of at most MAX_BINS counts (2 KB), whatever the number of values; if the
+// values span more than that (a factor of about 25,000 between the smallest and largest), the
+// lowest buckets are folded together. Merging adds bucket counts, so a sketch merged from
+// partitions is identical to one built over all the values in one pass.
+public final class QuantileSketch {
+    static final double RELATIVE_ACCURACY = 0.01;
+    static final int MAX_BINS = 512;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int[] EMPTY = new int[0];
+
+    private int[] counts = EMPTY;
+    // Bucket index of counts[0].
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException("Sketch values must be non-negative: " + value);
+        }
+        count++;
+        if (value == 0) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+        int position = slot(index, index);
+        counts[position]++;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                last = i;
+                if (first < 0) {
+                    first = i;
+                }
+            }
+        }
+        if (first < 0) {
+            return;
+        }
+        slot(other.offset + first, other.offset + last);
+        for (int i = first; i <= last; i++) {
+            int index = Math.max(other.offset + i, offset);
+            counts[index - offset] += other.counts[i];
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Value at quantile q (0 <= q <= 1), or 0 for an empty sketch.
+    public double quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        double rank = Math.min(Math.max(q, 0), 1) * (count - 1);
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, offset + counts.length - 1) / (GAMMA + 1);
+    }
+
+    public double median() {
+        return quantile(0.5);
+    }
+
+    // Makes the dense array cover bucket indices low..high and returns the position of low.
+    // When that would need more than MAX_BINS buckets, the lowest ones are folded into the
+    // lowest bucket kept.
+    private int slot(int low, int high) {
+        if (counts.length == 0) {
+            offset = Math.max(low, high - MAX_BINS + 1);
+            counts = new int[Math.min(high - low + 1, MAX_BINS)];
+            return Math.max(low, offset) - offset;
+        }
+        if (low >= offset && high < offset + counts.length) {
+            return low - offset;
+        }
+        int newHigh = Math.max(high, offset + counts.length - 1);
+        int newLow = Math.max(Math.min(low, offset), newHigh - MAX_BINS + 1);
+        int[] grown = new int[newHigh - newLow + 1];
+        for (int i = 0; i < counts.length; i++) {
+            int index = Math.max(offset + i, newLow);
+            grown[index - newLow] += counts[i];
+        }
+        counts = grown;
+        offset = newLow;
+        return Math.max(low, offset) - offset;
+    }
+}
@@ -0,0 +1,153 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Collects the rows a load had to skip and the records an analytics pass had to leave out.
+// Skipped rows go through a buffered writer to <csv>.quarantine with their line number and
+// error code; only the first few problems are printed, and closing prints one summary line
+// with the count per cause. Not thread-safe: one instance per load or pass.
+public final class Quarantine implements Closeable {
+    public static final String SUFFIX = ".quarantine";
+
+    private static final int CONSOLE_WARNINGS = 10;
+
+    private final String source;
+    private final Path file;
+    private final PrintStream console;
+    private final long[] counts = new long[RowError.values().length];
+    private long total;
+    private BufferedWriter writer;
+    private boolean writeFailed;
+
+    private Quarantine(String source, Path file, PrintStream console) {
+        this.source = source;
+        this.file = file;
+        this.console = console;
+    }
+
+    public static Quarantine forFile(String csvFile) {
+        return new Quarantine(csvFile, pathFor(csvFile), System.err);
+    }
+
+    // Console warnings and the summary only, for problems that have no input line to keep.
+    public static Quarantine consoleOnly(String source) {
+        return new Quarantine(source, null, System.err);
+    }
+
+    public static Path pathFor(String csvFile) {
+        return Paths.get(csvFile + SUFFIX);
+    }
+
+    // An input row that was skipped. detail and record may be null.
+    public void reject(long line, RowError code, String detail, String record) {
+        Metrics.parseFailure(code);
+        if (count(code)) {
+            console.println("[WARN] Skipping row " + line + " (" + code.getDescription() + ")"
+                    + ((detail != null) ? ": " + detail : "") + ".");
+        }
+        if (file != null && !writeFailed) {
+            try {
+                if (writer == null) {
+                    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                    writer.write("line,code,detail,record");
+                    writer.newLine();
+                }
+                writer.write(Long.toString(line));
+                writer.write(',');
+                writer.write(code.name());
+                writer.write(',');
+                writeField(detail);
+                writer.write(',');
+                writeField(record);
+                writer.newLine();
+            } catch (IOException e) {
+                writeFailed = true;
+                console.println("[WARN] Cannot write quarantine file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // A loaded record left out of a calculation.
+    public void exclude(String id, RowError code, String detail) {
+        if (count(code)) {
+            console.println("[WARN] Employee ID " + ((id != null) ? id : "N/A") + " excluded (" + code.getDescription() + ")"
+                    + ((detail != null) ? ": " + detail : "") + ".");
+        }
+    }
+
+    // Counts the problem and returns whether it should still be printed individually.
+    private boolean count(RowError code) {
+        counts[code.ordinal()]++;
+        total++;
+        if (total == CONSOLE_WARNINGS + 1) {
+            console.println("[WARN] Further problems in " + source + " are not shown individually; see the summary below.");
+        }
+        return total <= CONSOLE_WARNINGS;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCount(RowError code) {
+        return counts[code.ordinal()];
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // Flushes the quarantine file and prints the per-cause summary. A load without problems
+    // removes the quarantine file left by an earlier load of the same CSV.
+    @Override
+    public void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                console.println("[WARN] Cannot write quarantine file " + file + ": " + e.getMessage());
+            }
+        } else if (file != null && total == 0) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                console.println("[WARN] Cannot remove stale quarantine file " + file + ": " + e.getMessage());
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+
+        StringBuilder summary = new StringBuilder("[WARN] ").append(source).append(": ").append(total)
+                .append((file != null) ? " rows skipped (" : " records excluded (");
+        String separator = "";
+        for (RowError code : RowError.values()) {
+            long n = counts[code.ordinal()];
+            if (n > 0) {
+                summary.append(separator).append(n).append(' ').append(code.getDescription());
+                separator = ", ";
+            }
+        }
+        summary.append(')');
+        if (writer != null && !writeFailed) {
+            summary.append(". Details in ").append(file);
+        }
+        console.println(summary.append('.'));
+    }
+}
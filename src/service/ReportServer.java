@@ -0,0 +1,500 @@
+package service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Local HTTP front end for the reports, so several analysts can read them from one loaded
+// HRSystem instead of taking turns at the terminal. Every endpoint answers GET with JSON.
+//
+// Handlers only read the current immutable Dataset and the analytics cached on it, so requests
+// never lock against each other or against a hot reload. The JSON for the headcount, attrition
+// and parity reports is rendered once per analytics snapshot and then served as the same bytes;
+// the directory and gratuity lists are served a page at a time. The Pareto counts are refreshed
+// from the rejection log at most once a second, by whichever request gets there first, while
+// concurrent requests serve the previous counts.
+// Requests run on virtual threads when the JVM has them (Java 21+) and on a cached pool of
+// platform threads otherwise.
+public final class ReportServer {
+    public static final int DEFAULT_PORT = 8088;
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 10_000;
+    static final int DEFAULT_SEARCH_RESULTS = 10;
+    static final int MAX_SEARCH_RESULTS = 100;
+
+    private static final int BACKLOG = 1024;
+    private static final long PARETO_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+
+    private final HRSystem hris;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private final AtomicReference<Rendered> headcount = new AtomicReference<>();
+    private final AtomicReference<Rendered> attrition = new AtomicReference<>();
+    private final AtomicReference<Rendered> parity = new AtomicReference<>();
+    private final AtomicBoolean paretoRefreshing = new AtomicBoolean();
+    private volatile Rendered pareto;
+
+    private ReportServer(HRSystem hris, HttpServer server, ExecutorService executor, boolean virtualThreads) {
+        this.hris = hris;
+        this.server = server;
+        this.executor = executor;
+        this.virtualThreads = virtualThreads;
+    }
+
+    // Binds to the loopback interface only; port 0 picks a free port.
+    public static ReportServer start(HRSystem hris, int port) throws IOException {
+        // The JDK server writes the headers and the body separately; with Nagle's algorithm on,
+        // the body then waits for the client's delayed ACK, adding about 40 ms to every small
+        // response. The setting is read once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        ExecutorService executor = virtualThreadExecutor();
+        boolean virtual = executor != null;
+        if (!virtual) {
+            executor = Executors.newCachedThreadPool(daemonThreads("report-http-"));
+        }
+        ReportServer reportServer = new ReportServer(hris, server, executor, virtual);
+        reportServer.route("/", "index", query -> reportServer.index());
+        reportServer.route("/api/health", "health", query -> reportServer.health());
+        reportServer.route("/api/directory", "directory", reportServer::directory);
+        reportServer.route("/api/search", "search", reportServer::search);
+        reportServer.route("/api/headcount", "headcount", query -> reportServer.analyticsReport(reportServer.headcount, ReportServer::headcountJson));
+        reportServer.route("/api/attrition", "attrition", query -> reportServer.analyticsReport(reportServer.attrition, ReportServer::attritionJson));
+        reportServer.route("/api/parity", "parity", query -> reportServer.analyticsReport(reportServer.parity, ReportServer::parityJson));
+        reportServer.route("/api/gratuity", "gratuity", reportServer::gratuity);
+        reportServer.route("/api/pareto", "pareto", query -> reportServer.pareto());
+        server.setExecutor(executor);
+        server.start();
+        return reportServer;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // Stops accepting requests, gives running ones up to a second to finish, and releases
+    // awaitStop().
+    public synchronized void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        stopped.countDown();
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively so the project still
+    // compiles for Java 11; null when this JVM has no (non-preview) virtual threads.
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger next = new AtomicInteger(1);
+        return task -> {
+            Thread thread = new Thread(task, prefix + next.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private interface Handler {
+        byte[] handle(Map<String, String> query) throws IOException;
+    }
+
+    private interface Renderer {
+        void render(StringBuilder json, Dataset current, AnalyticsSnapshot snapshot) throws IOException;
+    }
+
+    // JSON rendered for one analytics snapshot (or, for Pareto, at one time).
+    private static final class Rendered {
+        final Object key;
+        final byte[] body;
+        final long renderedAt;
+
+        Rendered(Object key, byte[] body) {
+            this.key = key;
+            this.body = body;
+            this.renderedAt = System.nanoTime();
+        }
+    }
+
+    private void route(String path, String name, Handler handler) {
+        String operation = "http." + name;
+        server.createContext(path, exchange -> serve(exchange, path, operation, handler));
+    }
+
+    private void serve(HttpExchange exchange, String path, String operation, Handler handler) throws IOException {
+        try (Metrics.Timer timer = Metrics.time(operation)) {
+            int status = 200;
+            byte[] body;
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    status = 404;
+                    body = error("No such endpoint: " + exchange.getRequestURI().getPath());
+                } else if (!"GET".equals(exchange.getRequestMethod())) {
+                    status = 405;
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    body = error("Only GET is supported.");
+                } else {
+                    body = handler.handle(query(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = error(e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[ERROR] " + operation + " failed: " + e);
+                status = 500;
+                body = error("Internal error; see the server console.");
+            }
+            if (status != 200) {
+                timer.failures(1);
+                Metrics.increment("http.errors");
+            }
+            exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = (eq < 0) ? pair : pair.substring(0, eq);
+            String value = (eq < 0) ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue, int max) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < 1 || parsed > max) {
+                throw new IllegalArgumentException(name + " must be between 1 and " + max + ".");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number.");
+        }
+    }
+
+    private byte[] index() {
+        StringBuilder json = new StringBuilder(512).append('{');
+        key(json, "endpoints").append('[');
+        for (String path : new String[] {"/api/health", "/api/directory?page=1&size=" + DEFAULT_PAGE_SIZE, "/api/search?q=", "/api/headcount",
+                "/api/attrition", "/api/parity", "/api/gratuity?page=1&size=" + DEFAULT_PAGE_SIZE, "/api/pareto"}) {
+            if (json.charAt(json.length() - 1) != '[') {
+                json.append(", ");
+            }
+            ReportWriter.appendJson(json, path);
+        }
+        return json.append("]}").append(System.lineSeparator()).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] health() {
+        Dataset current = hris.getDataset();
+        StringBuilder json = new StringBuilder(256).append('{');
+        key(json, "status");
+        ReportWriter.appendJson(json, "ok");
+        key(json, "datasetVersion").append(current.getVersion());
+        key(json, "employees").append(current.size());
+        key(json, "candidates").append(hris.getCandidateStore().size());
+        key(json, "virtualThreads").append(virtualThreads);
+        return finish(json);
+    }
+
+    private byte[] directory(Map<String, String> query) throws IOException {
+        Dataset current = hris.getDataset();
+        int size = intParameter(query, "size", DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        int pages = Math.max(1, (current.size() + size - 1) / size);
+        int page = intParameter(query, "page", 1, Integer.MAX_VALUE);
+        if (page > pages) {
+            throw new IllegalArgumentException("page must be between 1 and " + pages + ".");
+        }
+        int from = (page - 1) * size;
+        int to = Math.min(from + size, current.size());
+        LocalDate today = LocalDate.now();
+
+        StringBuilder json = new StringBuilder(256 + (to - from) * 96).append('{');
+        key(json, "asOf");
+        ReportWriter.appendJson(json, today.toString());
+        key(json, "datasetVersion").append(current.getVersion());
+        key(json, "page").append(page);
+        key(json, "pages").append(pages);
+        key(json, "size").append(size);
+        key(json, "total").append(current.size());
+        key(json, "employees");
+        HRSystem.writeDirectoryJson(json, current, from, to, today);
+        return finish(json);
+    }
+
+    // Type-ahead search: cheap enough to call on every keystroke.
+    private byte[] search(Map<String, String> query) {
+        String text = query.get("q");
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("q must name part of an employee name or ID.");
+        }
+        int limit = intParameter(query, "limit", DEFAULT_SEARCH_RESULTS, MAX_SEARCH_RESULTS);
+        Dataset current = hris.getDataset();
+        int[] rows = current.nameIndex().search(text, limit);
+
+        StringBuilder json = new StringBuilder(256 + rows.length * 128).append('{');
+        key(json, "query");
+        ReportWriter.appendJson(json, text.trim());
+        key(json, "datasetVersion").append(current.getVersion());
+        key(json, "employees").append('[');
+        for (int row : rows) {
+            if (json.charAt(json.length() - 1) != '[') {
+                json.append(',');
+            }
+            json.append(System.lineSeparator()).append("  {");
+            key(json, "id");
+            ReportWriter.appendJson(json, current.id(row));
+            key(json, "name");
+            ReportWriter.appendJson(json, current.fullName(row));
+            key(json, "department");
+            ReportWriter.appendJson(json, current.department(row));
+            key(json, "role");
+            ReportWriter.appendJson(json, current.role(row));
+            key(json, "status");
+            ReportWriter.appendJson(json, current.status(row));
+            json.append('}');
+        }
+        closeArray(json);
+        return finish(json);
+    }
+
+    // Paged like the directory, over the eligible employees of the current analytics snapshot.
+    private byte[] gratuity(Map<String, String> query) throws IOException {
+        Dataset current = hris.getDataset();
+        AnalyticsSnapshot snapshot = current.analytics(LocalDate.now());
+        int eligible = snapshot.getGratuityEligibleCount();
+        int size = intParameter(query, "size", DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        int pages = Math.max(1, (eligible + size - 1) / size);
+        int page = intParameter(query, "page", 1, Integer.MAX_VALUE);
+        if (page > pages) {
+            throw new IllegalArgumentException("page must be between 1 and " + pages + ".");
+        }
+        int from = (page - 1) * size;
+        int to = Math.min(from + size, eligible);
+
+        StringBuilder json = new StringBuilder(256 + (to - from) * 112).append('{');
+        key(json, "asOf");
+        ReportWriter.appendJson(json, snapshot.getAsOf().toString());
+        key(json, "datasetVersion").append(snapshot.getDatasetVersion());
+        key(json, "page").append(page);
+        key(json, "pages").append(pages);
+        key(json, "size").append(size);
+        key(json, "total").append(eligible);
+        key(json, "employees");
+        HRSystem.writeGratuityJson(json, current, snapshot, from, to);
+        return finish(json);
+    }
+
+    // Serves the cached JSON for the current analytics snapshot, rendering it first if the
+    // dataset or the date has changed. Two requests racing on a new snapshot both render the
+    // same bytes, which is cheaper than making every reader take a lock.
+    private byte[] analyticsReport(AtomicReference<Rendered> cache, Renderer renderer) throws IOException {
+        Dataset current = hris.getDataset();
+        AnalyticsSnapshot snapshot = current.analytics(LocalDate.now());
+        Rendered rendered = cache.get();
+        if (rendered != null && rendered.key == snapshot) {
+            return rendered.body;
+        }
+        StringBuilder json = new StringBuilder(1024).append('{');
+        key(json, "asOf");
+        ReportWriter.appendJson(json, snapshot.getAsOf().toString());
+        key(json, "datasetVersion").append(snapshot.getDatasetVersion());
+        renderer.render(json, current, snapshot);
+        rendered = new Rendered(snapshot, finish(json));
+        cache.set(rendered);
+        return rendered.body;
+    }
+
+    private static void headcountJson(StringBuilder json, Dataset current, AnalyticsSnapshot snapshot) {
+        key(json, "totalHires").append(snapshot.getTotalHires());
+        key(json, "departments").append('[');
+        for (Map.Entry<String, Integer> entry : snapshot.getHeadcountByDepartment().entrySet()) {
+            if (json.charAt(json.length() - 1) != '[') {
+                json.append(',');
+            }
+            json.append(System.lineSeparator()).append("  {");
+            key(json, "department");
+            ReportWriter.appendJson(json, entry.getKey());
+            key(json, "employees").append(entry.getValue().intValue());
+            json.append('}');
+        }
+        closeArray(json);
+    }
+
+    private static void attritionJson(StringBuilder json, Dataset current, AnalyticsSnapshot snapshot) {
+        double controlLimit = 15.0;
+        key(json, "totalHires").append(snapshot.getTotalHires());
+        key(json, "currentActive").append(snapshot.getActiveCount() + snapshot.getNoticePeriodCount());
+        key(json, "exited").append(snapshot.getExitedCount());
+        key(json, "noticePeriod").append(snapshot.getNoticePeriodCount());
+        number(key(json, "turnoverRatePercent"), snapshot.getTurnoverRate());
+        number(key(json, "controlLimitPercent"), controlLimit);
+        key(json, "withinControlLimit").append(snapshot.getTurnoverRate() <= controlLimit);
+    }
+
+    private static void parityJson(StringBuilder json, Dataset current, AnalyticsSnapshot snapshot) {
+        key(json, "male");
+        salaryJson(json, snapshot.getMaleCount(), snapshot.getAvgMaleSalary(), snapshot.getMaleSalaryQuantile(0.1),
+                snapshot.getMaleSalaryQuantile(0.5), snapshot.getMaleSalaryQuantile(0.9));
+        key(json, "female");
+        salaryJson(json, snapshot.getFemaleCount(), snapshot.getAvgFemaleSalary(), snapshot.getFemaleSalaryQuantile(0.1),
+                snapshot.getFemaleSalaryQuantile(0.5), snapshot.getFemaleSalaryQuantile(0.9));
+        number(key(json, "parityRatioPercent"), snapshot.getParityRatio());
+        number(key(json, "medianParityRatioPercent"), snapshot.getMedianParityRatio());
+    }
+
+    private static void salaryJson(StringBuilder json, int count, double average, double p10, double median, double p90) {
+        json.append('{');
+        key(json, "employees").append(count);
+        number(key(json, "avgSalary"), average);
+        number(key(json, "p10Salary"), p10);
+        number(key(json, "medianSalary"), median);
+        number(key(json, "p90Salary"), p90);
+        json.append('}');
+    }
+
+    private byte[] pareto() throws IOException {
+        Rendered rendered = pareto;
+        if (rendered != null && System.nanoTime() - rendered.renderedAt < PARETO_REFRESH_NANOS) {
+            return rendered.body;
+        }
+        boolean owner = paretoRefreshing.compareAndSet(false, true);
+        if (!owner && rendered != null) {
+            return rendered.body;
+        }
+        try {
+            ParetoTracker tracker = hris.paretoTracker();
+            int total;
+            List<Map.Entry<String, Integer>> ranked;
+            try {
+                tracker.refresh();
+                total = tracker.getTotal();
+                ranked = tracker.ranked();
+            } catch (NoSuchFileException e) {
+                total = 0;
+                ranked = List.of();
+            }
+
+            StringBuilder json = new StringBuilder(512).append('{');
+            key(json, "total").append(total);
+            key(json, "reasons").append('[');
+            for (Map.Entry<String, Integer> entry : ranked) {
+                if (json.charAt(json.length() - 1) != '[') {
+                    json.append(',');
+                }
+                json.append(System.lineSeparator()).append("  {");
+                key(json, "reason");
+                ReportWriter.appendJson(json, entry.getKey());
+                key(json, "count").append(entry.getValue().intValue());
+                number(key(json, "percent"), 100.0 * entry.getValue() / total);
+                json.append('}');
+            }
+            closeArray(json);
+            rendered = new Rendered(null, finish(json));
+            pareto = rendered;
+            return rendered.body;
+        } finally {
+            if (owner) {
+                paretoRefreshing.set(false);
+            }
+        }
+    }
+
+    // Appends the member name, preceded by a separator unless it is the first in its object.
+    private static StringBuilder key(StringBuilder json, String name) {
+        char last = json.charAt(json.length() - 1);
+        if (last != '{' && last != '[') {
+            json.append(", ");
+        }
+        ReportWriter.appendJson(json, name);
+        return json.append(": ");
+    }
+
+    private static void closeArray(StringBuilder json) {
+        if (json.charAt(json.length() - 1) != '[') {
+            json.append(System.lineSeparator());
+        }
+        json.append(']');
+    }
+
+    // Two decimal places; null for NaN or infinity, which JSON cannot represent.
+    private static void number(StringBuilder json, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            json.append("null");
+        } else {
+            json.append(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).toPlainString());
+        }
+    }
+
+    private static byte[] finish(StringBuilder json) {
+        int end = json.length();
+        while (end > 0 && Character.isWhitespace(json.charAt(end - 1))) {
+            end--;
+        }
+        json.setLength(end);
+        return json.append('}').append(System.lineSeparator()).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] error(String message) {
+        StringBuilder json = new StringBuilder(128).append('{');
+        key(json, "error");
+        ReportWriter.appendJson(json, message);
+        return finish(json);
+    }
+}
@@ -0,0 +1,254 @@
+package service;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+// Streams a tabular report as aligned text, CSV or JSON. Cells are formatted into one
+// reusable StringBuilder and handed to the sink in large chunks, so a million-row report
+// costs a few hundred writes instead of one synchronized printf per row, and nothing
+// beyond the current chunk is held in memory.
+public final class ReportWriter implements Closeable {
+    public enum Format {
+        TEXT, CSV, JSON;
+
+        public String extension() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final int CHUNK_CHARS = 64 * 1024;
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String PADDING = "                                                            ";
+
+    private final Appendable sink;
+    private final Format format;
+    private final String[] names;
+    private final int[] widths;
+    private final String[] textSuffixes;
+    private final StringBuilder buffer = new StringBuilder(CHUNK_CHARS + 1024);
+    private int cell;
+    private long rows;
+
+    // widths and textSuffixes only affect TEXT output; a width of 0 leaves the cell unpadded.
+    public ReportWriter(Appendable sink, Format format, String[] names, int[] widths, String[] textSuffixes) {
+        this.sink = sink;
+        this.format = format;
+        this.names = names;
+        this.widths = widths;
+        this.textSuffixes = textSuffixes;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public long getRowCount() {
+        return rows;
+    }
+
+    public void header(String textRule) throws IOException {
+        if (format == Format.TEXT) {
+            for (int i = 0; i < names.length; i++) {
+                separator(i);
+                pad(names[i], widths[i]);
+            }
+            buffer.append(NEWLINE).append(textRule).append(NEWLINE);
+        } else if (format == Format.CSV) {
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                csv(names[i]);
+            }
+            buffer.append(NEWLINE);
+        } else {
+            buffer.append('[');
+        }
+    }
+
+    public void beginRow() {
+        cell = 0;
+        if (format == Format.JSON) {
+            buffer.append(rows == 0 ? NEWLINE + "  {" : "," + NEWLINE + "  {");
+        }
+    }
+
+    public void cell(String value) {
+        String text = (value != null) ? value : (format == Format.TEXT ? "N/A" : null);
+        switch (format) {
+            case TEXT:
+                separator(cell);
+                if (textSuffixes[cell] != null) {
+                    buffer.append(text).append(textSuffixes[cell]);
+                } else {
+                    pad(text, widths[cell]);
+                }
+                break;
+            case CSV:
+                if (cell > 0) {
+                    buffer.append(',');
+                }
+                if (text != null) {
+                    csv(text);
+                }
+                break;
+            default:
+                jsonKey();
+                if (text == null) {
+                    buffer.append("null");
+                } else {
+                    json(text);
+                }
+        }
+        cell++;
+    }
+
+    public void cell(long value) {
+        switch (format) {
+            case TEXT:
+                separator(cell);
+                int start = buffer.length();
+                buffer.append(value);
+                if (textSuffixes[cell] != null) {
+                    buffer.append(textSuffixes[cell]);
+                } else {
+                    padFrom(start, widths[cell]);
+                }
+                break;
+            case CSV:
+                if (cell > 0) {
+                    buffer.append(',');
+                }
+                buffer.append(value);
+                break;
+            default:
+                jsonKey();
+                buffer.append(value);
+        }
+        cell++;
+    }
+
+    public void endRow() throws IOException {
+        buffer.append(format == Format.JSON ? "}" : NEWLINE);
+        rows++;
+        if (buffer.length() >= CHUNK_CHARS) {
+            drain();
+        }
+    }
+
+    // Writes the closing bracket for JSON and pushes everything buffered to the sink.
+    public void finish() throws IOException {
+        if (format == Format.JSON) {
+            buffer.append(rows == 0 ? "]" : NEWLINE + "]").append(NEWLINE);
+        }
+        drain();
+        if (sink instanceof Flushable) {
+            ((Flushable) sink).flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        if (sink instanceof Closeable) {
+            ((Closeable) sink).close();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (buffer.length() > 0) {
+            sink.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    private void separator(int index) {
+        if (index > 0) {
+            buffer.append(" | ");
+        }
+    }
+
+    private void pad(String text, int width) {
+        int start = buffer.length();
+        buffer.append(text);
+        padFrom(start, width);
+    }
+
+    private void padFrom(int start, int width) {
+        int missing = width - (buffer.length() - start);
+        while (missing > 0) {
+            int n = Math.min(missing, PADDING.length());
+            buffer.append(PADDING, 0, n);
+            missing -= n;
+        }
+    }
+
+    private void jsonKey() {
+        if (cell > 0) {
+            buffer.append(", ");
+        }
+        json(names[cell]);
+        buffer.append(": ");
+    }
+
+    private void csv(String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            buffer.append(text);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+
+    private void json(String text) {
+        appendJson(buffer, text);
+    }
+
+    // Appends text as a quoted JSON string.
+    static void appendJson(StringBuilder buffer, String text) {
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        buffer.append('"');
+    }
+}
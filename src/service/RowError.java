@@ -0,0 +1,45 @@
+package service;
+
+import java.time.DateTimeException;
+
+// Why an input row was skipped, or a loaded record left out of a calculation. The constant
+// name is the error code written to the quarantine file and used in metrics.
+public enum RowError {
+    BLANK_LINE("blank line"),
+    MISSING_FIELDS("missing fields"),
+    BAD_DATE("unparseable date"),
+    BAD_NUMBER("unparseable number"),
+    NULL_RECORD("null record"),
+    OTHER("other error"),
+    NULL_STATUS("null status"),
+    UNKNOWN_STATUS("unrecognised status"),
+    FUTURE_JOINING_DATE("joining date in the future"),
+    NULL_GENDER("null gender"),
+    UNKNOWN_GENDER("unrecognised gender"),
+    MISSING_SALARY("missing salary"),
+    NEGATIVE_SALARY("negative salary"),
+    OFFER_BEFORE_APPLICATION("offer date before application date");
+
+    private final String description;
+
+    RowError(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public static RowError classify(Exception e) {
+        if (e instanceof ArrayIndexOutOfBoundsException) {
+            return MISSING_FIELDS;
+        }
+        if (e instanceof DateTimeException) {
+            return BAD_DATE;
+        }
+        if (e instanceof NumberFormatException) {
+            return BAD_NUMBER;
+        }
+        return OTHER;
+    }
+}
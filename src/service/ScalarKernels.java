@@ -0,0 +1,69 @@
+package service;
+
+// Plain loops for every AggregationKernels operation. Set membership is a shift of the code
+// set, and the sums pick a value or zero instead of branching, so the loops stay cheap on data
+// where the filter matches at random.
+final class ScalarKernels implements AggregationKernels {
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    private ScalarKernels() {
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void countCodes(byte[] codes, int from, int to, long[] counts) {
+        for (int row = from; row < to; row++) {
+            counts[codes[row] & 0xFF]++;
+        }
+    }
+
+    @Override
+    public void countKeys(int[] keys, byte[] filter, long filterSet, int from, int to, long[] counts) {
+        for (int row = from; row < to; row++) {
+            if (in(filterSet, filter[row])) {
+                counts[keys[row]]++;
+            }
+        }
+    }
+
+    @Override
+    public void sumSalaries(double[] values, byte[] genders, long genderSet, byte[] statuses, long statusSet,
+                            int from, int to, double[] totals) {
+        double sum = 0;
+        long count = 0;
+        for (int row = from; row < to; row++) {
+            double value = values[row];
+            boolean take = in(genderSet, genders[row]) & in(statusSet, statuses[row]) & value >= 0;
+            sum += take ? value : 0;
+            count += take ? 1 : 0;
+        }
+        totals[0] += sum;
+        totals[1] += count;
+    }
+
+    @Override
+    public void selectOnOrBefore(int[] days, int maxDay, byte[] statuses, long statusSet, int from, int to, IntArrayList rows) {
+        for (int row = from; row < to; row++) {
+            if (days[row] <= maxDay && in(statusSet, statuses[row])) {
+                rows.add(row);
+            }
+        }
+    }
+
+    @Override
+    public long countAfter(int[] days, int minDay, byte[] statuses, long statusSet, int from, int to) {
+        long count = 0;
+        for (int row = from; row < to; row++) {
+            count += (days[row] > minDay & in(statusSet, statuses[row])) ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static boolean in(long set, byte code) {
+        return ((set >>> code) & 1) != 0;
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Assigns a dense int code to every distinct value of a column. null is a legal value and
+// gets a code of its own, so a column never needs a separate null bitmap.
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final int maxSize;
+    private int nullCode = -1;
+
+    public StringDictionary() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public StringDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int encode(String value) {
+        if (value == null) {
+            if (nullCode < 0) {
+                nullCode = add(null);
+            }
+            return nullCode;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    private int add(String value) {
+        if (values.size() >= maxSize) {
+            throw new IllegalStateException("More than " + maxSize + " distinct values in dictionary column");
+        }
+        values.add(value);
+        return values.size() - 1;
+    }
+
+    // Independent copy that can take new values without affecting readers of this one.
+    StringDictionary copy() {
+        StringDictionary copy = new StringDictionary(maxSize);
+        copy.codes.putAll(codes);
+        copy.values.addAll(values);
+        copy.nullCode = nullCode;
+        return copy;
+    }
+
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,53 @@
+package service;
+
+import java.time.LocalDate;
+
+// Allocation-free tenure arithmetic on epoch days, matching ChronoUnit.YEARS.between.
+public final class Tenure {
+    private Tenure() {
+    }
+
+    public static long years(long joinedEpochDay, LocalDate asOf) {
+        long asOfDay = asOf.toEpochDay();
+        if (joinedEpochDay > asOfDay) {
+            return -fullYears(asOfDay, joinedEpochDay);
+        }
+        return fullYears(joinedEpochDay, asOfDay);
+    }
+
+    // Whole years from start to end, where start <= end.
+    private static long fullYears(long startDay, long endDay) {
+        long start = civil(startDay);
+        long end = civil(endDay);
+        long years = (end >> 9) - (start >> 9);
+        if ((end & 0x1FF) < (start & 0x1FF)) {
+            years--;
+        }
+        return years;
+    }
+
+    // Packs year, month and day as year << 9 | month << 5 | day (the same conversion as
+    // LocalDate.ofEpochDay), so month/day order compares as one int.
+    static long civil(long epochDay) {
+        long zeroDay = epochDay + 719528 - 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / 146097 - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * 146097;
+        }
+        long yearEst = (400 * zeroDay + 591) / 146097;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+        return (yearEst << 9) | ((long) month << 5) | day;
+    }
+}
@@ -0,0 +1,97 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Rows of one Dataset ordered by joining date. Because tenure only grows with time,
+// "tenure of at least N years as of D" is the same as "joined on or before D minus N years",
+// so milestone questions become a binary search plus a read of one contiguous range.
+public final class TenureIndex {
+    private final int[] days;
+    private final int[] rows;
+    private final byte[] statuses;
+
+    private TenureIndex(int[] days, int[] rows, byte[] statuses) {
+        this.days = days;
+        this.rows = rows;
+        this.statuses = statuses;
+    }
+
+    public static TenureIndex build(Dataset dataset) {
+        int n = dataset.size();
+        long[] keys = new long[n];
+        for (int row = 0; row < n; row++) {
+            keys[row] = (dataset.joiningEpochDay(row) << 32) | row;
+        }
+        Arrays.parallelSort(keys);
+
+        int[] days = new int[n];
+        int[] rows = new int[n];
+        byte[] statuses = new byte[n];
+        for (int i = 0; i < n; i++) {
+            days[i] = (int) (keys[i] >> 32);
+            rows[i] = (int) keys[i];
+            statuses[i] = EmployeeCodes.classifyStatus(dataset.status(rows[i]));
+        }
+        return new TenureIndex(days, rows, statuses);
+    }
+
+    // Active and notice-period employees are still on the rolls; the gratuity rule uses the same set.
+    private static boolean onRoll(byte status) {
+        return status == EmployeeCodes.STATUS_ACTIVE || status == EmployeeCodes.STATUS_NOTICE_PERIOD;
+    }
+
+    // Latest joining day that still gives at least the given years of tenure on asOf.
+    public static long cutoff(int years, LocalDate asOf) {
+        return asOf.minusYears(years).toEpochDay();
+    }
+
+    // Rows with at least the given tenure on asOf, oldest joiners first.
+    public int[] crossed(int years, LocalDate asOf, boolean onRollOnly) {
+        return collect(0, upperBound(cutoff(years, asOf)), onRollOnly);
+    }
+
+    // Rows that reach the given tenure after from and on or before to, in milestone order.
+    public int[] crossing(int years, LocalDate from, LocalDate to, boolean onRollOnly) {
+        return collect(upperBound(cutoff(years, from)), upperBound(cutoff(years, to)), onRollOnly);
+    }
+
+    // First date on which an employee who joined on joinedEpochDay has the given tenure.
+    public static LocalDate milestoneDate(long joinedEpochDay, int years) {
+        LocalDate joined = LocalDate.ofEpochDay(joinedEpochDay);
+        LocalDate milestone = joined.plusYears(years);
+        // Someone who joined on 29 February reaches the milestone on 1 March in common years.
+        return (Tenure.years(joinedEpochDay, milestone) < years) ? milestone.plusDays(1) : milestone;
+    }
+
+    private int[] collect(int from, int to, boolean onRollOnly) {
+        if (from >= to) {
+            return new int[0];
+        }
+        if (!onRollOnly) {
+            return Arrays.copyOfRange(rows, from, to);
+        }
+        IntArrayList out = new IntArrayList(to - from);
+        for (int i = from; i < to; i++) {
+            if (onRoll(statuses[i])) {
+                out.add(rows[i]);
+            }
+        }
+        return out.toArray();
+    }
+
+    // Index of the first entry joined after the given day.
+    private int upperBound(long day) {
+        int lo = 0;
+        int hi = days.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] <= day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
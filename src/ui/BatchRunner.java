@@ -0,0 +1,243 @@
+package ui;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import service.HRSystem;
+import service.ParetoTracker;
+import service.ReportWriter;
+
+// Non-interactive entry point for scheduled runs: loads the master once, runs the selected
+// reports concurrently (each into its own file in the output directory) and exits with a
+// status code instead of waiting on the keyboard.
+public class BatchRunner {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_USAGE = 1;
+    public static final int EXIT_LOAD_FAILED = 2;
+    public static final int EXIT_REPORT_FAILED = 3;
+
+    private static final List<String> ALL_REPORTS =
+            Arrays.asList("directory", "headcount", "attrition", "parity", "gratuity", "milestones", "pareto");
+
+    private static final int[] MILESTONES = {5, 10, 15};
+    private static final int MILESTONE_WINDOW_DAYS = 90;
+
+    private final HRSystem hris;
+    private String inputFile = "startup.csv";
+    private String rejectionsFile = "rejections.csv";
+    private String outputDir = "reports";
+    private ReportWriter.Format listFormat = ReportWriter.Format.TEXT;
+    private boolean streaming;
+    private boolean milestonesRequested;
+    private final List<String> reports = new ArrayList<>();
+
+    public BatchRunner(HRSystem hris) {
+        this.hris = hris;
+    }
+
+    public static void printUsage(PrintStream out) {
+        out.println("Usage: java Main --batch [--input=startup.csv] [--rejections=rejections.csv]");
+        out.println("                 [--reports=" + String.join(",", ALL_REPORTS) + "|all] [--out=reports]");
+        out.println("                 [--format=text|csv|json]   (applies to directory and gratuity)");
+        out.println("                 [--stream]   (one pass over the input without loading it; no milestones)");
+    }
+
+    // Returns false (after printing the problem) when the arguments are not usable.
+    public boolean parseArguments(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--batch") || arg.equals("--columnar") || arg.equals("--no-snapshot") || arg.equals("--no-watch") || arg.startsWith("--log-durability=")) {
+                continue;
+            } else if (arg.equals("--stream")) {
+                streaming = true;
+            } else if (arg.startsWith("--input=")) {
+                inputFile = arg.substring("--input=".length());
+            } else if (arg.startsWith("--rejections=")) {
+                rejectionsFile = arg.substring("--rejections=".length());
+            } else if (arg.startsWith("--format=")) {
+                try {
+                    listFormat = ReportWriter.Format.valueOf(arg.substring("--format=".length()).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("[ERROR] Unknown format '" + arg.substring("--format=".length()) + "'.");
+                    return false;
+                }
+            } else if (arg.startsWith("--out=")) {
+                outputDir = arg.substring("--out=".length());
+            } else if (arg.startsWith("--reports=")) {
+                for (String report : arg.substring("--reports=".length()).split(",")) {
+                    String name = report.trim().toLowerCase();
+                    if (name.equals("all")) {
+                        reports.addAll(ALL_REPORTS);
+                    } else if (ALL_REPORTS.contains(name)) {
+                        reports.add(name);
+                        milestonesRequested |= name.equals("milestones");
+                    } else if (!name.isEmpty()) {
+                        System.err.println("[ERROR] Unknown report '" + name + "'.");
+                        return false;
+                    }
+                }
+            } else {
+                System.err.println("[ERROR] Unknown argument '" + arg + "'.");
+                return false;
+            }
+        }
+        if (reports.isEmpty()) {
+            reports.addAll(ALL_REPORTS);
+        }
+        return true;
+    }
+
+    public int run() {
+        File outDir = new File(outputDir);
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            System.err.println("[ERROR] Cannot create output directory: " + outputDir);
+            return EXIT_USAGE;
+        }
+
+        List<String> selected = new ArrayList<>(new LinkedHashSet<>(reports));
+        if (streaming) {
+            return runStreaming(outDir, selected);
+        }
+
+        boolean needsEmployees = !(selected.size() == 1 && selected.get(0).equals("pareto"));
+        if (needsEmployees && !hris.loadData(inputFile)) {
+            return EXIT_LOAD_FAILED;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(selected.size(), Runtime.getRuntime().availableProcessors()));
+        Map<String, Future<?>> running = new LinkedHashMap<>();
+        Map<String, File> targets = new LinkedHashMap<>();
+        for (String report : selected) {
+            File target = new File(outDir, report + "." + extension(report));
+            targets.put(report, target);
+            running.put(report, pool.submit(() -> {
+                writeReport(report, target);
+                return null;
+            }));
+        }
+        pool.shutdown();
+
+        int exitCode = EXIT_OK;
+        for (Map.Entry<String, Future<?>> entry : running.entrySet()) {
+            try {
+                entry.getValue().get();
+                System.out.println("[OK] " + entry.getKey() + " -> " + targets.get(entry.getKey()).getPath());
+            } catch (ExecutionException e) {
+                System.err.println("[ERROR] Report '" + entry.getKey() + "' failed: " + e.getCause());
+                exitCode = EXIT_REPORT_FAILED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return EXIT_REPORT_FAILED;
+            }
+        }
+        return exitCode;
+    }
+
+    // The employee reports share a single pass over the input; Pareto reads its own log.
+    private int runStreaming(File outDir, List<String> selected) {
+        if (milestonesRequested) {
+            System.err.println("[ERROR] The milestones report needs the loaded master and is not available with --stream.");
+            return EXIT_USAGE;
+        }
+        selected.remove("milestones");
+
+        Map<String, PrintStream> outputs = new LinkedHashMap<>();
+        Map<String, File> targets = new LinkedHashMap<>();
+        int exitCode = EXIT_OK;
+        try {
+            for (String report : selected) {
+                File target = new File(outDir, report + "." + extension(report));
+                targets.put(report, target);
+                if (!report.equals("pareto")) {
+                    outputs.put(report, new PrintStream(new BufferedOutputStream(new FileOutputStream(target), 1 << 16), false, "UTF-8"));
+                }
+            }
+            if (!outputs.isEmpty() && !hris.streamReports(inputFile, outputs, listFormat)) {
+                exitCode = EXIT_LOAD_FAILED;
+            }
+            if (selected.contains("pareto")) {
+                writeReport("pareto", targets.get("pareto"));
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Streaming run failed: " + e);
+            exitCode = EXIT_REPORT_FAILED;
+        } finally {
+            for (Map.Entry<String, PrintStream> entry : outputs.entrySet()) {
+                entry.getValue().close();
+                if (entry.getValue().checkError() && exitCode == EXIT_OK) {
+                    System.err.println("[ERROR] Write error on " + targets.get(entry.getKey()));
+                    exitCode = EXIT_REPORT_FAILED;
+                }
+            }
+        }
+
+        if (exitCode == EXIT_OK) {
+            for (Map.Entry<String, File> entry : targets.entrySet()) {
+                System.out.println("[OK] " + entry.getKey() + " -> " + entry.getValue().getPath());
+            }
+        }
+        return exitCode;
+    }
+
+    private boolean isList(String report) {
+        return report.equals("directory") || report.equals("gratuity");
+    }
+
+    private String extension(String report) {
+        return (isList(report) && listFormat != ReportWriter.Format.TEXT) ? listFormat.extension() : "txt";
+    }
+
+    private void writeReport(String report, File target) throws IOException {
+        if (isList(report) && listFormat != ReportWriter.Format.TEXT) {
+            boolean exported = report.equals("directory")
+                    ? hris.exportDirectory(target.getPath(), listFormat)
+                    : hris.exportGratuity(target.getPath(), listFormat);
+            if (!exported) {
+                throw new IOException("Export failed for " + target);
+            }
+            return;
+        }
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(target), 1 << 16), false, "UTF-8")) {
+            switch (report) {
+                case "directory":
+                    hris.listAllEmployees(out);
+                    break;
+                case "headcount":
+                    hris.generateDepartmentReport(out);
+                    break;
+                case "attrition":
+                    hris.generateAttritionReport(out);
+                    break;
+                case "parity":
+                    hris.generatePayParityReport(out);
+                    break;
+                case "gratuity":
+                    hris.generateGratuityReport(out);
+                    break;
+                case "milestones":
+                    hris.generateUpcomingMilestonesReport(out, MILESTONES, MILESTONE_WINDOW_DAYS, LocalDate.now());
+                    break;
+                case "pareto":
+                    hris.generateParetoChart(out, new ParetoTracker(rejectionsFile));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown report: " + report);
+            }
+            if (out.checkError()) {
+                throw new IOException("Write error on " + target);
+            }
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package ui;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import model.Employee;
 import service.HRSystem;
+import service.ReportWriter;
 
 public class Menu {
-    
+    private static final int DEFAULT_PAGE_SIZE = 25;
+    private static final int SEARCH_RESULTS = 20;
+    private static final int[] TENURE_MILESTONES = {5, 10, 15};
+
     private HRSystem hris;
     private Scanner scanner;
 
@@ -22,7 +30,7 @@ public class Menu {
             System.out.println("      TALENT COMPASS - HRIS v1.0         ");
             System.out.println("=========================================");
             System.out.println("--- ANALYTICS MODULES ---");
-            System.out.println("[1] View Master Employee Directory");
+            System.out.println("[1] View / Search Master Employee Directory");
             System.out.println("[2] Workforce Distribution (Headcount)");
             System.out.println("[3] Six Sigma Attrition & Risk Report");
             System.out.println("[4] DE&I Gender Pay Parity Report");
@@ -31,10 +39,31 @@ public class Menu {
             System.out.println("--- DATA ENTRY MODULES ---");
             System.out.println("[6] Recruitment: Log New Candidate & Cycle Time");
             System.out.println("[7] Quality Control: Log Rejection & View Pareto Chart");
+            System.out.println("[8] Bulk Import from ATS Export");
+            System.out.println("[9] Export Directory / Gratuity List (CSV/JSON)");
+            System.out.println("");
+            System.out.println("--- LOOKUP MODULES ---");
+            System.out.println("[10] Find Employee by ID");
+            System.out.println("[11] Filter Employees by Department / Status");
+            System.out.println("[12] Tenure Milestones & Upcoming Gratuity");
+            System.out.println("");
+            System.out.println("--- ADMIN ---");
+            System.out.println("[13] System Diagnostics");
+            System.out.println("");
+            System.out.println("--- COMPENSATION MODULES ---");
+            System.out.println("[14] Pay Parity Drill-down (Department > Role)");
+            System.out.println("[18] Compensation What-If Scenarios");
+            System.out.println("");
+            System.out.println("--- RECRUITMENT MODULES ---");
+            System.out.println("[15] Hiring Cycle Time by Role & Month");
+            System.out.println("[16] Recruitment Funnel & Rejection Reasons by Role");
+            System.out.println("");
+            System.out.println("--- EMPLOYEE RECORDS ---");
+            System.out.println("[17] Add / Update / Terminate Employee");
             System.out.println("");
             System.out.println("[0] Exit System");
             System.out.println("=========================================");
-            System.out.print("Enter your choice (0-7): ");
+            System.out.print("Enter your choice (0-18): ");
 
             String choice = "";
             try {
@@ -46,7 +75,7 @@ public class Menu {
 
             switch (choice) {
                 case "1":
-                    hris.listAllEmployees();
+                    browseDirectory();
                     break;
                 case "2":
                     hris.generateDepartmentReport();
@@ -66,15 +95,48 @@ public class Menu {
                 case "7":
                     hris.logRejection();
                     break;
+                case "8":
+                    hris.bulkImport();
+                    break;
+                case "9":
+                    exportReport();
+                    break;
+                case "10":
+                    findEmployee();
+                    break;
+                case "11":
+                    filterEmployees();
+                    break;
+                case "12":
+                    tenureMilestones();
+                    break;
+                case "13":
+                    hris.generateDiagnosticsReport();
+                    break;
+                case "14":
+                    payDrillDown();
+                    break;
+                case "15":
+                    hris.generateCycleTimeReport();
+                    break;
+                case "16":
+                    hris.generateFunnelReport();
+                    break;
+                case "17":
+                    editEmployees();
+                    break;
+                case "18":
+                    compensationScenarios();
+                    break;
                 case "0":
                     System.out.println("\nShutting down TalentCompass... Data securely saved.");
                     isSystemRunning = false;
                     break;
                 default:
-                    System.out.println("\nInvalid command. Please type a number between 0 and 7.");
+                    System.out.println("\nInvalid command. Please type a number between 0 and 18.");
             }
 
-            if (isSystemRunning) {
+            if (isSystemRunning && !choice.equals("1")) {
                 System.out.print("\nPress [ENTER] to return to the Main Menu...");
                 try {
                     scanner.nextLine();
@@ -85,4 +147,235 @@ public class Menu {
         }
 
     }
+
+    // Both loops end quietly when input runs out, so start() can shut down as on [0].
+    private void browseDirectory() {
+        try {
+            System.out.print("\nRows per page [" + DEFAULT_PAGE_SIZE + "]: ");
+            int pageSize = parsePositive(scanner.nextLine(), DEFAULT_PAGE_SIZE);
+            int page = 1;
+
+            while (true) {
+                int pages = hris.listEmployeesPage(System.out, page, pageSize);
+                page = Math.min(page, pages);
+                System.out.print("[N]ext  [P]revious  [G]o to page  [S]earch  [Q]uit to Main Menu: ");
+                String command = scanner.nextLine().trim().toUpperCase();
+                if (command.isEmpty() || command.equals("N")) {
+                    page = Math.min(page + 1, pages);
+                } else if (command.equals("P")) {
+                    page = Math.max(page - 1, 1);
+                } else if (command.equals("G")) {
+                    System.out.print("Page (1-" + pages + "): ");
+                    page = Math.min(parsePositive(scanner.nextLine(), page), pages);
+                } else if (command.equals("S")) {
+                    searchDirectory();
+                } else if (command.equals("Q")) {
+                    return;
+                } else if (command.matches("\\d+")) {
+                    page = Math.min(parsePositive(command, page), pages);
+                }
+            }
+        } catch (NoSuchElementException e) {
+            return;
+        }
+    }
+
+    // Repeats until a blank query, then goes back to the page the search started from.
+    private void searchDirectory() {
+        while (true) {
+            System.out.print("\nSearch by name or ID (typos are tolerated; blank to return): ");
+            String query;
+            try {
+                query = scanner.nextLine();
+            } catch (NoSuchElementException e) {
+                return;
+            }
+            if (query.trim().isEmpty()) {
+                return;
+            }
+            hris.searchEmployees(System.out, query, SEARCH_RESULTS);
+        }
+    }
+
+    private void findEmployee() {
+        System.out.print("\nEmployee ID: ");
+        hris.findEmployee(System.out, scanner.nextLine());
+    }
+
+    private void filterEmployees() {
+        System.out.print("\nDepartment (blank for any): ");
+        String department = scanner.nextLine();
+        System.out.print("Status (e.g. Active, Probation, Notice Period, Exited; blank for any): ");
+        String status = scanner.nextLine();
+        hris.listEmployeesFiltered(System.out, department, status);
+    }
+
+    private void tenureMilestones() {
+        System.out.println("\n--- TENURE MILESTONES ---");
+        System.out.println("[1] Employees who have crossed N years as of a date");
+        System.out.println("[2] Employees reaching 5/10/15 years in the next 30 or 90 days");
+        System.out.print("Query (1-2): ");
+        String query = scanner.nextLine().trim();
+
+        if (query.equals("1")) {
+            System.out.print("Years of service [5]: ");
+            int years = parsePositive(scanner.nextLine(), 5);
+            System.out.print("As of date (YYYY-MM-DD) [today]: ");
+            String input = scanner.nextLine().trim();
+            LocalDate asOf;
+            try {
+                asOf = input.isEmpty() ? LocalDate.now() : LocalDate.parse(input);
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date. Use YYYY-MM-DD.");
+                return;
+            }
+            hris.generateTenureMilestoneReport(System.out, years, asOf);
+        } else if (query.equals("2")) {
+            System.out.print("Window [1] 30 days  [2] 90 days: ");
+            int days = scanner.nextLine().trim().equals("1") ? 30 : 90;
+            hris.generateUpcomingMilestonesReport(System.out, TENURE_MILESTONES, days, LocalDate.now());
+        } else {
+            System.out.println("Invalid choice.");
+        }
+    }
+
+    private void payDrillDown() {
+        hris.generatePayDrillDown(System.out, null, null);
+        while (true) {
+            System.out.print("\nDepartment to drill into (blank to return): ");
+            String department = scanner.nextLine().trim();
+            if (department.isEmpty()) {
+                return;
+            }
+            if (!hris.generatePayDrillDown(System.out, department, null)) {
+                continue;
+            }
+            while (true) {
+                System.out.print("\nRole to drill into (blank to go back): ");
+                String role = scanner.nextLine().trim();
+                if (role.isEmpty()) {
+                    hris.generatePayDrillDown(System.out, null, null);
+                    break;
+                }
+                hris.generatePayDrillDown(System.out, department, role);
+            }
+        }
+    }
+
+    private void compensationScenarios() {
+        System.out.println("\n--- COMPENSATION WHAT-IF ---");
+        System.out.println("Scenario file lines: Scenario,Rule,Target,Value with Rule one of");
+        System.out.println("default, department, role (increment %), promotion (employee ID, bump %) or benefits (multiplier).");
+        String path = prompt("Scenario file", "scenarios.csv");
+        String departments = prompt("Per-department results file (.csv or .json, blank to skip)", null);
+        hris.runCompensationScenarios(System.out, path, departments);
+    }
+
+    private void editEmployees() {
+        System.out.println("\n--- EMPLOYEE RECORDS ---");
+        System.out.println("[1] Add New Employee");
+        System.out.println("[2] Update Employee Details");
+        System.out.println("[3] Terminate Employee (Notice Period / Exited)");
+        System.out.println("[4] Save All Changes to startup.csv Now");
+        System.out.print("Action (1-4): ");
+        String action = scanner.nextLine().trim();
+
+        if (action.equals("1")) {
+            Employee employee = readEmployee(null);
+            if (employee != null && hris.addEmployee(employee)) {
+                System.out.println("\nEmployee " + employee.getId() + " added.");
+            }
+        } else if (action.equals("2")) {
+            System.out.print("\nEmployee ID: ");
+            Employee current = hris.getEmployee(scanner.nextLine());
+            if (current == null) {
+                System.out.println("[INFO] No employee found with that ID.");
+                return;
+            }
+            System.out.println("Press [ENTER] to keep the value shown in brackets.");
+            Employee employee = readEmployee(current);
+            if (employee != null && hris.updateEmployee(employee)) {
+                System.out.println("\nEmployee " + employee.getId() + " updated.");
+            }
+        } else if (action.equals("3")) {
+            System.out.print("\nEmployee ID: ");
+            String id = scanner.nextLine().trim();
+            System.out.print("[1] Serving notice period  [2] Exited: ");
+            boolean servingNotice = !scanner.nextLine().trim().equals("2");
+            if (hris.terminateEmployee(id, servingNotice)) {
+                System.out.println("\nEmployee " + id + " marked " + (servingNotice ? "Notice Period" : "Exited") + ".");
+            }
+        } else if (action.equals("4")) {
+            hris.checkpointJournal();
+        } else {
+            System.out.println("Invalid choice. Nothing changed.");
+        }
+    }
+
+    // Prompts for every field, offering current's values as defaults (or a new ID when null).
+    private Employee readEmployee(Employee current) {
+        try {
+            String id = (current != null) ? current.getId() : prompt("Employee ID", null);
+            String name = prompt("Full Name", (current != null) ? current.getFullName() : null);
+            String gender = prompt("Gender (M/F)", (current != null) ? current.getGender() : null);
+            String department = prompt("Department", (current != null) ? current.getDepartment() : null);
+            String role = prompt("Role", (current != null) ? current.getRole() : null);
+            String joined = prompt("Joining Date (YYYY-MM-DD)",
+                    (current != null) ? current.getJoiningDate().toString() : LocalDate.now().toString());
+            String salary = prompt("Monthly Basic Salary",
+                    (current != null && current.getBasicSalary() != null && !current.getBasicSalary().isNaN())
+                            ? BigDecimal.valueOf(current.getBasicSalary()).stripTrailingZeros().toPlainString() : null);
+            String status = prompt("Status (Active, Probation, Notice Period, Exited)",
+                    (current != null) ? current.getStatus() : "Active");
+            return new Employee(id, name, gender, department, role, LocalDate.parse(joined), Double.parseDouble(salary), status);
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date. Use YYYY-MM-DD. Nothing changed.");
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid salary. Enter a number without currency symbols. Nothing changed.");
+        }
+        return null;
+    }
+
+    private String prompt(String label, String fallback) {
+        System.out.print(label + ((fallback != null) ? " [" + fallback + "]" : "") + ": ");
+        String input = scanner.nextLine().trim();
+        return (input.isEmpty() && fallback != null) ? fallback : input;
+    }
+
+    private void exportReport() {
+        System.out.println("\n--- EXPORT ---");
+        System.out.println("[1] Master Employee Directory");
+        System.out.println("[2] 5-Year Gratuity List");
+        System.out.print("Report (1-2): ");
+        String report = scanner.nextLine().trim();
+        if (!report.equals("1") && !report.equals("2")) {
+            System.out.println("Invalid choice. Nothing exported.");
+            return;
+        }
+
+        System.out.print("Format [1] CSV  [2] JSON: ");
+        ReportWriter.Format format = scanner.nextLine().trim().equals("2") ? ReportWriter.Format.JSON : ReportWriter.Format.CSV;
+
+        String defaultPath = (report.equals("1") ? "directory." : "gratuity.") + format.extension();
+        System.out.print("Output file [" + defaultPath + "]: ");
+        String path = scanner.nextLine().trim();
+        if (path.isEmpty()) {
+            path = defaultPath;
+        }
+
+        if (report.equals("1")) {
+            hris.exportDirectory(path, format);
+        } else {
+            hris.exportGratuity(path, format);
+        }
+    }
+
+    private static int parsePositive(String input, int fallback) {
+        try {
+            int value = Integer.parseInt(input.trim());
+            return (value > 0) ? value : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
 }
\ No newline at end of file
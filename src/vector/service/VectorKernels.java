@@ -0,0 +1,197 @@
+package service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// AggregationKernels on the JDK Vector API (jdk.incubator.vector, JDK 16 and later). It needs
+// --add-modules jdk.incubator.vector to compile and run, so it lives in its own source root
+// (vector/) outside the Java 11 build, and Kernels loads it by name. Code columns are tested a
+// full byte vector at a time into a 0/1 selection buffer of one block; the int and double passes
+// then widen that selection to their own lane count, so salaries and days are read with masked,
+// branch-free vector operations. Tails shorter than a vector go to the scalar kernels.
+final class VectorKernels implements AggregationKernels {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // Byte vectors that widen into whole int or double vectors.
+    private static final VectorSpecies<Byte> INT_SELECTION = selectionSpecies(INTS.length());
+    private static final VectorSpecies<Byte> DOUBLE_SELECTION = selectionSpecies(DOUBLES.length());
+
+    private static final int BLOCK = 4096;
+    // Above this many codes or keys a compare per code costs more than the scalar increment.
+    private static final int MAX_VECTOR_CODES = 16;
+    private static final int MAX_VECTOR_KEYS = 32;
+
+    private final ScalarKernels scalar = ScalarKernels.INSTANCE;
+
+    public VectorKernels() {
+        if (BYTES.length() < INT_SELECTION.length() || BYTES.length() < DOUBLE_SELECTION.length()) {
+            throw new UnsupportedOperationException("vector shape too small");
+        }
+    }
+
+    private static VectorSpecies<Byte> selectionSpecies(int lanes) {
+        return VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, lanes * 8)));
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + BYTES.vectorBitSize() + "-bit)";
+    }
+
+    @Override
+    public void countCodes(byte[] codes, int from, int to, long[] counts) {
+        if (counts.length > MAX_VECTOR_CODES) {
+            scalar.countCodes(codes, from, to, counts);
+            return;
+        }
+        int bound = from + BYTES.loopBound(to - from);
+        int row = from;
+        for (; row < bound; row += BYTES.length()) {
+            ByteVector v = ByteVector.fromArray(BYTES, codes, row);
+            for (int code = 0; code < counts.length; code++) {
+                counts[code] += v.eq((byte) code).trueCount();
+            }
+        }
+        scalar.countCodes(codes, row, to, counts);
+    }
+
+    @Override
+    public void countKeys(int[] keys, byte[] filter, long filterSet, int from, int to, long[] counts) {
+        if (counts.length > MAX_VECTOR_KEYS) {
+            scalar.countKeys(keys, filter, filterSet, from, to, counts);
+            return;
+        }
+        byte[] selection = new byte[BLOCK];
+        int parts = INT_SELECTION.length() / INTS.length();
+        for (int start = from; start < to; start += BLOCK) {
+            int n = Math.min(BLOCK, to - start);
+            select(filter, filterSet, null, 0, start, n, selection);
+            int bound = INT_SELECTION.loopBound(n);
+            for (int i = 0; i < bound; i += INT_SELECTION.length()) {
+                ByteVector picked = ByteVector.fromArray(INT_SELECTION, selection, i);
+                for (int part = 0; part < parts; part++) {
+                    VectorMask<Integer> mask = ((IntVector) picked.convertShape(VectorOperators.B2I, INTS, part)).compare(VectorOperators.NE, 0);
+                    if (!mask.anyTrue()) {
+                        continue;
+                    }
+                    IntVector v = IntVector.fromArray(INTS, keys, start + i + part * INTS.length());
+                    for (int key = 0; key < counts.length; key++) {
+                        counts[key] += v.eq(key).and(mask).trueCount();
+                    }
+                }
+            }
+            scalar.countKeys(keys, filter, filterSet, start + bound, start + n, counts);
+        }
+    }
+
+    @Override
+    public void sumSalaries(double[] values, byte[] genders, long genderSet, byte[] statuses, long statusSet,
+                            int from, int to, double[] totals) {
+        byte[] selection = new byte[BLOCK];
+        int parts = DOUBLE_SELECTION.length() / DOUBLES.length();
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        DoubleVector count = DoubleVector.zero(DOUBLES);
+        for (int start = from; start < to; start += BLOCK) {
+            int n = Math.min(BLOCK, to - start);
+            select(genders, genderSet, statuses, statusSet, start, n, selection);
+            int bound = DOUBLE_SELECTION.loopBound(n);
+            for (int i = 0; i < bound; i += DOUBLE_SELECTION.length()) {
+                ByteVector picked = ByteVector.fromArray(DOUBLE_SELECTION, selection, i);
+                for (int part = 0; part < parts; part++) {
+                    DoubleVector v = DoubleVector.fromArray(DOUBLES, values, start + i + part * DOUBLES.length());
+                    VectorMask<Double> mask = ((DoubleVector) picked.convertShape(VectorOperators.B2D, DOUBLES, part))
+                            .compare(VectorOperators.NE, 0)
+                            .and(v.compare(VectorOperators.GE, 0));
+                    sum = sum.add(v, mask);
+                    count = count.add(1, mask);
+                }
+            }
+            scalar.sumSalaries(values, genders, genderSet, statuses, statusSet, start + bound, start + n, totals);
+        }
+        totals[0] += sum.reduceLanes(VectorOperators.ADD);
+        totals[1] += count.reduceLanes(VectorOperators.ADD);
+    }
+
+    @Override
+    public void selectOnOrBefore(int[] days, int maxDay, byte[] statuses, long statusSet, int from, int to, IntArrayList rows) {
+        byte[] selection = new byte[BLOCK];
+        int parts = INT_SELECTION.length() / INTS.length();
+        for (int start = from; start < to; start += BLOCK) {
+            int n = Math.min(BLOCK, to - start);
+            select(statuses, statusSet, null, 0, start, n, selection);
+            int bound = INT_SELECTION.loopBound(n);
+            for (int i = 0; i < bound; i += INT_SELECTION.length()) {
+                ByteVector picked = ByteVector.fromArray(INT_SELECTION, selection, i);
+                for (int part = 0; part < parts; part++) {
+                    int base = start + i + part * INTS.length();
+                    VectorMask<Integer> mask = ((IntVector) picked.convertShape(VectorOperators.B2I, INTS, part))
+                            .compare(VectorOperators.NE, 0)
+                            .and(IntVector.fromArray(INTS, days, base).compare(VectorOperators.LE, maxDay));
+                    long lanes = mask.toLong();
+                    while (lanes != 0) {
+                        rows.add(base + Long.numberOfTrailingZeros(lanes));
+                        lanes &= lanes - 1;
+                    }
+                }
+            }
+            scalar.selectOnOrBefore(days, maxDay, statuses, statusSet, start + bound, start + n, rows);
+        }
+    }
+
+    @Override
+    public long countAfter(int[] days, int minDay, byte[] statuses, long statusSet, int from, int to) {
+        byte[] selection = new byte[BLOCK];
+        int parts = INT_SELECTION.length() / INTS.length();
+        long count = 0;
+        for (int start = from; start < to; start += BLOCK) {
+            int n = Math.min(BLOCK, to - start);
+            select(statuses, statusSet, null, 0, start, n, selection);
+            int bound = INT_SELECTION.loopBound(n);
+            for (int i = 0; i < bound; i += INT_SELECTION.length()) {
+                ByteVector picked = ByteVector.fromArray(INT_SELECTION, selection, i);
+                for (int part = 0; part < parts; part++) {
+                    count += ((IntVector) picked.convertShape(VectorOperators.B2I, INTS, part))
+                            .compare(VectorOperators.NE, 0)
+                            .and(IntVector.fromArray(INTS, days, start + i + part * INTS.length()).compare(VectorOperators.GT, minDay))
+                            .trueCount();
+                }
+            }
+            count += scalar.countAfter(days, minDay, statuses, statusSet, start + bound, start + n);
+        }
+        return count;
+    }
+
+    // selection[i] = 1 when row start + i has a code in set (and, given a second column, a code
+    // in secondSet there too), else 0.
+    private static void select(byte[] codes, long set, byte[] second, long secondSet, int start, int n, byte[] selection) {
+        ByteVector zero = ByteVector.zero(BYTES);
+        int bound = BYTES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += BYTES.length()) {
+            VectorMask<Byte> mask = members(ByteVector.fromArray(BYTES, codes, start + i), set);
+            if (second != null) {
+                mask = mask.and(members(ByteVector.fromArray(BYTES, second, start + i), secondSet));
+            }
+            zero.blend((byte) 1, mask).intoArray(selection, i);
+        }
+        for (; i < n; i++) {
+            boolean in = ((set >>> codes[start + i]) & 1) != 0
+                    && (second == null || ((secondSet >>> second[start + i]) & 1) != 0);
+            selection[i] = (byte) (in ? 1 : 0);
+        }
+    }
+
+    private static VectorMask<Byte> members(ByteVector codes, long set) {
+        VectorMask<Byte> mask = BYTES.maskAll(false);
+        for (long rest = set; rest != 0; rest &= rest - 1) {
+            mask = mask.or(codes.eq((byte) Long.numberOfTrailingZeros(rest)));
+        }
+        return mask;
+    }
+}